@@ -0,0 +1,48 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.drive;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import edu.wpi.first.wpilibj.geometry.Pose2d;
+import edu.wpi.first.wpilibj.geometry.Rotation2d;
+import edu.wpi.first.wpilibj.kinematics.DifferentialDriveOdometry;
+
+/**
+ * Cost of the drivetrain's per-loop math. The motors and gyro are replaced by a robot
+ * driving a steady arc, advanced one 20 ms loop per call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DrivetrainBenchmark {
+  private static final double kLoopTime = 0.02;
+  private static final double kLeftSpeed = 2;
+  private static final double kRightSpeed = 2.2;
+
+  private final DifferentialDriveOdometry odometry = new DifferentialDriveOdometry(new Rotation2d());
+
+  private double leftMeters = 0;
+  private double rightMeters = 0;
+  private double angleDegrees = 0;
+
+  @Benchmark
+  public Pose2d odometryUpdate() {
+    leftMeters += kLeftSpeed * kLoopTime;
+    rightMeters += kRightSpeed * kLoopTime;
+    angleDegrees += 0.5;
+    return odometry.update(Rotation2d.fromDegrees(angleDegrees), leftMeters, rightMeters);
+  }
+}
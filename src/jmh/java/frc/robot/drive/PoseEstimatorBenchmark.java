@@ -0,0 +1,80 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.drive;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import static frc.robot.Constants.*;
+
+/**
+ * Cost of the pose estimator's per-loop work, with a full history. The robot drives a
+ * steady arc, advanced one 20 ms loop per call. A loop with a camera frame replays the
+ * whole history, the worst case for a correction.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PoseEstimatorBenchmark {
+  private static final double kLoopTime = 0.02;
+  private static final double kLeftSpeed = 2;
+  private static final double kRightSpeed = 2.2;
+
+  private final PoseEstimator estimator = new PoseEstimator(poseHistorySize);
+
+  private double time = 0;
+  private double leftMeters = 0;
+  private double rightMeters = 0;
+
+  // Estimated positions over the history, oldest at index
+  private final double[] pastX = new double[poseHistorySize];
+  private final double[] pastY = new double[poseHistorySize];
+  private int index = 0;
+
+  @Setup
+  public void fillHistory() {
+    for (int i = 0; i < poseHistorySize; i++) {
+      step();
+    }
+  }
+
+  private void step() {
+    time += kLoopTime;
+    leftMeters += kLeftSpeed * kLoopTime;
+    rightMeters += kRightSpeed * kLoopTime;
+    double heading = (rightMeters - leftMeters) / kTrackWidthMeters;
+    estimator.update(time, heading, leftMeters, rightMeters);
+
+    pastX[index] = estimator.getX();
+    pastY[index] = estimator.getY();
+    index = (index + 1) % poseHistorySize;
+  }
+
+  @Benchmark
+  public double update() {
+    step();
+    return estimator.getX();
+  }
+
+  @Benchmark
+  public double updateWithVision() {
+    step();
+    // A frame from the oldest loop in the history, a few centimeters off
+    double captureTime = time - (poseHistorySize - 1) * kLoopTime;
+    estimator.addMeasurement(captureTime, pastX[index] + 0.03, pastY[index], 
+      visionCorrectionGain, visionMaxCorrection);
+    return estimator.getX();
+  }
+}
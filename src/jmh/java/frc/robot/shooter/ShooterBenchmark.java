@@ -0,0 +1,49 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.shooter;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import static frc.robot.Constants.*;
+
+/**
+ * Cost of turning a target distance into a shooter RPM, with the ballistic model and with
+ * the precomputed table.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ShooterBenchmark {
+  private final ShooterMap shooterMap = new ShooterMap(
+    shooterMapMinDistance, shooterMapMaxDistance, shooterMapStep, ShooterMap::ballisticRPM);
+
+  private double distance = shooterMapMinDistance;
+
+  private double nextDistance() {
+    // Sweep the table's range so the result can't be constant folded
+    distance = distance >= shooterMapMaxDistance ? shooterMapMinDistance : distance + 0.01;
+    return distance;
+  }
+
+  @Benchmark
+  public double ballisticRPM() {
+    return ShooterMap.ballisticRPM(nextDistance());
+  }
+
+  @Benchmark
+  public double shooterMapRPM() {
+    return shooterMap.getRPM(nextDistance());
+  }
+}
@@ -0,0 +1,80 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.telemetry;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import static frc.robot.Constants.*;
+
+/**
+ * Cost per signal of logging one loop's worth of signals, with the writer thread
+ * writing to a file in a temporary directory alongside, as on the robot.
+ *
+ * <p>Logged flat out, the ring would fill and log() would only be timed dropping records.
+ * Before each loop the benchmark waits, untimed, for the writer to leave room for it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DataLoggerBenchmark {
+  private static final int kSignals = 64;
+
+  private final DataLogger logger = new DataLogger(loggerCapacity, 0.001);
+  private final int[] signals = new int[kSignals];
+  private Path directory;
+  private double time = 0;
+
+  @Setup
+  public void startLogging() throws IOException {
+    for (int i = 0; i < kSignals; i++) {
+      signals[i] = logger.addSignal("Benchmark/Signal " + i);
+    }
+    directory = Files.createTempDirectory("logs");
+    logger.start(directory);
+  }
+
+  @Setup(Level.Invocation)
+  public void waitForRoom() {
+    while (logger.getBacklog() > loggerCapacity / 2) {
+      Thread.onSpinWait();
+    }
+  }
+
+  @TearDown
+  public void stopLogging() throws IOException {
+    logger.stop();
+    for (Path log : DataLogger.listLogs(directory)) {
+      Files.delete(log);
+    }
+    Files.delete(directory);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(kSignals)
+  public void logLoop() {
+    time += kLoopPeriodSeconds;
+    logger.setTime(time);
+    for (int i = 0; i < kSignals; i++) {
+      logger.log(signals[i], time + i);
+    }
+  }
+}
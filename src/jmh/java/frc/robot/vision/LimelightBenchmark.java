@@ -0,0 +1,43 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.vision;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import static frc.robot.Constants.*;
+
+/**
+ * Cost of the two target distance estimates, fed with a sweeping ty and ta in place of
+ * the camera.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LimelightBenchmark {
+  private double yError = 0;
+  private double area = 0;
+
+  @Benchmark
+  public double targetDistanceMeasured() {
+    yError = yError >= 20 ? 1 : yError + 0.05;
+    return Limelight.distanceFromAngle(cameraToBallTargetHeight, cameraAngle, yError);
+  }
+
+  @Benchmark
+  public double targetDistanceRegression() {
+    area = area >= 5 ? 0.1 : area + 0.01;
+    return Limelight.distanceFromArea(area);
+  }
+}
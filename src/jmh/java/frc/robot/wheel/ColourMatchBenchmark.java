@@ -0,0 +1,148 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.wheel;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.revrobotics.ColorMatch;
+import com.revrobotics.ColorMatchResult;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.wpi.first.wpilibj.util.Color;
+import frc.robot.wheel.SenseColor.Colour;
+
+/**
+ * Compares REV's ColorMatch, as SenseColor used it, against ColourMatcher and a calibrated
+ * ColourModel.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ColourMatchBenchmark {
+  private static final int kSampleCount = 1024;
+
+  private final ColorMatch colorMatch = new ColorMatch();
+  private final ColourMatcher colourMatcher = new ColourMatcher();
+  private ColourModel colourModel;
+
+  private final Color[] samples = new Color[kSampleCount];
+  private final ColorSample[] sensorSamples = new ColorSample[kSampleCount];
+  private int index = 0;
+
+  @Setup
+  public void setup() {
+    colorMatch.addColorMatch(Colour.BLUE.getTarget());
+    colorMatch.addColorMatch(Colour.YELLOW.getTarget());
+    colorMatch.addColorMatch(Colour.RED.getTarget());
+    colorMatch.addColorMatch(Colour.GREEN.getTarget());
+
+    // Noisy readings around the four targets
+    Random random = new Random(4674);
+    Colour[] colours = Colour.values();
+    for (int i = 0; i < samples.length; i++) {
+      Color target = colours[i % colours.length].getTarget();
+      samples[i] = new Color(
+        target.red + random.nextGaussian() * 0.03,
+        target.green + random.nextGaussian() * 0.03,
+        target.blue + random.nextGaussian() * 0.03);
+      sensorSamples[i] = new ColorSample(samples[i], irReading(i % colours.length, random), 400, 0);
+    }
+
+    // Calibrated on a separate set of readings
+    ColourCalibration calibration = new ColourCalibration();
+    for (int i = 0; i < colours.length * 200; i++) {
+      Colour colour = colours[i % colours.length];
+      Color target = colour.getTarget();
+      calibration.add(colour, new ColorSample(new Color(
+        target.red + random.nextGaussian() * 0.03,
+        target.green + random.nextGaussian() * 0.03,
+        target.blue + random.nextGaussian() * 0.03),
+        irReading(colour.ordinal(), random), 400, 0));
+    }
+    colourModel = calibration.fit();
+  }
+
+  private static int irReading(int ordinal, Random random) {
+    return (int) Math.round(20 + 10 * ordinal + random.nextGaussian() * 3);
+  }
+
+  private ColorSample nextSensorSample() {
+    index = (index + 1) & (kSampleCount - 1);
+    return sensorSamples[index];
+  }
+
+  private Color nextSample() {
+    index = (index + 1) & (kSampleCount - 1);
+    return samples[index];
+  }
+
+  /**
+   * The old getColour(): ColorMatch then a chain of reference comparisons.
+   */
+  private Colour colorMatchColour(Color color) {
+    ColorMatchResult matching = colorMatch.matchClosestColor(color);
+    if (matching.color == Colour.BLUE.getTarget()) {
+      return Colour.BLUE;
+    } else if (matching.color == Colour.RED.getTarget()) {
+      return Colour.RED;
+    } else if (matching.color == Colour.GREEN.getTarget()) {
+      return Colour.GREEN;
+    } else if (matching.color == Colour.YELLOW.getTarget()) {
+      return Colour.YELLOW;
+    } else {
+      return Colour.BLUE;
+    }
+  }
+
+  @Benchmark
+  public Colour colorMatchSingle() {
+    return colorMatchColour(nextSample());
+  }
+
+  @Benchmark
+  public Colour colourMatcherSingle() {
+    return colourMatcher.match(nextSample());
+  }
+
+  @Benchmark
+  public Colour colourModelSingle() {
+    return colourModel.classify(nextSensorSample());
+  }
+
+  /**
+   * One loop before memoization: getColour() from Spinner and getColorString() twice,
+   * plus getConfidence(), each matching the same sample again.
+   */
+  @Benchmark
+  public void colorMatchPerLoop(Blackhole blackhole) {
+    Color color = nextSample();
+    blackhole.consume(colorMatchColour(color));
+    blackhole.consume(colorMatchColour(color));
+    blackhole.consume(colorMatchColour(color));
+    blackhole.consume(colorMatchColour(color));
+    blackhole.consume(colorMatch.matchClosestColor(color).confidence);
+  }
+
+  /**
+   * One loop with memoization: a single match, the rest read the cached result.
+   */
+  @Benchmark
+  public void colourMatcherPerLoop(Blackhole blackhole) {
+    blackhole.consume(colourMatcher.match(nextSample()));
+    blackhole.consume(colourMatcher.getConfidence());
+  }
+}
@@ -66,11 +66,36 @@ public final class Constants {
 	public static final double kTrackWidthMeters = Units.inchesToMeters(10);
 	public static final double kGearRatio = 7.29;
 	public static final double kDriveWheelRadiusMeters = Units.inchesToMeters(3.0);
+	public static final double kDriveMetersPerRotation = 2 * Math.PI * kDriveWheelRadiusMeters / kGearRatio;
 	public static final double kShooterWheelRadiusMeters = Units.inchesToMeters(3.0);
 	public static final double MaxSafeVelocityMeters = Units.feetToMeters(2);
 	public static final double MaxSafeAccelerationMeters = Units.feetToMeters(2);
+	public static final String trajectoryCacheFile = "trajectories.bin";
+	public static final int autoPathVersion = 1;
+	// Driving to the shooting position in front of the power port
+	public static final double shootingPositionDistance = Units.feetToMeters(10);
+	public static final double pathReplanError = 0.3; // m off the path before planning a new one
 	public static final double targetToCameraHeight = 5;
 	public static final double cameraAngle = 0;
+	public static final double limelightCaptureLatency = 11; // ms
+	public static final boolean limelightListenerMode = true;
+	public static final double limelightFrameSettleTime = 0.002; // s with no limelight entry changing before a frame is taken
+	// Limelight pipelines, picked by distance from getTargetDistanceRegression, in feet
+	public static final int limelightWidePipeline = 0;
+	public static final int limelightZoomPipeline = 1;
+	public static final double limelightZoomFactor = 2; // hardware zoom of the zoomed pipeline
+	public static final double pipelineZoomInDistance = 18;
+	public static final double pipelineZoomOutDistance = 15;
+	public static final int pipelineLostFrames = 5; // frames without a target before zooming back out
+	public static final double pipelineSwitchTimeout = 0.5; // s without a frame from the new pipeline before using the one it is on
+	public static final double limelightLatencyPublishPeriod = 1; // s between dashboard updates of the pipeline latencies
+	// Pose estimation
+	public static final int poseHistorySize = 50; // one second of loops
+	public static final double visionCorrectionGain = 0.2;
+	public static final double visionMaxCorrection = 1; // m
+	// Limelight position from the center of the robot, meters forward and to the left
+	public static final double cameraOffsetX = Units.inchesToMeters(12);
+	public static final double cameraOffsetY = 0;
 
 	public static final double shooterAngle = 57;
 	 
@@ -80,6 +105,12 @@ public final class Constants {
 	
 	public static final double shooterHeight = Units.inchesToMeters(18);
 
+	// Shooter map, distances in meters
+	public static final String shooterMapFile = "shooter_map.csv";
+	public static final double shooterMapMinDistance = 2.6;
+	public static final double shooterMapMaxDistance = 10;
+	public static final double shooterMapStep = 0.05;
+
 	// Color Value Bounds
 	public static final Color kBlueTarget = ColorMatch.makeColor(0.143, 0.427, 0.429);
 
@@ -110,6 +141,27 @@ public final class Constants {
 	public static final double colorSwitchSpeed = 0.2;
 	public static final double colorSpeed = 0.1;
 
+	// Color sensor sampling
+	public static final double colorSamplePeriod = 0.025;
+	public static final double colorSampleStaleTime = 0.1;
+	public static final int colorSampleBufferSize = 16;
+	// Rotation counting ignores reads worse than these
+	public static final double colorMinConfidence = 0.9;
+	public static final int colorMinProximity = 100; // raw, 0 to 2047
+	// Colour model calibrated on the robot, used instead of the targets above when it exists
+	public static final String colourModelFile = "colour_model.csv";
+	public static final int colorCalibrationSamples = 200; // per color, 5 s at colorSamplePeriod
+	public static final double colorUnknownDistance = 18.5; // squared standard deviations, 99.9% of readings with 4 channels
+	public static final double colorModelMinSpread = 0.005; // normalized color
+	public static final double colorModelMinIRSpread = 5; // raw IR
+	// Stopping the control panel on a color. Speeds are in segments per second
+	public static final int colorMotorDirection = 1; // output sign that turns colors past in Colour.nextIn order
+	public static final double colorPositionMaxSpeed = 12;
+	public static final double colorPositionDecel = 12; // segments per second squared
+	public static final double colorApproachSpeed = 1.5; // slow enough to stop inside the target segment
+	public static final double colorApproachDistance = 0.5; // segments covered at the approach speed
+	public static final double colorOutputPerSpeed = 1.0 / 24; // spinner output per segment per second
+
 	// Field Measurements
 	public static final double cameraHeight = Units.inchesToMeters(30);
 
@@ -120,7 +172,81 @@ public final class Constants {
 
 	public static final double shooterDistanceFromTargetMeters = 5;
 
+	// Power port position on the field, meters. The robot faces +x when it looks at it
+	public static final double targetFieldX = shooterDistanceFromTargetMeters;
+	public static final double targetFieldY = 0;
+
 	public static final double shooterRampUpTime = 2;
 	public static final double pluckerHoldTime = shooterRampUpTime;
 
+	// Shooter spin-up gate, in RPM
+	public static final double shooterReadyTolerance = 100;
+	public static final double shooterSagTolerance = 250;
+	public static final int shooterReadyLoops = 5;
+	public static final double shooterFilterTimeConstant = 0.04;
+	public static final double autoFeedTime = 2 + shooterRampUpTime;
+
+	// Ball tracking
+	public static final int autoPreloadedBalls = 3;
+	public static final double ballShotDipRPM = 400;
+	public static final double ballMinShotRPM = 1000;
+	public static final double ballBaselineTimeConstant = 0.2;
+	public static final double ballCurrentSpike = 5; // amps over the running current
+	public static final double ballInrushTime = 0.25;
+	public static final int ballRateShots = 5;
+
+	// Onboard shooter velocity control
+	public static final double shooterMaxAcceleration = 3000; // RPM per second
+	public static final double shooterMaxVolts = 12;
+	public static final boolean shooterUseKalmanFilter = true;
+	public static final double shooterModelStdDev = 30; // RPM per loop
+	public static final double shooterMeasurementStdDev = 40; // RPM
+
+	// Dashboard
+	public static final double dashboardPeriod = 0.1;
+	public static final int dashboardCapacity = 32;
+
+	// Loop profiling
+	public static final double kLoopPeriodSeconds = 0.02;
+	public static final long loopPeriodMicros = 20000;
+	public static final int profilerMaxSections = 48; // subsystems plus every named command
+	public static final double profilerPublishPeriod = 1;
+
+	// Data logging
+	public static final String logDirectory = "logs";
+	public static final int loggerCapacity = 16384;
+	public static final int loggerMaxSignals = 128;
+	public static final double loggerFlushPeriod = 0.1;
+	public static final long loggerMaxFileBytes = 32L * 1024 * 1024; // a new file is started past this
+	public static final long loggerMaxBytes = 256L * 1024 * 1024; // the oldest logs are deleted past this
+	public static final int loggerMaxFiles = 50;
+
+	// Event log
+	public static final int eventLogCapacity = 256;
+	public static final double eventRepeatPeriod = 1;
+	public static final double eventDrainPeriod = 0.05;
+
+	// Simulation
+	public static final double simStepSeconds = 0.001;
+	public static final double simBatteryVoltage = 12;
+	public static final double simRobotMassKg = 54; // About 120 lb with bumpers and battery
+	public static final double simRobotMOI = 6; // kg m^2
+	public static final double simShooterMOI = 0.004; // kg m^2
+	public static final double simBallSpeedLoss = 0.2; // fraction of wheel speed a ball takes
+	// Control panel turned by the spinner, in segments
+	public static final double simPanelMaxSpeed = 24; // segments per second at full output
+	public static final double simPanelTimeConstant = 0.1; // s
+	public static final double simPanelCoastDecel = 8; // segments per second squared with no output
+	public static final double simPanelStart = 0.3; // where the sensor starts, from the start of a red segment
+	public static final int simPanelProximity = 400;
+	// Power port position on the simulated field, meters
+	public static final double simTargetX = targetFieldX;
+	public static final double simTargetY = targetFieldY;
+	public static final double simVisionLatency = 20; // ms
+	public static final double simZoomVisionLatency = 25; // ms
+	public static final double simPipelineSwitchTime = 0.1; // s the limelight keeps sending the old pipeline
+
+	// Log file to play back on the desktop instead of simulating, e.g. "logs/log_12_1602999000000.bin"
+	public static final String replayLogFile = "";
+
 }
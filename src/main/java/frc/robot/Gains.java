@@ -13,21 +13,31 @@ package frc.robot;
 public class Gains {
 
 	// PID Constants
+	// Drive velocity loops, volts per m/s of error. WPILib's trajectory tutorial value
+	// until the drivetrain is characterized; much lower and the path follower lags the turns
 	public static class leftDrive {
-		public static double kP = 0.1;
+		public static double kP = 8.5;
 		public static double kI = 0;
 		public static double kD = 0;
 	}
 
 	public static class rightDrive {
-		public static double kP = 0.1;
+		public static double kP = 8.5;
 		public static double kI = 0;
 		public static double kD = 0;
 	}
 
+	// Volts, volts per RPM and volts per RPM per second. From the NEO's datasheet and
+	// simShooterMOI until the shooter is characterized
 	public static class shooterFeedforward {
 		public static double ks = 0;
-		public static double kv = 0;
+		public static double kv = 12.0 / 5676;
+		public static double ka = 0.0019;
+	}
+
+	// Onboard velocity loop, volts per RPM of error
+	public static class shooterProfile {
+		public static double kP = 0.02;
 	}
 
 	public static class shooterPID {
@@ -38,10 +48,11 @@ public class Gains {
 	}
 
 
+	// On the error from AimTarget's gyro heading, fresh every loop, so D can damp the turn
 	public static class angleCorrection {
-		public static double kP = 0.01;
+		public static double kP = 0.02;
 		public static double kI = 0;
-		public static double kD = 0;
+		public static double kD = 0.006;
 	}
 
 	// Ramsete controller constants
@@ -50,11 +61,12 @@ public class Gains {
 		public static final double kZeta = 0.7;
 	}
 
-	// Feed Forward Constants
+	// Volts, volts per m/s and volts per m/s^2. From the NEO's datasheet, kGearRatio and
+	// simRobotMassKg until the drivetrain is characterized
 	public static class driveFeedforward {
 		public static final double ks = 0;
-		public static final double kv = 0;
-		public static final double ka = 0;
+		public static final double kv = 1.93;
+		public static final double ka = 0.65;
 	}
 
 }
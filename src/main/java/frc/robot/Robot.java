@@ -11,6 +11,15 @@ import edu.wpi.first.cameraserver.CameraServer;
 import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.can.CANBudget;
+import frc.robot.sim.DriverInputs;
+import frc.robot.sim.IOMode;
+import frc.robot.sim.LogReplay;
+import frc.robot.sim.RobotClock;
+import frc.robot.telemetry.DataLogger;
+import frc.robot.telemetry.LoopProfiler;
+
+import static frc.robot.Constants.*;
 
 /**
  * The VM is configured to automatically run this class, and to call the functions corresponding to
@@ -22,6 +31,12 @@ public class Robot extends TimedRobot {
   private Command m_autonomousCommand;
   private RobotContainer m_robotContainer;
 
+  private final LoopProfiler profiler = LoopProfiler.getInstance();
+  private final LoopProfiler.Section schedulerProfile = profiler.section("Scheduler");
+
+  private final DataLogger logger = DataLogger.getInstance();
+  private final DriverInputs driverInputs = DriverInputs.getInstance();
+
   /**
    * This function is run when the robot is first started up and should be used for any
    * initialization code.
@@ -33,10 +48,68 @@ public class Robot extends TimedRobot {
     m_robotContainer = new RobotContainer();
     m_robotContainer.init();
 
+    // Every motor controller exists now, so slow their frames down in one go
+    CANBudget.getInstance().applyAll();
+
+    profiler.profileCommands(CommandScheduler.getInstance());
+    logger.logCommands(CommandScheduler.getInstance());
+    logger.start();
+
     CameraServer.getInstance().startAutomaticCapture("Inside View", 0);
     CameraServer.getInstance().startAutomaticCapture("Shooter View", 1);
   }
 
+  /**
+   * Replays run headless: each loop starts as soon as the last one ends rather than every
+   * kLoopPeriodSeconds, until the log runs out, so a replay goes as fast as the code
+   * allows. Replay time still moves one loop period per loop, and the loops go through 
+   * the recorded mode changes. Otherwise this is TimedRobot's loop.
+   */
+  @Override
+  public void startCompetition() {
+    if (IOMode.get() != IOMode.REPLAY) {
+      super.startCompetition();
+      return;
+    }
+
+    robotInit();
+
+    LogReplay replay = LogReplay.getInstance();
+    while (!replay.isFinished()) {
+      loopFunc();
+      // Replay moves one loop at a time, however long the loop really took
+      replay.advance(kLoopPeriodSeconds);
+
+      // Lets the log writer keep up, so the replay's own log has every record
+      while (logger.getBacklog() > loggerCapacity / 2) {
+        Thread.yield();
+      }
+    }
+
+    logger.stop();
+    System.out.println(String.format("Replay finished at %.2f s, %d log records dropped",
+      replay.getTime() - replay.getStartTime(), logger.getDroppedCount()));
+    // Returning from here would be reported as the robot code crashing
+    System.exit(0);
+  }
+
+  /**
+   * Starts every loop by setting its time and reading the drivers' inputs, before the 
+   * mode change and the mode's functions, so all of them see the same inputs. A replay
+   * puts the recorded mode into the simulated driver station for the mode change to see.
+   */
+  @Override
+  protected void loopFunc() {
+    logger.setTime(RobotClock.getTime());
+
+    driverInputs.update();
+    if (IOMode.get() == IOMode.REPLAY) {
+      driverInputs.putModeInSimulation();
+    }
+
+    super.loopFunc();
+  }
+
   /**
    * This function is called every robot packet, no matter the mode. Use this for items like
    * diagnostics that you want ran during disabled, autonomous, teleoperated and test.
@@ -46,12 +119,19 @@ public class Robot extends TimedRobot {
    */
   @Override
   public void robotPeriodic() {
+    profiler.startCycle();
+
     // Runs the Scheduler.  This is responsible for polling buttons, adding newly-scheduled
     // commands, running already-scheduled commands, removing finished or interrupted commands,
     // and running subsystem periodic() methods.  This must be called from the robot's periodic
     // block in order for anything in the Command-based framework to work.
+    schedulerProfile.start();
     CommandScheduler.getInstance().run();
+    schedulerProfile.stop();
+
     m_robotContainer.periodic();
+
+    profiler.endCycle();
   }
   /**
    * This function is called once each time the robot enters Disabled mode.
@@ -11,41 +11,56 @@ import edu.wpi.cscore.UsbCamera;
 import edu.wpi.cscore.VideoMode;
 import edu.wpi.cscore.VideoMode.PixelFormat;
 import edu.wpi.first.cameraserver.CameraServer;
-import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
 import edu.wpi.first.wpilibj.GenericHID;
 import edu.wpi.first.wpilibj.XboxController;
 import static edu.wpi.first.wpilibj.XboxController.Axis.*;
 import static edu.wpi.first.wpilibj.XboxController.Button.*;
-import edu.wpi.first.wpilibj.controller.RamseteController;
 import edu.wpi.first.wpilibj.geometry.Pose2d;
 import edu.wpi.first.wpilibj.geometry.Rotation2d;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj.trajectory.Trajectory;
 import edu.wpi.first.wpilibj.trajectory.TrajectoryConfig;
 import edu.wpi.first.wpilibj.trajectory.TrajectoryGenerator;
+import frc.robot.shooter.BallTracker;
 import frc.robot.shooter.ChangePosition;
 import frc.robot.shooter.Conveyor;
+import frc.robot.shooter.FeedWhenReady;
 import frc.robot.shooter.Plucker;
 import frc.robot.vision.AimTarget;
 import frc.robot.vision.Limelight;
+import frc.robot.wheel.CalibrateColour;
 import frc.robot.wheel.SenseColor;
+import frc.robot.wheel.SenseColor.Colour;
 import frc.robot.wheel.Spinner;
 import frc.robot.climber.Lift;
+import frc.robot.drive.FollowPathCommand;
 import frc.robot.drive.Gears;
+import frc.robot.drive.ReplanningRamseteCommand;
 import frc.robot.drive.RevDrivetrain;
+import frc.robot.drive.TrajectoryCache;
+import frc.robot.drive.TrajectoryService;
+import frc.robot.drive.VisionLocalizer;
 import frc.robot.shooter.Shooter;
+import frc.robot.sim.DriverController;
+import frc.robot.sim.DriverInputs;
+import frc.robot.telemetry.DataLogger;
+import frc.robot.telemetry.LoopProfiler;
 import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandBase;
 import edu.wpi.first.wpilibj2.command.ConditionalCommand;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.ParallelCommandGroup;
-import edu.wpi.first.wpilibj2.command.RamseteCommand;
 import edu.wpi.first.wpilibj2.command.RunCommand;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
 import edu.wpi.first.wpilibj2.command.WaitCommand;
+import edu.wpi.first.wpilibj2.command.WaitUntilCommand;
 import edu.wpi.first.wpilibj2.command.button.JoystickButton;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 import static frc.robot.Constants.*;
-import static frc.robot.Gains.Ramsete.*;
 
 /**
  * This class is where the bulk of the robot should be declared.  Since Command-based is a
@@ -55,13 +70,16 @@ import static frc.robot.Gains.Ramsete.*;
  */
 public class RobotContainer {
   // Drive Controller
-  private XboxController xbox = new XboxController(kXboxPort);
+  private XboxController xbox = new DriverController(kXboxPort);
 
   // Drive Subsystem
   private final RevDrivetrain rDrive = new RevDrivetrain();
 
   // Limelight Subsystem
-  private final Limelight limelight = new Limelight();
+  private final Limelight limelight = new Limelight(rDrive::getPose);
+
+  // Pose corrections from the limelight, after both have updated
+  private final VisionLocalizer localizer = new VisionLocalizer(rDrive, limelight);
 
   private final SenseColor colorSense = new SenseColor();
 
@@ -79,66 +97,67 @@ public class RobotContainer {
 
   private final Gears gears = new Gears();
 
+  // Counts balls from conveyor current and shooter RPM, after both have updated
+  private final BallTracker ballTracker = new BallTracker(shooter, conveyor, goalMover);
+
   // Update PID values
   private final Update update = new Update(colorSense, shooter, spinner, plucker);
 
+  private final LoopProfiler profiler = LoopProfiler.getInstance();
+  private final LoopProfiler.Section updateProfile = profiler.section("Update");
+
   //  --- Default Commands ---
 
   // Drive with Controller 
-  private Command manualDrive = new RunCommand(
+  private Command manualDrive = named("Manual Drive", new RunCommand(
     () -> rDrive.getDifferentialDrive().tankDrive(
       drivePercentLimit * xbox.getRawAxis(kLeftY.value), 
       drivePercentLimit * xbox.getRawAxis(kRightY.value),
       false
       ),
     rDrive
-  );
+  ));
 
   private Command moveArmOneAxis = new RunCommand(
     () -> lift.moveOneAxis(xbox.getRawAxis(kLeftTrigger.value)), lift);
   
-  private Command moveArm = new RunCommand(
-    () -> lift.move(xbox.getRawAxis(kRightTrigger.value) - xbox.getRawAxis(kLeftTrigger.value)), lift);
+  private Command moveArm = named("Move Arm", new RunCommand(
+    () -> lift.move(xbox.getRawAxis(kRightTrigger.value) - xbox.getRawAxis(kLeftTrigger.value)), lift));
   
   private Command moveSpinner = new RunCommand(() -> 
     spinner.move(xbox.getRawAxis(kRightTrigger.value)), spinner);
 
   // --- Command Groups ---
 
-  private SequentialCommandGroup waitAndFeed = new SequentialCommandGroup(
-    // When in collecting pose, the time delay is not needed, so it is interrupted 
-    new WaitCommand(shooterRampUpTime).withInterrupt(goalMover::isCollectingPose),
-    new InstantCommand(() -> plucker.setSpeed(), plucker), 
-    new InstantCommand(() -> conveyor.setSpeed(), conveyor));
+  // Feeds once the wheel is at speed, pausing whenever it sags
+  private FeedWhenReady waitAndFeed = named("Wait And Feed",
+    new FeedWhenReady(shooter, plucker, conveyor, goalMover));
 
-  private ParallelCommandGroup stopFeeders = new ParallelCommandGroup(
+  private ParallelCommandGroup stopFeeders = named("Stop Feeders", new ParallelCommandGroup(
     new InstantCommand(() -> plucker.stop(), plucker),
-    new InstantCommand(() -> conveyor.stop(), conveyor));
-
-  // Autonomous 
-  private SequentialCommandGroup shootThenGo = new SequentialCommandGroup(
-    new InstantCommand(() -> goalMover.collectPose(), goalMover),
-    new WaitCommand(.75),
-    new InstantCommand(() -> goalMover.shootPose(), goalMover),
-    new InstantCommand(() -> shooter.setSpeedSpark(), shooter),
-    waitAndFeed,
-    new WaitCommand(2 + shooterRampUpTime),
-    stopFeeders,
-    new InstantCommand(() -> shooter.stop(), shooter),
+    new InstantCommand(() -> conveyor.stop(), conveyor)));
+
+  // Autonomous, for when no starting position is chosen: shoot then drive blind off the line
+  private SequentialCommandGroup shootThenGo = named("Shoot Then Go", new SequentialCommandGroup(
+    shootPreloaded(),
     new RunCommand(() -> rDrive.getDifferentialDrive().tankDrive(0.4, 0.4), rDrive).withTimeout(2)
-  );
-
-  private RamseteCommand rBase = new RamseteCommand(
-    getMovingTrajectory(), 
-    rDrive::getPose, 
-    new RamseteController(kBeta, kZeta), 
-    rDrive.getFeedforward(), 
-    rDrive.getKinematics(), 
-    rDrive::getSpeeds, 
-    rDrive.getLeftDrivePID(), 
-    rDrive.getRightDrivePID(), 
-    rDrive::setOutputVolts, 
-    rDrive);
+  ));
+
+  // Autonomous with a path, by starting position, built the first time each one is used
+  private final Map<String, Command> shootThenFollowPath = new HashMap<>();
+
+  // One path per starting position, generated or loaded in the background at startup.
+  // Saved in the operating directory, /home/lvuser on the robot, which deploys leave alone
+  private final TrajectoryCache trajectories = new TrajectoryCache(
+    Filesystem.getOperatingDirectory().toPath().resolve(trajectoryCacheFile),
+    Update.getStartingPositions(),
+    RobotContainer::getMovingTrajectory,
+    MaxSafeVelocityMeters, MaxSafeAccelerationMeters, autoPathVersion);
+
+  // Plans from wherever the robot is when the button is pressed
+  private final Command driveToShootingPosition = named("Drive To Shooting Position",
+    new ReplanningRamseteCommand(rDrive, pose -> TrajectoryService.getInstance().generate(
+      pose, getShootingPose(), new TrajectoryConfig(MaxSafeVelocityMeters, MaxSafeAccelerationMeters))));
 
   /**
    * The container for the robot.  Contains subsystems, OI devices, and commands.
@@ -147,11 +166,25 @@ public class RobotContainer {
     // Configure the button bindings
     configureButtonBindings();
 
+    trajectories.start();
+
     rDrive.setDefaultCommand(manualDrive);
     lift.setDefaultCommand(moveArm);
     //spinner.setDefaultCommand(moveSpinner);
   }
 
+  /**
+   * Names a command and gives it a section in the loop profiler and a signal in the log.
+   * Every command that gets scheduled goes through here, so each one shows up under its
+   * own name.
+   */
+  private <T extends CommandBase> T named(String name, T command) {
+    command.setName(name);
+    profiler.addCommand(command);
+    DataLogger.getInstance().addCommand(command);
+    return command;
+  }
+
   /**
    * Use this method to define your button->command mappings.  Buttons can be created by
    * instantiating a {@link GenericHID} or one of its subclasses ({@link
@@ -162,42 +195,61 @@ public class RobotContainer {
     
     // Switch position between shooting and intake
     new JoystickButton(xbox, kA.value)
-    .whenPressed(new InstantCommand(() -> goalMover.swapHeight(), goalMover));
+    .whenPressed(named("Swap Height", new InstantCommand(() -> goalMover.swapHeight(), goalMover)));
 
     // Shoot or intake with voltage, aiming for low goal
     new JoystickButton(xbox, kBumperLeft.value)
-    .whenPressed(new InstantCommand(() -> shooter.toggleSpeedVolts(), shooter))
-    .whenPressed(new InstantCommand(() -> conveyor.toggleSpeed(), shooter))
-    .whenPressed(new InstantCommand(() -> plucker.toggleSpeed(), plucker));
+    .whenPressed(named("Toggle Shooter Volts", new InstantCommand(() -> shooter.toggleSpeedVolts(), shooter)))
+    .whenPressed(named("Toggle Conveyor", new InstantCommand(() -> conveyor.toggleSpeed(), shooter)))
+    .whenPressed(named("Toggle Plucker", new InstantCommand(() -> plucker.toggleSpeed(), plucker)));
     
     // Shoot or intake with set velocity, specifically for high goal
     new JoystickButton(xbox, kB.value)
-    .whenPressed(new InstantCommand(() -> plucker.toggleSpeed(), plucker));
+    .whenPressed(named("Toggle Plucker Alone", new InstantCommand(() -> plucker.toggleSpeed(), plucker)));
     
     // Toggles high shooting
     new JoystickButton(xbox, kY.value)
-    .whenPressed(new InstantCommand(() -> shooter.toggleSpeedSpark()))
-    .whenPressed(new ConditionalCommand(waitAndFeed, stopFeeders, shooter::isEngaged));
+    .whenPressed(named("Toggle Shooter Spark", new InstantCommand(() -> shooter.toggleSpeedSpark())))
+    .whenPressed(named("Feed Or Stop", new ConditionalCommand(waitAndFeed, stopFeeders, shooter::isEngaged)));
 
     // Vision correction
     new JoystickButton(xbox, Button.kX.value)
-    .whileHeld(new AimTarget(limelight, rDrive));
+    .whileHeld(named("AimTarget", new AimTarget(limelight, rDrive)));
 
     // Spins to selected color
     new JoystickButton(xbox, kStart.value)
-    .whileHeld(() -> spinner.toSelectedColor
-      (DriverStation.getInstance().getGameSpecificMessage()), spinner);
+    .whileHeld(named("To Selected Color", new RunCommand(() -> spinner.toSelectedColor
+      (DriverInputs.getInstance().getGameSpecificMessage()), spinner)))
+    .whenReleased(named("Stop Spinner", new InstantCommand(() -> spinner.move(0), spinner)));
 
     // Spin number of rotations
     new JoystickButton(xbox, kBack.value)
-    .whenPressed(new InstantCommand(() -> spinner.setCountColor(), spinner))
-    .whileHeld(new RunCommand(() -> spinner.toSelectedColorSwitches(), spinner))
-    .whenReleased(new InstantCommand(() -> spinner.changeMaxSwitches(4), spinner))
-    .whenReleased(new InstantCommand(() -> spinner.move(0), spinner));
+    .whenPressed(named("Set Count Color", new InstantCommand(() -> spinner.setCountColor(), spinner)))
+    .whileHeld(named("Color Switches",
+      new RunCommand(() -> spinner.toSelectedColorSwitches(), spinner)))
+    .whenReleased(named("Reset Switches", new InstantCommand(() -> spinner.changeMaxSwitches(4), spinner)))
+    .whenReleased(named("Stop Spinner After Switches", new InstantCommand(() -> spinner.move(0), spinner)));
+
+    // Drive to the shooting position
+    new JoystickButton(xbox, kStickRight.value)
+    .whileHeld(driveToShootingPosition);
 
     // Switch Gears
     new JoystickButton(xbox, kBumperRight.value)
-    .whenPressed(() -> gears.switchGears(), gears);
+    .whenPressed(named("Switch Gears", new InstantCommand(() -> gears.switchGears(), gears)));
+
+    // Color sensor calibration from the dashboard, one color at a time then save
+    for (Colour colour : Colour.values()) {
+      SmartDashboard.putData("Calibrate " + colour,
+        named("Calibrate " + colour, new CalibrateColour(colorSense, colour)));
+    }
+    SmartDashboard.putData("Save Colour Model", named("Save Colour Model",
+      new InstantCommand(() -> colorSense.saveCalibration()) {
+        @Override
+        public boolean runsWhenDisabled() {
+          return true;
+        }
+      }));
     
   }
 
@@ -212,12 +264,42 @@ public class RobotContainer {
   } 
 
   public void periodic() {
+    updateProfile.start();
     update.periodic();
+    updateProfile.stop();
   }
 
-  private Trajectory getMovingTrajectory() {
+  /**
+   * Shoots the preloaded balls, stopping once the last one has gone
+   */
+  private SequentialCommandGroup shootPreloaded() {
+    return new SequentialCommandGroup(
+      new InstantCommand(() -> ballTracker.setBallCount(autoPreloadedBalls)),
+      new InstantCommand(() -> goalMover.collectPose(), goalMover),
+      new WaitCommand(.75),
+      new InstantCommand(() -> goalMover.shootPose(), goalMover),
+      new InstantCommand(() -> shooter.setSpeedSpark(), shooter),
+      new WaitUntilCommand(shooter::isReadyToFire).withTimeout(shooterRampUpTime),
+      // Stops as soon as the last ball has gone, with the timeout in case one is missed
+      new FeedWhenReady(shooter, plucker, conveyor, goalMover)
+        .withInterrupt(ballTracker::isEmpty).withTimeout(autoFeedTime),
+      new InstantCommand(() -> shooter.stop(), shooter));
+  }
+
+  /**
+   * Follows the path for a starting position
+   */
+  private Command getPathCommand(Pose2d startingPose) {
+    return new FollowPathCommand(rDrive, trajectories.get(startingPose));
+  }
+
+  /**
+   * Generates the autonomous path. Bump autoPathVersion when changing it, so the saved
+   * trajectories are regenerated.
+   */
+  static Trajectory getMovingTrajectory(Pose2d startingPose) {
     Trajectory trajectory = TrajectoryGenerator.generateTrajectory(
-      Arrays.asList(Update.getStartingPose(), new Pose2d(1.0, 0, new Rotation2d()),
+      Arrays.asList(startingPose, new Pose2d(1.0, 0, new Rotation2d()),
         new Pose2d(2.3, 1.2, Rotation2d.fromDegrees(90.0))), 
       new TrajectoryConfig(MaxSafeVelocityMeters, MaxSafeAccelerationMeters)
     );
@@ -225,12 +307,35 @@ public class RobotContainer {
     return trajectory;
   }
 
+  /**
+   * Where to shoot from: shootingPositionDistance straight out from the power port,
+   * facing it
+   */
+  static Pose2d getShootingPose() {
+    return new Pose2d(targetFieldX - shootingPositionDistance, targetFieldY, new Rotation2d());
+  }
+
   /**
    * Use this to pass the autonomous command to the main {@link Robot} class.
    *
    * @return the command to run in autonomous
    */
   public Command getAutonomousCommand() {
+    Pose2d startingPose = Update.getStartingPose();
+    if (startingPose == null) {
+      return shootThenGo;
+    }
+
+    for (Map.Entry<String, Pose2d> position : Update.getStartingPositions().entrySet()) {
+      if (position.getValue().equals(startingPose)) {
+        // Built here rather than at boot, so it uses the position picked before the match
+        return shootThenFollowPath.computeIfAbsent(position.getKey(), name ->
+          named("Shoot Then " + name + " Path", new SequentialCommandGroup(
+            new InstantCommand(() -> rDrive.resetPose(startingPose), rDrive),
+            shootPreloaded(),
+            getPathCommand(startingPose))));
+      }
+    }
     return shootThenGo;
   }
 }
@@ -7,6 +7,10 @@
 
 package frc.robot;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import edu.wpi.first.wpilibj.geometry.Pose2d;
 import edu.wpi.first.wpilibj.geometry.Rotation2d;
 import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
@@ -14,6 +18,8 @@ import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import frc.robot.shooter.Plucker;
 import frc.robot.shooter.Shooter;
+import frc.robot.sim.RobotClock;
+import frc.robot.telemetry.DashboardPublisher;
 import frc.robot.wheel.SenseColor;
 import frc.robot.wheel.Spinner;
 
@@ -29,95 +35,125 @@ public class Update {
   private Spinner m_spinner;
   private Plucker m_plucker;
 
-  // Starting positions
-  private final Pose2d left = new Pose2d(-1, 0, Rotation2d.fromDegrees(0));
-  private final Pose2d center = new Pose2d(0, 0, Rotation2d.fromDegrees(0));
-  private final Pose2d right = new Pose2d(1, 0, Rotation2d.fromDegrees(0));
+  // Starting positions, the first is the default
+  private static final Map<String, Pose2d> startingPositions = new LinkedHashMap<>();
+  static {
+    startingPositions.put("Center", new Pose2d(0, 0, Rotation2d.fromDegrees(0)));
+    startingPositions.put("Left", new Pose2d(-1, 0, Rotation2d.fromDegrees(0)));
+    startingPositions.put("Right", new Pose2d(1, 0, Rotation2d.fromDegrees(0)));
+  }
 
   private static final SendableChooser choosePosition = new SendableChooser<Pose2d>();
 
+  // How the shooter holds its RPM
+  private final SendableChooser<Shooter.ControlMode> chooseShooterMode = new SendableChooser<>();
+
+  // Only changed values are sent, at most once per dashboardPeriod
+  private final DashboardPublisher dashboard = new DashboardPublisher(dashboardCapacity);
+
+  private final int angleP = dashboard.addNumber("P value(angle)", 0, 0);
+  private final int angleI = dashboard.addNumber("I value(angle)", 0, 0);
+  private final int angleD = dashboard.addNumber("D value(angle)", 0, 0);
+
+  private final int rawColorValue = dashboard.addNumber("Raw Color Value", 1, dashboardPeriod);
+  private final int proximity = dashboard.addNumber("Proximity", 1, dashboardPeriod);
+  private final int detectedColor = dashboard.addString("Detected Color", dashboardPeriod);
+  private final int shooterVelocity = dashboard.addNumber("Shooter RPM", 10, dashboardPeriod);
+  private final int pluckerEngaged = dashboard.addBoolean("Plucker Engaged", dashboardPeriod);
+  private final int colorFRC = dashboard.addString("colorFRC", dashboardPeriod);
+  private final int confidence = dashboard.addNumber("confidence", 0.01, dashboardPeriod);
+  private final int red = dashboard.addNumber("red", 0.005, dashboardPeriod);
+  private final int green = dashboard.addNumber("green", 0.005, dashboardPeriod);
+  private final int blue = dashboard.addNumber("blue", 0.005, dashboardPeriod);
+  private final int rotations = dashboard.addNumber("rotations", 0, 0);
+  private final int colorKey = dashboard.addString("colorkey", dashboardPeriod);
+
   public Update(SenseColor colorSensing, Shooter shooter, Spinner spinner, Plucker plucker) {
     m_shooter = shooter;
     colorSense = colorSensing;
     m_spinner = spinner;
     m_plucker = plucker;
 
-    choosePosition.setDefaultOption("Center", center);
-    choosePosition.addOption("Left", left);
-    choosePosition.addOption("Right", right);
+    boolean first = true;
+    for (Map.Entry<String, Pose2d> position : startingPositions.entrySet()) {
+      if (first) {
+        choosePosition.setDefaultOption(position.getKey(), position.getValue());
+        first = false;
+      } else {
+        choosePosition.addOption(position.getKey(), position.getValue());
+      }
+    }
     SmartDashboard.putData("Starting Position", choosePosition);
 
+    chooseShooterMode.setDefaultOption("Onboard Profile", Shooter.ControlMode.PROFILED);
+    chooseShooterMode.addOption("Spark PID", Shooter.ControlMode.SPARK_PID);
+    SmartDashboard.putData("Shooter Control", chooseShooterMode);
+
     // Display PID values (angle)
-    SmartDashboard.putNumber("P value(angle)", angleCorrection.kP);
-    SmartDashboard.putNumber("I value(angle)", angleCorrection.kI);
-    SmartDashboard.putNumber("D value(angle)", angleCorrection.kD);
-   
-    // Put up color sense data
-    SmartDashboard.putNumber("Raw Color Value", colorSense.getRawColor());
-    SmartDashboard.putNumber("Proximity", colorSense.getProximity());
-    SmartDashboard.putString("Detected Color", colorSense.getColorString());
-
-    // Display left and right shooter velocities
-    SmartDashboard.putNumber("Shooter RPM", m_shooter.getVelocity());
+    dashboard.setNumber(angleP, angleCorrection.kP);
+    dashboard.setNumber(angleI, angleCorrection.kI);
+    dashboard.setNumber(angleD, angleCorrection.kD);
 
-    // Displays whether plucker is engaged
-    SmartDashboard.putBoolean("Plucker Engaged", m_plucker.getEngaged());
-
-    // Display color related value
-    SmartDashboard.putString("colorFRC", colorSense.getColorString());
-    SmartDashboard.putNumber("confidence", colorSense.getConfidence());
-    SmartDashboard.putNumber("Red", colorSense.detectedColor.red);
-    SmartDashboard.putNumber("green", colorSense.detectedColor.green);
-    SmartDashboard.putNumber("blue", colorSense.detectedColor.blue);
-    SmartDashboard.putNumber("rotations",m_spinner.getColorSwitches());
-    SmartDashboard.putString("colorkey", m_spinner.getCountColor().toString());
+    dashboard.setNumber(rotations, m_spinner.getColorSwitches());
+
+    publish();
   }
   
 
+  /**
+   * Every starting position the driver can choose, by name
+   */
+  public static Map<String, Pose2d> getStartingPositions() {
+    return Collections.unmodifiableMap(startingPositions);
+  }
+
   public static Pose2d getStartingPose() {
     final Pose2d position = (Pose2d) choosePosition.getSelected();
     return position;
   }
 
   public void periodic() {
-    // Update left and right shooter velocities
-    SmartDashboard.putNumber("Shooter RPM", m_shooter.getVelocity());
+    // Change PID values for angle correction
+    angleCorrection.kP = dashboard.getNumber(angleP, angleCorrection.kP);
+    angleCorrection.kI = dashboard.getNumber(angleI, angleCorrection.kI);
+    angleCorrection.kD = dashboard.getNumber(angleD, angleCorrection.kD);
+
+    Shooter.ControlMode shooterMode = chooseShooterMode.getSelected();
+    if (shooterMode != null) {
+      m_shooter.setVelocityMode(shooterMode);
+    }
+
+    // Change values for rotations, only if someone other than us edited the value
+    double requestedRotations = dashboard.getNumber(rotations, m_spinner.getColorSwitches());
+    if (requestedRotations != dashboard.getLastNumber(rotations)) {
+      m_spinner.changeMaxSwitches(requestedRotations);
+    }
+
+    publish();
+  }
+
+  private void publish() {
+    dashboard.setTime(RobotClock.getTime());
+
+    // Update shooter velocity
+    dashboard.setNumber(shooterVelocity, m_shooter.getVelocity());
 
     // Displays whether plucker is engaged
-    SmartDashboard.putBoolean("Plucker Engaged", m_plucker.getEngaged());
+    dashboard.setBoolean(pluckerEngaged, m_plucker.getEngaged());
 
     // Update color sense data
-    SmartDashboard.putNumber("Raw Color Value", colorSense.getRawColor());
-    SmartDashboard.putNumber("Proximity", colorSense.getProximity());
-    SmartDashboard.putString("Detected Color", colorSense.getColorString());
+    String color = colorSense.getColorString();
+    dashboard.setNumber(rawColorValue, colorSense.getRawColor());
+    dashboard.setNumber(proximity, colorSense.getProximity());
+    dashboard.setString(detectedColor, color);
 
     // Update frc color sensing
-    SmartDashboard.putString("colorFRC", colorSense.getColorString());
-    SmartDashboard.putNumber("confidence", colorSense.getConfidence());
-    SmartDashboard.putNumber("red", colorSense.detectedColor.red);
-    SmartDashboard.putNumber("green", colorSense.detectedColor.green);
-    SmartDashboard.putNumber("blue", colorSense.detectedColor.blue);
-    SmartDashboard.putNumber("rotations", m_spinner.getColorSwitches());
-    SmartDashboard.putString("colorkey", m_spinner.getCountColor().toString());
-    
-    // Change PID values for angle correction
-    if (angleCorrection.kP != SmartDashboard.getNumber("P value(angle)", angleCorrection.kP))  {
-      angleCorrection.kP = SmartDashboard.getNumber("P value(angle)", angleCorrection.kP);
-    }
-
-    if (angleCorrection.kI != SmartDashboard.getNumber("I value(angle)", angleCorrection.kI))  {
-      angleCorrection.kI = SmartDashboard.getNumber("I value(angle)", angleCorrection.kI);
-    }
-
-    if (angleCorrection.kD != SmartDashboard.getNumber("D value(angle)", angleCorrection.kD))  {
-      angleCorrection.kD = SmartDashboard.getNumber("D value(angle)", angleCorrection.kD);
-    }
-    
-    // Change values for rotations
-    
-    if (m_spinner.getColorSwitches() != SmartDashboard.getNumber("rotations", m_spinner.getColorSwitches()))  {
-      m_spinner.changeMaxSwitches(SmartDashboard.getNumber("rotations", m_spinner.getColorSwitches()));
-    }
-    
+    dashboard.setString(colorFRC, color);
+    dashboard.setNumber(confidence, colorSense.getConfidence());
+    dashboard.setNumber(red, colorSense.detectedColor.red);
+    dashboard.setNumber(green, colorSense.detectedColor.green);
+    dashboard.setNumber(blue, colorSense.detectedColor.blue);
+    dashboard.setNumber(rotations, m_spinner.getColorSwitches());
+    dashboard.setString(colorKey, m_spinner.getCountColor().name());
   }
 }
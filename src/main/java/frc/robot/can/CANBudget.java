@@ -0,0 +1,114 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.can;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import frc.robot.telemetry.EventLog;
+
+/**
+ * Keeps track of every motor controller on the CAN bus and how much of the bus they use.
+ * Each device is registered with a role when it is created, and {@link #applyAll()} sets
+ * all of their frame periods at once during init. Off the robot, the IO stand-ins register
+ * {@link SimCANDevice}s, so the budget can be checked on the desktop.
+ *
+ * <p>Utilization is an estimate from the frame periods. The driver station shows the
+ * measured value.
+ */
+public final class CANBudget {
+  private static CANBudget instance;
+
+  // 1 Mbit/s bus. An extended frame with 8 data bytes is 131 bits, plus bit stuffing
+  private static final double kBitsPerSecond = 1e6;
+  private static final double kBitsPerFrame = 150;
+
+  private final List<CANDevice> devices = new ArrayList<>();
+  private boolean applied = false;
+
+  /**
+   * An empty registry. Package-private for tests; the robot uses {@link #getInstance}.
+   */
+  CANBudget() {
+  }
+
+  public static synchronized CANBudget getInstance() {
+    if (instance == null) {
+      instance = new CANBudget();
+    }
+    return instance;
+  }
+
+  /**
+   * Adds a device. Once {@link #applyAll()} has run, later devices are applied straight
+   * away.
+   * @return the device
+   */
+  public synchronized <T extends CANDevice> T register(T device) {
+    devices.add(device);
+    if (applied) {
+      apply(device);
+    }
+    return device;
+  }
+
+  /**
+   * Sends every device its frame periods, warning about any that didn't take them
+   * @return number of devices that failed
+   */
+  public synchronized int applyAll() {
+    int failed = 0;
+    for (CANDevice device : devices) {
+      if (!apply(device)) {
+        failed++;
+      }
+    }
+    applied = true;
+
+    // Only happens once, at init, so the message is made with its numbers in it
+    EventLog.getInstance().event(String.format("CAN bus: %d devices, %.0f%% estimated use (%.0f%% at factory periods)",
+      devices.size(), 100 * getEstimatedUtilization(), 100 * getDefaultUtilization()), 0).post();
+    return failed;
+  }
+
+  private boolean apply(CANDevice device) {
+    boolean ok = device.apply();
+    if (!ok) {
+      DriverStation.reportWarning("Could not set CAN frame periods on " + device.getName(), false);
+    }
+    return ok;
+  }
+
+  /**
+   * Fraction of the bus the registered devices use with their roles' periods
+   */
+  public synchronized double getEstimatedUtilization() {
+    double frameRate = 0;
+    for (CANDevice device : devices) {
+      frameRate += device.getFrameRate();
+    }
+    return frameRate * kBitsPerFrame / kBitsPerSecond;
+  }
+
+  /**
+   * Fraction of the bus the registered devices would use at factory periods
+   */
+  public synchronized double getDefaultUtilization() {
+    double frameRate = 0;
+    for (CANDevice device : devices) {
+      frameRate += CANDevice.getFrameRate(device.getType(), CANRole.DEFAULT);
+    }
+    return frameRate * kBitsPerFrame / kBitsPerSecond;
+  }
+
+  public synchronized List<CANDevice> getDevices() {
+    return Collections.unmodifiableList(new ArrayList<>(devices));
+  }
+}
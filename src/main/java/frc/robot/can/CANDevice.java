@@ -0,0 +1,95 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.can;
+
+/**
+ * A motor controller on the CAN bus, with the periodic frames it sends for its role
+ */
+public abstract class CANDevice {
+  // Talons can't go slower than this
+  private static final int kMaxTalonPeriod = 255;
+
+  /**
+   * Which frames the device has, and how they map to a role's periods
+   */
+  public enum Type {
+    /**
+     * Status 0 general, 1 velocity, 2 position
+     */
+    SPARK_MAX,
+    /**
+     * Status 1 general, 2 feedback with velocity and position, then the quadrature, 
+     * analog, pulse width, targets, PID 0 and PID 1 frames
+     */
+    TALON_SRX
+  }
+
+  private final String name;
+  private final Type type;
+  private final CANRole role;
+
+  protected CANDevice(String name, Type type, CANRole role) {
+    this.name = name;
+    this.type = type;
+    this.role = role;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public CANRole getRole() {
+    return role;
+  }
+
+  /**
+   * Period of each status frame for the device's role, in the order given by its type
+   */
+  public int[] getStatusPeriods() {
+    return getStatusPeriods(type, role);
+  }
+
+  /**
+   * Frames per second to and from the device
+   */
+  public double getFrameRate() {
+    return getFrameRate(type, role);
+  }
+
+  static int[] getStatusPeriods(Type type, CANRole role) {
+    if (type == Type.SPARK_MAX) {
+      return new int[] { role.generalPeriod, role.velocityPeriod, role.positionPeriod };
+    }
+
+    int general = Math.min(role.generalPeriod, kMaxTalonPeriod);
+    int feedback = Math.min(Math.min(role.velocityPeriod, role.positionPeriod), kMaxTalonPeriod);
+    int slow = Math.min(role.slowPeriod, kMaxTalonPeriod);
+    return new int[] { general, feedback, slow, slow, slow, slow, slow, slow };
+  }
+
+  static double getFrameRate(Type type, CANRole role) {
+    double rate = 0;
+    for (int period : getStatusPeriods(type, role)) {
+      rate += 1000.0 / period;
+    }
+    if (role.controlPeriod > 0) {
+      rate += 1000.0 / role.controlPeriod;
+    }
+    return rate;
+  }
+
+  /**
+   * Sends the frame periods to the device
+   * @return false if any setting wasn't acknowledged
+   */
+  public abstract boolean apply();
+}
@@ -0,0 +1,66 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.can;
+
+/**
+ * How a motor controller is used, which decides how often it needs to report. Periods
+ * are in milliseconds; 0 means the frame isn't sent at all.
+ */
+public enum CANRole {
+  /**
+   * Factory settings, for devices left alone
+   */
+  DEFAULT(10, 20, 20, 160, 10),
+  /**
+   * Drives followers and feeds odometry: full rate output, velocity and position.
+   * Spark Max followers copy the leader's general frame, so it stays at 10 ms.
+   */
+  LEADER(10, 20, 20, 255, 20),
+  /**
+   * Copies a leader. Only faults are worth hearing about.
+   */
+  FOLLOWER(100, 500, 500, 255, 0),
+  /**
+   * Set each loop with nothing read back
+   */
+  OPEN_LOOP(100, 500, 500, 255, 20),
+  /**
+   * Set each loop open loop, with its current watched
+   */
+  MONITORED(100, 20, 500, 255, 20),
+  /**
+   * Runs its own velocity loop that the robot watches, but doesn't use position
+   */
+  CLOSED_LOOP(100, 20, 500, 255, 20);
+
+  /**
+   * Applied output and faults
+   */
+  public final int generalPeriod;
+  /**
+   * Velocity and current. On a Talon they share the feedback frame with position.
+   */
+  public final int velocityPeriod;
+  public final int positionPeriod;
+  /**
+   * Everything else a Talon sends: analog, pulse width, motion magic and PID status
+   */
+  public final int slowPeriod;
+  /**
+   * How often the roboRIO sends the device its setpoint
+   */
+  public final int controlPeriod;
+
+  CANRole(int generalPeriod, int velocityPeriod, int positionPeriod, int slowPeriod, int controlPeriod) {
+    this.generalPeriod = generalPeriod;
+    this.velocityPeriod = velocityPeriod;
+    this.positionPeriod = positionPeriod;
+    this.slowPeriod = slowPeriod;
+    this.controlPeriod = controlPeriod;
+  }
+}
@@ -0,0 +1,32 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.can;
+
+/**
+ * Stands in for a motor controller off the robot, remembering what it was sent
+ */
+public class SimCANDevice extends CANDevice {
+  private int[] appliedPeriods = null;
+
+  public SimCANDevice(String name, Type type, CANRole role) {
+    super(name, type, role);
+  }
+
+  @Override
+  public boolean apply() {
+    appliedPeriods = getStatusPeriods();
+    return true;
+  }
+
+  /**
+   * Status frame periods from the last {@link #apply()}, null before it
+   */
+  public int[] getAppliedPeriods() {
+    return appliedPeriods;
+  }
+}
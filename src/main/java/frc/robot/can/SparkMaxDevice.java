@@ -0,0 +1,39 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.can;
+
+import com.revrobotics.CANError;
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.CANSparkMaxLowLevel.PeriodicFrame;
+
+/**
+ * A Spark Max. Its setpoint goes out whenever it is set, so the control period is only
+ * used for the estimate.
+ */
+public class SparkMaxDevice extends CANDevice {
+  private static final PeriodicFrame[] kFrames = {
+    PeriodicFrame.kStatus0, PeriodicFrame.kStatus1, PeriodicFrame.kStatus2
+  };
+
+  private final CANSparkMax sparkMax;
+
+  public SparkMaxDevice(String name, CANRole role, CANSparkMax sparkMax) {
+    super(name, Type.SPARK_MAX, role);
+    this.sparkMax = sparkMax;
+  }
+
+  @Override
+  public boolean apply() {
+    int[] periods = getStatusPeriods();
+    boolean ok = true;
+    for (int i = 0; i < kFrames.length; i++) {
+      ok &= sparkMax.setPeriodicFramePeriod(kFrames[i], periods[i]) == CANError.kOk;
+    }
+    return ok;
+  }
+}
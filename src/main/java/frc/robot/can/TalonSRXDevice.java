@@ -0,0 +1,51 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.can;
+
+import com.ctre.phoenix.ErrorCode;
+import com.ctre.phoenix.motorcontrol.ControlFrame;
+import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
+import com.ctre.phoenix.motorcontrol.can.WPI_TalonSRX;
+
+/**
+ * A Talon SRX, including its control frame period
+ */
+public class TalonSRXDevice extends CANDevice {
+  private static final StatusFrameEnhanced[] kFrames = {
+    StatusFrameEnhanced.Status_1_General,
+    StatusFrameEnhanced.Status_2_Feedback0,
+    StatusFrameEnhanced.Status_3_Quadrature,
+    StatusFrameEnhanced.Status_4_AinTempVbat,
+    StatusFrameEnhanced.Status_8_PulseWidth,
+    StatusFrameEnhanced.Status_10_Targets,
+    StatusFrameEnhanced.Status_13_Base_PIDF0,
+    StatusFrameEnhanced.Status_14_Turn_PIDF1
+  };
+
+  private static final int kTimeoutMs = 10;
+
+  private final WPI_TalonSRX talon;
+
+  public TalonSRXDevice(String name, CANRole role, WPI_TalonSRX talon) {
+    super(name, Type.TALON_SRX, role);
+    this.talon = talon;
+  }
+
+  @Override
+  public boolean apply() {
+    int[] periods = getStatusPeriods();
+    boolean ok = true;
+    for (int i = 0; i < kFrames.length; i++) {
+      ok &= talon.setStatusFramePeriod(kFrames[i], periods[i], kTimeoutMs) == ErrorCode.OK;
+    }
+    if (getRole().controlPeriod > 0) {
+      ok &= talon.setControlFramePeriod(ControlFrame.Control_3_General, getRole().controlPeriod) == ErrorCode.OK;
+    }
+    return ok;
+  }
+}
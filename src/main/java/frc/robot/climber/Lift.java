@@ -7,16 +7,26 @@
 
 package frc.robot.climber;
 
-import com.ctre.phoenix.motorcontrol.can.WPI_TalonSRX;
+import edu.wpi.first.wpilibj.SpeedController;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.can.CANRole;
+import frc.robot.sim.MotorControllers;
 
 import static frc.robot.Constants.*;
 
 public class Lift extends SubsystemBase {
-  private WPI_TalonSRX leftArm = new WPI_TalonSRX(leftArmPort);
+  private SpeedController leftArm;
 
   private boolean negation = true; // on true for safety, in case arm is accidentally activated
 
+  public Lift() {
+    this(MotorControllers.talonSRX("Arm", leftArmPort, CANRole.OPEN_LOOP));
+  }
+
+  public Lift(SpeedController arm) {
+    leftArm = arm;
+  }
+
   public void move(double speed) {
     leftArm.set(speed);
   }
@@ -0,0 +1,68 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.drive;
+
+import edu.wpi.first.wpilibj.SpeedController;
+
+/**
+ * The drivetrain hardware: a motor controller per side, the encoders and the gyro. 
+ * {@link RevDrivetrain} only talks to the robot through this, so it runs the same on the 
+ * Spark Maxes and navX as on a simulated drivetrain.
+ */
+public interface DrivetrainIO {
+  // Names the inputs are logged and replayed under
+  String kLeftPositionSignal = "Drive/Left Position (m)";
+  String kRightPositionSignal = "Drive/Right Position (m)";
+  String kLeftVelocitySignal = "Drive/Left Velocity (m per s)";
+  String kRightVelocitySignal = "Drive/Right Velocity (m per s)";
+  String kGyroSignal = "Drive/Gyro (deg)";
+
+  /**
+   * The left side's leader, which the other left motors follow
+   */
+  SpeedController getLeftController();
+
+  /**
+   * The right side's leader. The right gearbox is mirrored, so positive output drives
+   * it backwards.
+   */
+  SpeedController getRightController();
+
+  /**
+   * Distance the left wheels have driven in meters, forward positive
+   */
+  double getLeftPosition();
+
+  /**
+   * Distance the right wheels have driven in meters, forward positive even though the
+   * motor turns the other way
+   */
+  double getRightPosition();
+
+  /**
+   * Left wheel speed in meters per second, forward positive
+   */
+  double getLeftVelocity();
+
+  double getRightVelocity();
+
+  /**
+   * Gyro angle in degrees, clockwise positive like the navX
+   */
+  double getGyroAngle();
+
+  void resetEncoders();
+
+  void resetGyro();
+
+  /**
+   * Called once per loop. Simulations advance by the time given.
+   */
+  default void update(double dtSeconds) {
+  }
+}
@@ -0,0 +1,55 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.drive;
+
+import edu.wpi.first.wpilibj.trajectory.Trajectory;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+
+/**
+ * Follows a path like {@link edu.wpi.first.wpilibj2.command.RamseteCommand}, but timed by
+ * {@link frc.robot.sim.RobotClock} rather than a {@link edu.wpi.first.wpilibj.Timer}, so
+ * it runs at the pace of a test or replay stepping the clock as well as on the robot.
+ */
+public class FollowPathCommand extends CommandBase {
+  private final RevDrivetrain drive;
+  private final Trajectory path;
+  private final RamseteFollower follower;
+
+  public FollowPathCommand(RevDrivetrain drive, Trajectory path) {
+    this.drive = drive;
+    this.path = path;
+    follower = new RamseteFollower(drive);
+
+    addRequirements(drive);
+  }
+
+  // Called when the command is initially scheduled.
+  @Override
+  public void initialize() {
+    follower.reset();
+    follower.start(path);
+  }
+
+  // Called every time the scheduler runs while the command is scheduled.
+  @Override
+  public void execute() {
+    follower.follow();
+  }
+
+  // Called once the command ends or is interrupted.
+  @Override
+  public void end(boolean interrupted) {
+    drive.setOutputVolts(0, 0);
+  }
+
+  // Returns true when the command should end.
+  @Override
+  public boolean isFinished() {
+    return follower.isDone();
+  }
+}
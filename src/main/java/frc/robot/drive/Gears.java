@@ -6,18 +6,36 @@
 /*----------------------------------------------------------------------------*/
 
 package frc.robot.drive;
-import edu.wpi.first.wpilibj.Solenoid;
 import edu.wpi.first.wpilibj2.command.SubsystemBase; 
+import frc.robot.sim.IOMode;
+import frc.robot.sim.PneumaticSolenoidIO;
+import frc.robot.sim.SimSolenoidIO;
+import frc.robot.sim.SolenoidIO;
 import static frc.robot.Constants.*;
 /**
  * Add your docs here.
  */
 public class Gears extends SubsystemBase {
-  private Solenoid leftGear = new Solenoid(compressorModule, leftGearPort);
-  private Solenoid rightGear = new Solenoid(compressorModule, rightGearPort);
+  private SolenoidIO leftGear;
+  private SolenoidIO rightGear;
 
   private boolean isFast = false;
 
+  public Gears() {
+    if (IOMode.get() == IOMode.REAL) {
+      leftGear = new PneumaticSolenoidIO(compressorModule, leftGearPort);
+      rightGear = new PneumaticSolenoidIO(compressorModule, rightGearPort);
+    } else {
+      leftGear = new SimSolenoidIO();
+      rightGear = new SimSolenoidIO();
+    }
+  }
+
+  public Gears(SolenoidIO left, SolenoidIO right) {
+    leftGear = left;
+    rightGear = right;
+  }
+
   private void fast(){
     leftGear.set(true);
     rightGear.set(true);
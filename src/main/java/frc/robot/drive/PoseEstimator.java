@@ -0,0 +1,224 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.drive;
+
+/**
+ * Differential drive odometry that keeps a fixed size history of where it has been, so a
+ * delayed measurement such as a camera frame can correct the pose at the time it was
+ * taken. The correction is then carried forward by replaying the recorded wheel distances
+ * and headings from that time to now. A measurement older than the last one used is
+ * ignored, as replaying from before it would undo that correction.
+ *
+ * <p>Everything is stored in primitive arrays allocated up front; nothing here allocates
+ * after construction. Positions are in meters and headings in radians, counterclockwise
+ * positive. The heading comes from the gyro and is not corrected by vision.
+ */
+public class PoseEstimator {
+  private final double[] timestamps;
+  private final double[] xs;
+  private final double[] ys;
+  private final double[] headings;
+  private final double[] leftDistances;
+  private final double[] rightDistances;
+
+  private int newest = -1;
+  private int size = 0;
+
+  // Set by reset, applied to the next update
+  private double resetX = 0;
+  private double resetY = 0;
+  private double headingOffset = 0;
+  private boolean resetPending = true;
+
+  // Time of the last measurement used, so an older one can't replay over its correction
+  private double lastMeasurementTime = Double.NEGATIVE_INFINITY;
+
+  public PoseEstimator(int capacity) {
+    timestamps = new double[capacity];
+    xs = new double[capacity];
+    ys = new double[capacity];
+    headings = new double[capacity];
+    leftDistances = new double[capacity];
+    rightDistances = new double[capacity];
+  }
+
+  /**
+   * Moves the estimate to a known pose and forgets the history. The next update is taken
+   * as the starting point for the wheel distances.
+   * @param heading the robot's heading now
+   * @param gyroHeading what the gyro reads now
+   */
+  public void reset(double x, double y, double heading, double gyroHeading) {
+    resetX = x;
+    resetY = y;
+    headingOffset = heading - gyroHeading;
+    resetPending = true;
+    lastMeasurementTime = Double.NEGATIVE_INFINITY;
+    newest = -1;
+    size = 0;
+  }
+
+  /**
+   * Adds one loop's sensor readings. Timestamps must be increasing.
+   * @param timestamp time in seconds
+   * @param gyroHeading gyro heading in radians, counterclockwise positive
+   * @param leftDistance distance driven by the left wheels in meters
+   * @param rightDistance distance driven by the right wheels in meters
+   */
+  public void update(double timestamp, double gyroHeading, double leftDistance, double rightDistance) {
+    double heading = gyroHeading + headingOffset;
+    int previous = newest;
+    newest = (newest + 1) % timestamps.length;
+    size = Math.min(size + 1, timestamps.length);
+
+    timestamps[newest] = timestamp;
+    headings[newest] = heading;
+    leftDistances[newest] = leftDistance;
+    rightDistances[newest] = rightDistance;
+
+    if (resetPending) {
+      xs[newest] = resetX;
+      ys[newest] = resetY;
+      resetPending = false;
+    } else {
+      integrate(previous, newest);
+    }
+  }
+
+  /**
+   * Sets an entry's position from the one before it, driving along the average of the
+   * two headings
+   */
+  private void integrate(int from, int to) {
+    double distance = ((leftDistances[to] - leftDistances[from])
+      + (rightDistances[to] - rightDistances[from])) / 2;
+    double heading = (headings[from] + headings[to]) / 2;
+
+    xs[to] = xs[from] + distance * Math.cos(heading);
+    ys[to] = ys[from] + distance * Math.sin(heading);
+  }
+
+  /**
+   * Corrects the estimate with a measured position from the past. The pose at that time
+   * is moved by gain times the error, and every later entry is replayed from it.
+   * @param timestamp time in seconds the measurement was taken
+   * @param gain fraction of the error to correct, 0 to 1
+   * @param maxError measurements further than this from the estimate, in meters, are
+   * taken as bad and ignored
+   * @return false if the measurement was ignored because it was too far off, older than
+   * the history or older than the last measurement used
+   */
+  public boolean addMeasurement(double timestamp, double x, double y, double gain, double maxError) {
+    if (timestamp < lastMeasurementTime) {
+      return false;
+    }
+
+    int earlier = findEarlier(timestamp);
+    if (earlier < 0) {
+      return false;
+    }
+
+    // The estimate at the measurement time, between the entry before it and the one after
+    double estimatedX = xs[earlier];
+    double estimatedY = ys[earlier];
+    if (earlier != newest) {
+      int later = (earlier + 1) % timestamps.length;
+      double span = timestamps[later] - timestamps[earlier];
+      if (span > 0) {
+        double fraction = (timestamp - timestamps[earlier]) / span;
+        estimatedX += fraction * (xs[later] - xs[earlier]);
+        estimatedY += fraction * (ys[later] - ys[earlier]);
+      }
+    }
+
+    double errorX = x - estimatedX;
+    double errorY = y - estimatedY;
+    if (errorX * errorX + errorY * errorY > maxError * maxError) {
+      return false;
+    }
+
+    xs[earlier] += gain * errorX;
+    ys[earlier] += gain * errorY;
+    lastMeasurementTime = timestamp;
+
+    for (int entry = earlier; entry != newest; ) {
+      int next = (entry + 1) % timestamps.length;
+      integrate(entry, next);
+      entry = next;
+    }
+    return true;
+  }
+
+  /**
+   * Index of the newest entry at or before a time
+   * @return -1 if the time is before the oldest entry or there are none
+   */
+  private int findEarlier(double timestamp) {
+    // Walk back from the newest entry, which is where recent lookups land
+    int entry = newest;
+    for (int i = 0; i < size; i++) {
+      if (timestamps[entry] <= timestamp) {
+        return entry;
+      }
+      entry = (entry - 1 + timestamps.length) % timestamps.length;
+    }
+    return -1;
+  }
+
+  /**
+   * Gets the heading at a past time, interpolating between the two closest entries.
+   * Times before the oldest or after the newest entry get that entry's heading.
+   * @return heading in radians, 0 if nothing has been added
+   */
+  public double getHeadingAt(double timestamp) {
+    if (size == 0) {
+      return 0;
+    }
+
+    int earlier = findEarlier(timestamp);
+    if (earlier < 0) {
+      return headings[(newest - size + 1 + timestamps.length) % timestamps.length];
+    }
+    if (earlier == newest) {
+      return headings[newest];
+    }
+
+    int later = (earlier + 1) % timestamps.length;
+    double span = timestamps[later] - timestamps[earlier];
+    if (span <= 0) {
+      return headings[later];
+    }
+    double fraction = (timestamp - timestamps[earlier]) / span;
+    return headings[earlier] + fraction * (headings[later] - headings[earlier]);
+  }
+
+  /**
+   * @return x in meters, or where the robot was reset to if nothing has been added since
+   */
+  public double getX() {
+    return size == 0 ? resetX : xs[newest];
+  }
+
+  public double getY() {
+    return size == 0 ? resetY : ys[newest];
+  }
+
+  /**
+   * @return heading in radians, 0 if nothing has been added
+   */
+  public double getHeading() {
+    return size == 0 ? 0 : headings[newest];
+  }
+
+  /**
+   * Number of entries in the history
+   */
+  public int size() {
+    return size;
+  }
+}
@@ -0,0 +1,111 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.drive;
+
+import edu.wpi.first.wpilibj.controller.RamseteController;
+import edu.wpi.first.wpilibj.geometry.Pose2d;
+import edu.wpi.first.wpilibj.kinematics.ChassisSpeeds;
+import edu.wpi.first.wpilibj.kinematics.DifferentialDriveWheelSpeeds;
+import edu.wpi.first.wpilibj.trajectory.Trajectory;
+import frc.robot.sim.RobotClock;
+
+import static frc.robot.Gains.Ramsete.*;
+
+/**
+ * The Ramsete loop the path commands share: drives along one path with the drivetrain's
+ * velocity loops and feedforward, timed by {@link RobotClock} from when the path was
+ * started, so it keeps pace with whatever steps the clock.
+ */
+class RamseteFollower {
+  private final RevDrivetrain drive;
+  private final RamseteController controller = new RamseteController(kBeta, kZeta);
+
+  private Trajectory path;
+  private double startTime;
+  private double previousTime;
+  private double previousLeftSpeed;
+  private double previousRightSpeed;
+
+  RamseteFollower(RevDrivetrain drive) {
+    this.drive = drive;
+  }
+
+  /**
+   * Drops the path and resets the velocity loops, for a command starting over
+   */
+  void reset() {
+    path = null;
+    drive.getLeftDrivePID().reset();
+    drive.getRightDrivePID().reset();
+  }
+
+  /**
+   * Starts following a path from its beginning, now
+   */
+  void start(Trajectory path) {
+    DifferentialDriveWheelSpeeds speeds = drive.getSpeeds();
+    this.path = path;
+    startTime = RobotClock.getTime();
+    previousTime = 0;
+    previousLeftSpeed = speeds.leftMetersPerSecond;
+    previousRightSpeed = speeds.rightMetersPerSecond;
+  }
+
+  /**
+   * The path being followed, or null before the first one is started
+   */
+  Trajectory getPath() {
+    return path;
+  }
+
+  /**
+   * Drives toward where the robot should be on the path now
+   * @return where the robot should be
+   */
+  Trajectory.State follow() {
+    double time = RobotClock.getTime() - startTime;
+    double dt = time - previousTime;
+    Trajectory.State reference = path.sample(time);
+    Pose2d pose = drive.getPose();
+
+    ChassisSpeeds chassisSpeeds = controller.calculate(pose, reference);
+    DifferentialDriveWheelSpeeds target = drive.getKinematics().toWheelSpeeds(chassisSpeeds);
+    DifferentialDriveWheelSpeeds speeds = drive.getSpeeds();
+
+    double leftVolts = drive.getLeftDrivePID().calculate(speeds.leftMetersPerSecond, target.leftMetersPerSecond);
+    double rightVolts = drive.getRightDrivePID().calculate(speeds.rightMetersPerSecond, target.rightMetersPerSecond);
+    if (dt > 0) {
+      leftVolts += drive.getFeedforward().calculate(target.leftMetersPerSecond,
+        (target.leftMetersPerSecond - previousLeftSpeed) / dt);
+      rightVolts += drive.getFeedforward().calculate(target.rightMetersPerSecond,
+        (target.rightMetersPerSecond - previousRightSpeed) / dt);
+    }
+    drive.setOutputVolts(leftVolts, rightVolts);
+
+    previousTime = time;
+    previousLeftSpeed = target.leftMetersPerSecond;
+    previousRightSpeed = target.rightMetersPerSecond;
+    return reference;
+  }
+
+  /**
+   * Brakes the wheels to a stop with the velocity loops
+   */
+  void holdStill() {
+    DifferentialDriveWheelSpeeds speeds = drive.getSpeeds();
+    drive.setOutputVolts(drive.getLeftDrivePID().calculate(speeds.leftMetersPerSecond, 0),
+      drive.getRightDrivePID().calculate(speeds.rightMetersPerSecond, 0));
+  }
+
+  /**
+   * Whether the path's time has run out
+   */
+  boolean isDone() {
+    return path != null && RobotClock.getTime() - startTime > path.getTotalTimeSeconds();
+  }
+}
@@ -0,0 +1,133 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.drive;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import edu.wpi.first.wpilibj.geometry.Pose2d;
+import edu.wpi.first.wpilibj.trajectory.Trajectory;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.telemetry.EventLog;
+
+import static frc.robot.Constants.*;
+
+/**
+ * Follows a path like {@link edu.wpi.first.wpilibj2.command.RamseteCommand}, but plans it
+ * from the robot's pose when scheduled, on the {@link TrajectoryService} thread.
+ *
+ * <p>Until the first path is ready the robot holds still. If the robot ends up more than
+ * pathReplanError off the path, e.g. after a vision correction, a new path is planned
+ * from where it is while the current one keeps being followed. A finished plan is handed
+ * over through an atomic reference and swapped in at the start of the next loop, so the
+ * robot loop never waits on generation.
+ */
+public class ReplanningRamseteCommand extends CommandBase {
+  private final RevDrivetrain drive;
+  private final Function<Pose2d, CompletableFuture<Trajectory>> planner;
+  private final RamseteFollower follower;
+
+  private final EventLog.Event planFailed = EventLog.getInstance().event("Path planning failed");
+
+  // Set by the planner thread, taken by the robot loop
+  private final AtomicReference<Trajectory> nextPlan = new AtomicReference<>();
+  private volatile CompletableFuture<Trajectory> pendingPlan;
+
+  /**
+   * @param planner starts planning a path from the given pose, e.g. with
+   * {@link TrajectoryService#generate}
+   */
+  public ReplanningRamseteCommand(RevDrivetrain drive, Function<Pose2d, CompletableFuture<Trajectory>> planner) {
+    this.drive = drive;
+    this.planner = planner;
+    follower = new RamseteFollower(drive);
+
+    addRequirements(drive);
+  }
+
+  // Called when the command is initially scheduled.
+  @Override
+  public void initialize() {
+    follower.reset();
+    replan();
+  }
+
+  /**
+   * Starts planning a new path from the current pose. The current path is followed until
+   * the new one is ready; a plan still in progress is discarded.
+   */
+  public void replan() {
+    CompletableFuture<Trajectory> request = planner.apply(drive.getPose());
+    synchronized (this) {
+      pendingPlan = request;
+    }
+
+    request.whenComplete((trajectory, error) -> handOver(request, trajectory, error));
+  }
+
+  /**
+   * Runs on the planner thread when a request finishes. Only the latest request counts.
+   */
+  private synchronized void handOver(CompletableFuture<Trajectory> request, Trajectory trajectory, Throwable error) {
+    if (pendingPlan != request) {
+      return;
+    }
+    pendingPlan = null;
+
+    if (error != null || trajectory == null) {
+      planFailed.post();
+    } else {
+      nextPlan.set(trajectory);
+    }
+  }
+
+  /**
+   * Whether a path is being planned
+   */
+  public boolean isPlanning() {
+    return pendingPlan != null;
+  }
+
+  // Called every time the scheduler runs while the command is scheduled.
+  @Override
+  public void execute() {
+    Trajectory ready = nextPlan.getAndSet(null);
+    if (ready != null) {
+      follower.start(ready);
+    }
+
+    if (follower.getPath() == null) {
+      follower.holdStill();
+      return;
+    }
+
+    Trajectory.State reference = follower.follow();
+    if (pendingPlan == null
+        && drive.getPose().getTranslation().getDistance(reference.poseMeters.getTranslation()) > pathReplanError) {
+      replan();
+    }
+  }
+
+  // Called once the command ends or is interrupted.
+  @Override
+  public void end(boolean interrupted) {
+    // Drop any plan still on its way
+    synchronized (this) {
+      pendingPlan = null;
+      nextPlan.set(null);
+    }
+    drive.setOutputVolts(0, 0);
+  }
+
+  // Returns true when the command should end.
+  @Override
+  public boolean isFinished() {
+    return follower.isDone() && pendingPlan == null && nextPlan.get() == null;
+  }
+}
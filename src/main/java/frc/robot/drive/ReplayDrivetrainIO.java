@@ -0,0 +1,91 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.drive;
+
+import edu.wpi.first.wpilibj.SpeedController;
+import frc.robot.sim.LogReplay;
+import frc.robot.sim.SimSpeedController;
+
+/**
+ * Drivetrain inputs played back from a log. Outputs go nowhere.
+ */
+public class ReplayDrivetrainIO implements DrivetrainIO {
+  private final SpeedController leftController = new SimSpeedController();
+  private final SpeedController rightController = new SimSpeedController();
+
+  private final LogReplay.Signal leftPosition;
+  private final LogReplay.Signal rightPosition;
+  private final LogReplay.Signal leftVelocity;
+  private final LogReplay.Signal rightVelocity;
+  private final LogReplay.Signal gyro;
+
+  // Offsets from the recorded values, set by the resets
+  private double leftZero = 0;
+  private double rightZero = 0;
+  private double gyroZero = 0;
+
+  public ReplayDrivetrainIO() {
+    this(LogReplay.getInstance());
+  }
+
+  public ReplayDrivetrainIO(LogReplay replay) {
+    leftPosition = replay.signal(kLeftPositionSignal);
+    rightPosition = replay.signal(kRightPositionSignal);
+    leftVelocity = replay.signal(kLeftVelocitySignal);
+    rightVelocity = replay.signal(kRightVelocitySignal);
+    gyro = replay.signal(kGyroSignal);
+
+    SimDrivetrainIO.registerDevices();
+  }
+
+  @Override
+  public SpeedController getLeftController() {
+    return leftController;
+  }
+
+  @Override
+  public SpeedController getRightController() {
+    return rightController;
+  }
+
+  @Override
+  public double getLeftPosition() {
+    return leftPosition.get(0) - leftZero;
+  }
+
+  @Override
+  public double getRightPosition() {
+    return rightPosition.get(0) - rightZero;
+  }
+
+  @Override
+  public double getLeftVelocity() {
+    return leftVelocity.get(0);
+  }
+
+  @Override
+  public double getRightVelocity() {
+    return rightVelocity.get(0);
+  }
+
+  @Override
+  public double getGyroAngle() {
+    return gyro.get(0) - gyroZero;
+  }
+
+  @Override
+  public void resetEncoders() {
+    leftZero = leftPosition.get(0);
+    rightZero = rightPosition.get(0);
+  }
+
+  @Override
+  public void resetGyro() {
+    gyroZero = gyro.get(0);
+  }
+}
@@ -7,11 +7,6 @@
 
 package frc.robot.drive;
 
-import com.kauailabs.navx.frc.AHRS;
-import com.revrobotics.CANSparkMax;
-import com.revrobotics.CANSparkMaxLowLevel.MotorType;
-
-import edu.wpi.first.wpilibj.SPI;
 import edu.wpi.first.wpilibj.SlewRateLimiter;
 import edu.wpi.first.wpilibj.controller.PIDController;
 import edu.wpi.first.wpilibj.controller.SimpleMotorFeedforward;
@@ -19,10 +14,13 @@ import edu.wpi.first.wpilibj.drive.DifferentialDrive;
 import edu.wpi.first.wpilibj.geometry.Pose2d;
 import edu.wpi.first.wpilibj.geometry.Rotation2d;
 import edu.wpi.first.wpilibj.kinematics.DifferentialDriveKinematics;
-import edu.wpi.first.wpilibj.kinematics.DifferentialDriveOdometry;
 import edu.wpi.first.wpilibj.kinematics.DifferentialDriveWheelSpeeds;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpiutil.math.MathUtil;
+import frc.robot.sim.IOMode;
+import frc.robot.sim.RobotClock;
+import frc.robot.telemetry.DataLogger;
+import frc.robot.telemetry.LoopProfiler;
 
 import static frc.robot.Gains.*;
 
@@ -33,24 +31,19 @@ import static frc.robot.Constants.*;
  */
 public class RevDrivetrain extends SubsystemBase {
 
-  private CANSparkMax LFrontWheel = new CANSparkMax(kLeftFrontPort, MotorType.kBrushless);
-  private CANSparkMax RFrontWheel = new CANSparkMax(kRightFrontPort, MotorType.kBrushless);
-
-  private CANSparkMax LRearWheel = new CANSparkMax(kLeftRearPort, MotorType.kBrushless);
-  private CANSparkMax RRearWheel = new CANSparkMax(kRightRearPort, MotorType.kBrushless);
-
-  private DifferentialDrive roboDrive = new DifferentialDrive(LFrontWheel, RFrontWheel);
+  // Motors, encoders and gyro, real or simulated
+  private final DrivetrainIO io;
 
-  private AHRS gyro = new AHRS(SPI.Port.kMXP);
-
-  private double gyroPosition = -gyro.getAngle();
+  private DifferentialDrive roboDrive;
 
   private PIDController gyroController 
     = new PIDController(0.1, 0, 0);
 
   // Autonomous Tracking
   private DifferentialDriveKinematics kinematics = new DifferentialDriveKinematics(kTrackWidthMeters);
-  private DifferentialDriveOdometry odometry = new DifferentialDriveOdometry(getHeading());
+
+  // Odometry with recent history, for matching up and applying delayed vision measurements
+  private final PoseEstimator estimator = new PoseEstimator(poseHistorySize);
 
   private SimpleMotorFeedforward feedforward 
     = new SimpleMotorFeedforward(driveFeedforward.ks, driveFeedforward.kv, driveFeedforward.ka);
@@ -61,40 +54,77 @@ public class RevDrivetrain extends SubsystemBase {
   private PIDController rightDrivePID
     = new PIDController(rightDrive.kP, rightDrive.kI, rightDrive.kD);
 
+  // Built from the estimator when asked for, at most once per loop
   private Pose2d pose = new Pose2d();
+  private boolean poseStale = false;
+
+  // Refilled by getSpeeds() rather than allocated each call
+  private final DifferentialDriveWheelSpeeds speeds = new DifferentialDriveWheelSpeeds();
 
   private SlewRateLimiter speedLimiter = new SlewRateLimiter(3);
 
   private SlewRateLimiter leftLimiter = new SlewRateLimiter(0.3);
   private SlewRateLimiter rightLimiter = new SlewRateLimiter(0.3);
 
+  private final LoopProfiler.Section profile = LoopProfiler.getInstance().section("RevDrivetrain");
+
+  private final DataLogger logger = DataLogger.getInstance();
+  // Inputs, enough to replay the drivetrain
+  private final int leftPositionSignal = logger.addSignal(DrivetrainIO.kLeftPositionSignal);
+  private final int rightPositionSignal = logger.addSignal(DrivetrainIO.kRightPositionSignal);
+  private final int leftVelocitySignal = logger.addSignal(DrivetrainIO.kLeftVelocitySignal);
+  private final int rightVelocitySignal = logger.addSignal(DrivetrainIO.kRightVelocitySignal);
+  private final int gyroSignal = logger.addSignal(DrivetrainIO.kGyroSignal);
+  // Outputs
+  private final int headingSignal = logger.addSignal("Drive/Heading (deg)");
+  private final int poseXSignal = logger.addSignal("Drive/Pose X (m)");
+  private final int poseYSignal = logger.addSignal("Drive/Pose Y (m)");
+
   public RevDrivetrain() {
-    LRearWheel.follow(LFrontWheel);
-    RRearWheel.follow(RFrontWheel);
+    this(createIO());
+  }
 
-    LFrontWheel.getEncoder().setPosition(0);
-    RFrontWheel.getEncoder().setPosition(0);
+  public RevDrivetrain(DrivetrainIO drivetrainIO) {
+    io = drivetrainIO;
+    roboDrive = new DifferentialDrive(io.getLeftController(), io.getRightController());
+
+    io.resetEncoders();
+    io.resetGyro();
+
+    estimator.reset(0, 0, 0, 0);
+  }
 
-    gyro.reset();
+  private static DrivetrainIO createIO() {
+    switch (IOMode.get()) {
+      case REAL:
+        return new SparkMaxDrivetrainIO();
+      case REPLAY:
+        return new ReplayDrivetrainIO();
+      default:
+        return new SimDrivetrainIO();
+    }
   }
 
   public void limiterDrive(double leftPercent, double rightPercent) {
     roboDrive.tankDrive(leftLimiter.calculate(leftPercent), rightLimiter.calculate(rightPercent), false);
   }
   
+  // The right gearbox is mirrored, so the right side is negated to drive both forward,
+  // matching the encoders
+
   public void setOutputVolts(double leftVolts, double rightVolts) {
-    LFrontWheel.setVoltage(leftVolts);
-    RFrontWheel.setVoltage(rightVolts);
+    io.getLeftController().setVoltage(leftVolts);
+    io.getRightController().setVoltage(-rightVolts);
   }  
 
   public void setOutputPercent(double leftPercent, double rightPercent) {
-    LFrontWheel.set(leftPercent);
-    RFrontWheel.set(rightPercent);
+    io.getLeftController().set(leftPercent);
+    io.getRightController().set(-rightPercent);
   }  
 
   public void setOutputFeedforward(double leftVolts, double rightVolts) {
-    LFrontWheel.setVoltage(feedforward.calculate(leftVolts));
-    RFrontWheel.setVoltage(feedforward.calculate(rightVolts));
+    io.getLeftController().setVoltage(feedforward.calculate(leftVolts));
+    io.getRightController().setVoltage(-feedforward.calculate(rightVolts));
   }
 
   public DifferentialDrive getDifferentialDrive() {
@@ -102,21 +132,56 @@ public class RevDrivetrain extends SubsystemBase {
   }
 
   public double getAngle() {
-    return -gyro.getAngle();
+    return -io.getGyroAngle();
   }
 
   public Rotation2d getHeading() {
     return Rotation2d.fromDegrees(getAngle());
   }
 
+  /**
+   * Gets the heading at a recent time, as recorded each loop
+   * @param timestamp FPGA time in seconds
+   * @return heading in degrees, counterclockwise positive like {@link #getAngle()}
+   */
+  public double getAngleAt(double timestamp) {
+    // The estimator's headings are on the field, offset from the gyro by the last resetPose
+    return getAngle() + Math.toDegrees(estimator.getHeadingAt(timestamp) - estimator.getHeading());
+  }
+
   public DifferentialDriveKinematics getKinematics() {
     return kinematics;
   }
   
   public Pose2d getPose() {
+    if (poseStale) {
+      pose = new Pose2d(estimator.getX(), estimator.getY(), new Rotation2d(estimator.getHeading()));
+      poseStale = false;
+    }
     return pose;
   }
 
+  /**
+   * Moves the estimated pose, e.g. to the starting position at the start of autonomous
+   */
+  public void resetPose(Pose2d newPose) {
+    estimator.reset(newPose.getTranslation().getX(), newPose.getTranslation().getY(), 
+      newPose.getRotation().getRadians(), Math.toRadians(getAngle()));
+    pose = newPose;
+    poseStale = false;
+  }
+
+  /**
+   * Corrects the pose with a position measured by the camera
+   * @param timestamp FPGA time in seconds the frame was captured
+   * @return false if the measurement was too far off or too old to use
+   */
+  public boolean addVisionMeasurement(double x, double y, double timestamp) {
+    boolean accepted = estimator.addMeasurement(timestamp, x, y, visionCorrectionGain, visionMaxCorrection);
+    poseStale |= accepted;
+    return accepted;
+  }
+
   public SimpleMotorFeedforward getFeedforward() {
     return feedforward;
   }
@@ -130,21 +195,21 @@ public class RevDrivetrain extends SubsystemBase {
   }
   
   public double getLeftDistanceMeters() {
-    return LFrontWheel.getEncoder().getPosition() / 
-    RFrontWheel.getEncoder().getCountsPerRevolution() * 2 * Math.PI * kDriveWheelRadiusMeters;
+    return io.getLeftPosition();
   }
 
   public double getRightDistanceMeters() {
-    return RFrontWheel.getEncoder().getPosition() / 
-    RFrontWheel.getEncoder().getCountsPerRevolution() * 2 * Math.PI * kDriveWheelRadiusMeters;
-      
+    return io.getRightPosition();
   }
 
+  /**
+   * Current wheel speeds. The same object is refilled and returned on every call, so copy
+   * the values rather than keeping it.
+   */
   public DifferentialDriveWheelSpeeds getSpeeds() {
-    return new DifferentialDriveWheelSpeeds(
-      LFrontWheel.getEncoder().getVelocity() / kGearRatio * 2 * Math.PI * kDriveWheelRadiusMeters / 60,
-      RFrontWheel.getEncoder().getVelocity() / kGearRatio * 2 * Math.PI * kDriveWheelRadiusMeters / 60
-    );
+    speeds.leftMetersPerSecond = io.getLeftVelocity();
+    speeds.rightMetersPerSecond = io.getRightVelocity();
+    return speeds;
   }
 
   /**
@@ -152,6 +217,23 @@ public class RevDrivetrain extends SubsystemBase {
   */
   @Override
   public void periodic() {
-      pose = odometry.update(getHeading(), getLeftDistanceMeters(), getRightDistanceMeters());
+      profile.start();
+      io.update(kLoopPeriodSeconds);
+
+      double angle = getAngle();
+      double leftDistance = getLeftDistanceMeters();
+      double rightDistance = getRightDistanceMeters();
+      estimator.update(RobotClock.getTime(), Math.toRadians(angle), leftDistance, rightDistance);
+      poseStale = true;
+
+      logger.log(leftPositionSignal, io.getLeftPosition());
+      logger.log(rightPositionSignal, io.getRightPosition());
+      logger.log(leftVelocitySignal, io.getLeftVelocity());
+      logger.log(rightVelocitySignal, io.getRightVelocity());
+      logger.log(gyroSignal, io.getGyroAngle());
+      logger.log(headingSignal, angle);
+      logger.log(poseXSignal, estimator.getX());
+      logger.log(poseYSignal, estimator.getY());
+      profile.stop();
   }
 }
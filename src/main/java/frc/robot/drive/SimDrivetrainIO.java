@@ -0,0 +1,155 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.drive;
+
+import edu.wpi.first.wpilibj.SpeedController;
+import frc.robot.can.CANBudget;
+import frc.robot.can.CANDevice;
+import frc.robot.can.CANRole;
+import frc.robot.can.SimCANDevice;
+import frc.robot.sim.MotorModel;
+import frc.robot.sim.SimSpeedController;
+
+import static frc.robot.Constants.*;
+
+/**
+ * Simulated drivetrain: two NEOs per side through kGearRatio, driving a robot of
+ * simRobotMassKg with wheels kTrackWidthMeters apart. Each update is split into fixed
+ * steps of simStepSeconds, so the physics don't depend on how often it is called.
+ *
+ * <p>Like the robot, the right gearbox is mirrored: positive output drives it backwards.
+ * The encoders read wheel meters, forward positive, as the Spark Maxes are set up to. The
+ * gyro integrates the turn rate and reads clockwise positive like the navX.
+ */
+public class SimDrivetrainIO implements DrivetrainIO {
+  private final MotorModel gearbox = MotorModel.neo(2);
+
+  private final SimSpeedController leftController = new SimSpeedController();
+  private final SimSpeedController rightController = new SimSpeedController();
+
+  // Wheel surface speeds and distances, forward positive
+  private double leftVelocity = 0;
+  private double rightVelocity = 0;
+  private double leftDistance = 0;
+  private double rightDistance = 0;
+
+  // Counterclockwise positive, radians
+  private double heading = 0;
+
+  // Where the encoders and gyro were last reset
+  private double leftZero = 0;
+  private double rightZero = 0;
+  private double headingZero = 0;
+
+  public SimDrivetrainIO() {
+    registerDevices();
+  }
+
+  /**
+   * Puts stand-ins for the drive Spark Maxes in the CAN budget
+   */
+  static void registerDevices() {
+    CANBudget bus = CANBudget.getInstance();
+    bus.register(new SimCANDevice("Left Front Drive", CANDevice.Type.SPARK_MAX, CANRole.LEADER));
+    bus.register(new SimCANDevice("Right Front Drive", CANDevice.Type.SPARK_MAX, CANRole.LEADER));
+    bus.register(new SimCANDevice("Left Rear Drive", CANDevice.Type.SPARK_MAX, CANRole.FOLLOWER));
+    bus.register(new SimCANDevice("Right Rear Drive", CANDevice.Type.SPARK_MAX, CANRole.FOLLOWER));
+  }
+
+  @Override
+  public SpeedController getLeftController() {
+    return leftController;
+  }
+
+  @Override
+  public SpeedController getRightController() {
+    return rightController;
+  }
+
+  @Override
+  public double getLeftPosition() {
+    return leftDistance - leftZero;
+  }
+
+  @Override
+  public double getRightPosition() {
+    return rightDistance - rightZero;
+  }
+
+  @Override
+  public double getLeftVelocity() {
+    return leftVelocity;
+  }
+
+  @Override
+  public double getRightVelocity() {
+    return rightVelocity;
+  }
+
+  @Override
+  public double getGyroAngle() {
+    return -Math.toDegrees(heading - headingZero);
+  }
+
+  @Override
+  public void resetEncoders() {
+    leftZero = leftDistance;
+    rightZero = rightDistance;
+  }
+
+  @Override
+  public void resetGyro() {
+    headingZero = heading;
+  }
+
+  /**
+   * The simulated robot's heading, counterclockwise positive, unaffected by gyro resets
+   */
+  public double getHeadingRadians() {
+    return heading;
+  }
+
+  @Override
+  public void update(double dtSeconds) {
+    int steps = Math.max(1, (int) Math.round(dtSeconds / simStepSeconds));
+    double step = dtSeconds / steps;
+
+    for (int i = 0; i < steps; i++) {
+      step(leftController.getVoltage(), -rightController.getVoltage(), step);
+    }
+  }
+
+  /**
+   * Advances one fixed step
+   * @param leftVolts voltage driving the left side forward
+   * @param rightVolts voltage driving the right side forward
+   */
+  void step(double leftVolts, double rightVolts, double dt) {
+    double leftForce = wheelForce(leftVolts, leftVelocity);
+    double rightForce = wheelForce(rightVolts, rightVelocity);
+
+    double acceleration = (leftForce + rightForce) / simRobotMassKg;
+    double angularAcceleration = (rightForce - leftForce) * kTrackWidthMeters / 2 / simRobotMOI;
+
+    leftVelocity += (acceleration - angularAcceleration * kTrackWidthMeters / 2) * dt;
+    rightVelocity += (acceleration + angularAcceleration * kTrackWidthMeters / 2) * dt;
+
+    leftDistance += leftVelocity * dt;
+    rightDistance += rightVelocity * dt;
+    heading += (rightVelocity - leftVelocity) / kTrackWidthMeters * dt;
+  }
+
+  /**
+   * Force one side's wheels put on the ground
+   * @param velocity wheel surface speed in m/s
+   */
+  private double wheelForce(double volts, double velocity) {
+    double motorSpeed = velocity / kDriveWheelRadiusMeters * kGearRatio;
+    return gearbox.getTorque(volts, motorSpeed) * kGearRatio / kDriveWheelRadiusMeters;
+  }
+}
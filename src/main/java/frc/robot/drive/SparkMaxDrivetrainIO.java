@@ -0,0 +1,103 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.drive;
+
+import com.kauailabs.navx.frc.AHRS;
+import com.revrobotics.CANEncoder;
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.CANSparkMaxLowLevel.MotorType;
+
+import edu.wpi.first.wpilibj.SPI;
+import edu.wpi.first.wpilibj.SpeedController;
+import frc.robot.can.CANBudget;
+import frc.robot.can.CANRole;
+import frc.robot.can.SparkMaxDevice;
+
+import static frc.robot.Constants.*;
+
+/**
+ * The robot's drivetrain: two NEOs per side on Spark Maxes, and a navX on the MXP port.
+ * The Spark Maxes are set up to report meters and meters per second themselves, so reading
+ * the encoders needs no conversion.
+ */
+public class SparkMaxDrivetrainIO implements DrivetrainIO {
+  private CANSparkMax LFrontWheel = new CANSparkMax(kLeftFrontPort, MotorType.kBrushless);
+  private CANSparkMax RFrontWheel = new CANSparkMax(kRightFrontPort, MotorType.kBrushless);
+
+  private CANSparkMax LRearWheel = new CANSparkMax(kLeftRearPort, MotorType.kBrushless);
+  private CANSparkMax RRearWheel = new CANSparkMax(kRightRearPort, MotorType.kBrushless);
+
+  private final CANEncoder leftEncoder = LFrontWheel.getEncoder();
+  private final CANEncoder rightEncoder = RFrontWheel.getEncoder();
+
+  private AHRS gyro = new AHRS(SPI.Port.kMXP);
+
+  public SparkMaxDrivetrainIO() {
+    LRearWheel.follow(LFrontWheel);
+    RRearWheel.follow(RFrontWheel);
+
+    CANBudget bus = CANBudget.getInstance();
+    bus.register(new SparkMaxDevice("Left Front Drive", CANRole.LEADER, LFrontWheel));
+    bus.register(new SparkMaxDevice("Right Front Drive", CANRole.LEADER, RFrontWheel));
+    bus.register(new SparkMaxDevice("Left Rear Drive", CANRole.FOLLOWER, LRearWheel));
+    bus.register(new SparkMaxDevice("Right Rear Drive", CANRole.FOLLOWER, RRearWheel));
+
+    // Motor rotations to wheel meters, and RPM to meters per second
+    leftEncoder.setPositionConversionFactor(kDriveMetersPerRotation);
+    rightEncoder.setPositionConversionFactor(kDriveMetersPerRotation);
+    leftEncoder.setVelocityConversionFactor(kDriveMetersPerRotation / 60);
+    rightEncoder.setVelocityConversionFactor(kDriveMetersPerRotation / 60);
+  }
+
+  @Override
+  public SpeedController getLeftController() {
+    return LFrontWheel;
+  }
+
+  @Override
+  public SpeedController getRightController() {
+    return RFrontWheel;
+  }
+
+  @Override
+  public double getLeftPosition() {
+    return leftEncoder.getPosition();
+  }
+
+  // The right gearbox is mirrored, so its encoder counts down going forward
+  @Override
+  public double getRightPosition() {
+    return -rightEncoder.getPosition();
+  }
+
+  @Override
+  public double getLeftVelocity() {
+    return leftEncoder.getVelocity();
+  }
+
+  @Override
+  public double getRightVelocity() {
+    return -rightEncoder.getVelocity();
+  }
+
+  @Override
+  public double getGyroAngle() {
+    return gyro.getAngle();
+  }
+
+  @Override
+  public void resetEncoders() {
+    leftEncoder.setPosition(0);
+    rightEncoder.setPosition(0);
+  }
+
+  @Override
+  public void resetGyro() {
+    gyro.reset();
+  }
+}
@@ -0,0 +1,217 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.drive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.geometry.Pose2d;
+import edu.wpi.first.wpilibj.geometry.Rotation2d;
+import edu.wpi.first.wpilibj.trajectory.Trajectory;
+
+/**
+ * Holds one autonomous trajectory per starting position, so choosing a path at autonomous
+ * init is a lookup rather than spline generation.
+ *
+ * <p>On {@link #start()} a background thread loads the trajectories from a file, memory
+ * mapped, or generates them and writes the file for the next boot. The file starts with
+ * a signature of the starting positions and path settings; if that no longer matches,
+ * the file is ignored and rewritten.
+ */
+public class TrajectoryCache implements Runnable {
+  private static final int kMagic = 0x5452414A; // "TRAJ"
+  private static final int kStateBytes = 7 * Double.BYTES;
+
+  private final Path file;
+  private final Map<String, Pose2d> startingPoses;
+  private final Function<Pose2d, Trajectory> generator;
+  private final long signature;
+
+  private final Map<String, Trajectory> trajectories = new ConcurrentHashMap<>();
+  private volatile boolean ready = false;
+
+  /**
+   * @param file where the trajectories are saved between boots
+   * @param startingPoses starting poses by name, e.g. the options of a chooser
+   * @param generator makes the trajectory for a starting pose
+   * @param settings anything else the generator depends on, such as velocity limits or
+   * a path version, so a change invalidates the saved file
+   */
+  public TrajectoryCache(Path file, Map<String, Pose2d> startingPoses,
+      Function<Pose2d, Trajectory> generator, double... settings) {
+    this.file = file;
+    this.startingPoses = startingPoses;
+    this.generator = generator;
+    this.signature = signature(startingPoses, settings);
+  }
+
+  public void start() {
+    Thread thread = new Thread(this, "TrajectoryCache");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Whether every starting position has its trajectory
+   */
+  public boolean isReady() {
+    return ready;
+  }
+
+  /**
+   * Gets the trajectory for a starting pose. If the background thread has not got to it
+   * yet, it is generated here instead.
+   * @return null if there is no starting pose, e.g. nothing chosen on the dashboard
+   */
+  public Trajectory get(Pose2d startingPose) {
+    if (startingPose == null) {
+      DriverStation.reportWarning("No starting pose to get a trajectory for", false);
+      return null;
+    }
+
+    for (Map.Entry<String, Pose2d> entry : startingPoses.entrySet()) {
+      if (entry.getValue().equals(startingPose)) {
+        Trajectory trajectory = trajectories.get(entry.getKey());
+        if (trajectory != null) {
+          return trajectory;
+        }
+        break;
+      }
+    }
+
+    DriverStation.reportWarning("No cached trajectory for " + startingPose + ", generating it now", false);
+    return generator.apply(startingPose);
+  }
+
+  @Override
+  public void run() {
+    if (Files.exists(file)) {
+      try {
+        if (load()) {
+          ready = true;
+          return;
+        }
+
+      } catch (IOException | RuntimeException e) {
+        DriverStation.reportWarning("Could not load " + file + ": " + e.getMessage(), false);
+      }
+    }
+
+    for (Map.Entry<String, Pose2d> entry : startingPoses.entrySet()) {
+      trajectories.put(entry.getKey(), generator.apply(entry.getValue()));
+    }
+    ready = true;
+
+    try {
+      save();
+    } catch (IOException e) {
+      DriverStation.reportWarning("Could not save " + file + ": " + e.getMessage(), false);
+    }
+  }
+
+  /**
+   * @return false if the file was made for different positions or settings
+   */
+  private boolean load() throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+      if (buffer.getInt() != kMagic || buffer.getLong() != signature) {
+        return false;
+      }
+
+      int count = buffer.getInt();
+      for (int i = 0; i < count; i++) {
+        byte[] name = new byte[buffer.getShort()];
+        buffer.get(name);
+
+        int stateCount = buffer.getInt();
+        List<Trajectory.State> states = new ArrayList<>(stateCount);
+        for (int j = 0; j < stateCount; j++) {
+          double time = buffer.getDouble();
+          double velocity = buffer.getDouble();
+          double acceleration = buffer.getDouble();
+          double x = buffer.getDouble();
+          double y = buffer.getDouble();
+          double heading = buffer.getDouble();
+          double curvature = buffer.getDouble();
+          states.add(new Trajectory.State(time, velocity, acceleration,
+            new Pose2d(x, y, new Rotation2d(heading)), curvature));
+        }
+
+        trajectories.put(new String(name, StandardCharsets.UTF_8), new Trajectory(states));
+      }
+    }
+
+    return trajectories.keySet().containsAll(startingPoses.keySet());
+  }
+
+  private void save() throws IOException {
+    int size = Integer.BYTES + Long.BYTES + Integer.BYTES;
+    for (Map.Entry<String, Trajectory> entry : trajectories.entrySet()) {
+      size += Short.BYTES + entry.getKey().getBytes(StandardCharsets.UTF_8).length
+        + Integer.BYTES + entry.getValue().getStates().size() * kStateBytes;
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    buffer.putInt(kMagic);
+    buffer.putLong(signature);
+    buffer.putInt(trajectories.size());
+
+    for (Map.Entry<String, Trajectory> entry : trajectories.entrySet()) {
+      byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+      buffer.putShort((short) name.length);
+      buffer.put(name);
+
+      List<Trajectory.State> states = entry.getValue().getStates();
+      buffer.putInt(states.size());
+      for (Trajectory.State state : states) {
+        buffer.putDouble(state.timeSeconds);
+        buffer.putDouble(state.velocityMetersPerSecond);
+        buffer.putDouble(state.accelerationMetersPerSecondSq);
+        buffer.putDouble(state.poseMeters.getTranslation().getX());
+        buffer.putDouble(state.poseMeters.getTranslation().getY());
+        buffer.putDouble(state.poseMeters.getRotation().getRadians());
+        buffer.putDouble(state.curvatureRadPerMeter);
+      }
+    }
+
+    // Write next to the file then move it over, so a reboot mid-write never leaves half a file
+    Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+    Files.write(temporary, buffer.array());
+    Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  private static long signature(Map<String, Pose2d> startingPoses, double[] settings) {
+    long hash = 17;
+    for (Map.Entry<String, Pose2d> entry : startingPoses.entrySet()) {
+      Pose2d pose = entry.getValue();
+      hash = 31 * hash + entry.getKey().hashCode();
+      hash = 31 * hash + Double.doubleToLongBits(pose.getTranslation().getX());
+      hash = 31 * hash + Double.doubleToLongBits(pose.getTranslation().getY());
+      hash = 31 * hash + Double.doubleToLongBits(pose.getRotation().getRadians());
+    }
+    for (double setting : settings) {
+      hash = 31 * hash + Double.doubleToLongBits(setting);
+    }
+    return hash;
+  }
+}
@@ -0,0 +1,74 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.drive;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import edu.wpi.first.wpilibj.geometry.Pose2d;
+import edu.wpi.first.wpilibj.geometry.Translation2d;
+import edu.wpi.first.wpilibj.trajectory.Trajectory;
+import edu.wpi.first.wpilibj.trajectory.TrajectoryConfig;
+import edu.wpi.first.wpilibj.trajectory.TrajectoryGenerator;
+
+/**
+ * Generates trajectories on a background thread, so a path can be planned from wherever
+ * the robot is without stalling the robot loop. Requests are handled one at a time in
+ * the order they are made.
+ *
+ * <p>Pass in poses captured on the main thread: the drivetrain's pose is only safe to read
+ * there.
+ */
+public final class TrajectoryService {
+  private static TrajectoryService instance;
+
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "TrajectoryService");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private TrajectoryService() {
+  }
+
+  public static synchronized TrajectoryService getInstance() {
+    if (instance == null) {
+      instance = new TrajectoryService();
+    }
+    return instance;
+  }
+
+  /**
+   * Generates a trajectory through the given poses
+   * @return completes with the trajectory, or exceptionally if generation failed
+   */
+  public CompletableFuture<Trajectory> generate(List<Pose2d> waypoints, TrajectoryConfig config) {
+    return CompletableFuture.supplyAsync(
+      () -> TrajectoryGenerator.generateTrajectory(waypoints, config), executor);
+  }
+
+  /**
+   * Generates a trajectory between two poses, passing through the interior points
+   * @return completes with the trajectory, or exceptionally if generation failed
+   */
+  public CompletableFuture<Trajectory> generate(Pose2d start, List<Translation2d> interiorWaypoints,
+      Pose2d end, TrajectoryConfig config) {
+    return CompletableFuture.supplyAsync(
+      () -> TrajectoryGenerator.generateTrajectory(start, interiorWaypoints, end, config), executor);
+  }
+
+  /**
+   * Generates a trajectory straight from one pose to another
+   */
+  public CompletableFuture<Trajectory> generate(Pose2d start, Pose2d end, TrajectoryConfig config) {
+    return generate(Arrays.asList(start, end), config);
+  }
+}
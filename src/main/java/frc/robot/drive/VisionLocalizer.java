@@ -0,0 +1,67 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.drive;
+
+import edu.wpi.first.wpilibj.util.Units;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.telemetry.DataLogger;
+import frc.robot.telemetry.LoopProfiler;
+import frc.robot.vision.Limelight;
+
+import static frc.robot.Constants.*;
+
+/**
+ * Corrects the drivetrain's pose with the limelight's camtran. Each new frame with a
+ * target gives the camera's position relative to the power port, which is turned into a
+ * robot position on the field using the heading at the time the frame was captured.
+ *
+ * <p>Registered after the drivetrain and limelight, so it runs after both have updated
+ * for the loop.
+ */
+public class VisionLocalizer extends SubsystemBase {
+  private final RevDrivetrain drive;
+  private final Limelight vision;
+
+  private final LoopProfiler.Section profile = LoopProfiler.getInstance().section("VisionLocalizer");
+
+  private final DataLogger logger = DataLogger.getInstance();
+  private final int xSignal = logger.addSignal("Vision/Pose X (m)");
+  private final int ySignal = logger.addSignal("Vision/Pose Y (m)");
+  private final int acceptedSignal = logger.addSignal("Vision/Accepted");
+
+  public VisionLocalizer(RevDrivetrain drive, Limelight vision) {
+    this.drive = drive;
+    this.vision = vision;
+  }
+
+  @Override
+  public void periodic() {
+    profile.start();
+    if (vision.hasNewFrame() && vision.validTarget()) {
+      correct(vision.get3DTranslation());
+    }
+    profile.stop();
+  }
+
+  private void correct(double[] translation) {
+    // An unsolved frame comes through as all zeros
+    if (translation.length >= 3 && (translation[0] != 0 || translation[2] != 0)) {
+      double captureTime = vision.getFrameCaptureTime();
+      double heading = Math.toRadians(drive.getAngleAt(captureTime));
+
+      double cameraX = targetFieldX + Units.inchesToMeters(translation[2]);
+      double cameraY = targetFieldY - Units.inchesToMeters(translation[0]);
+      double x = cameraX - (cameraOffsetX * Math.cos(heading) - cameraOffsetY * Math.sin(heading));
+      double y = cameraY - (cameraOffsetX * Math.sin(heading) + cameraOffsetY * Math.cos(heading));
+
+      logger.log(xSignal, x);
+      logger.log(ySignal, y);
+      logger.log(acceptedSignal, drive.addVisionMeasurement(x, y, captureTime));
+    }
+  }
+}
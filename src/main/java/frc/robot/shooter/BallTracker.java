@@ -0,0 +1,226 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.shooter;
+
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.sim.RobotClock;
+import frc.robot.telemetry.DataLogger;
+import frc.robot.telemetry.LoopProfiler;
+
+import static frc.robot.Constants.*;
+
+/**
+ * Counts balls through the robot without a sensor for them. While collecting, a ball
+ * being pulled onto the conveyor shows up as a spike in its current. While shooting, a
+ * ball going through the flywheel shows up as a dip in its RPM.
+ *
+ * <p>A dip is measured from the setpoint, or from a slow average of the velocity when the
+ * shooter is voltage controlled. Dips only count once the wheel has settled there, so
+ * spinning up, changing setpoint and stopping aren't taken for shots.
+ *
+ * <p>Registered after the shooter and conveyor, so it sees their values for this loop.
+ */
+public class BallTracker extends SubsystemBase {
+  private enum ShotState {
+    /**
+     * Not at a steady speed yet
+     */
+    UNSETTLED,
+    /**
+     * At speed, waiting for a dip
+     */
+    ARMED,
+    /**
+     * Slowed by a ball, waiting to recover
+     */
+    DIPPED
+  }
+
+  private final Shooter shooter;
+  private final Conveyor conveyor;
+  private final ChangePosition goalMover;
+
+  private int held = 0;
+  private int ballsIn = 0;
+  private int ballsOut = 0;
+
+  // Shot detection
+  private ShotState shotState = ShotState.UNSETTLED;
+  private double velocityAverage = 0;
+  private double lastSetpoint = Double.NaN;
+  private final double averageGain = kLoopPeriodSeconds / ballBaselineTimeConstant;
+
+  // Intake detection
+  private boolean spiking = false;
+  private double currentAverage = 0;
+  private double conveyorStartTime = Double.NaN;
+
+  // Times of the latest shots, oldest at shotIndex once full
+  private final double[] shotTimes = new double[ballRateShots];
+  private int shotIndex = 0;
+  private int recordedShots = 0;
+
+  private final LoopProfiler.Section profile = LoopProfiler.getInstance().section("BallTracker");
+
+  private final DataLogger logger = DataLogger.getInstance();
+  private final int heldSignal = logger.addSignal("Balls/Held");
+  private final int inSignal = logger.addSignal("Balls/In");
+  private final int outSignal = logger.addSignal("Balls/Out");
+
+  public BallTracker(Shooter shooter, Conveyor conveyor, ChangePosition goalMover) {
+    this.shooter = shooter;
+    this.conveyor = conveyor;
+    this.goalMover = goalMover;
+  }
+
+  /**
+   * Sets how many balls the robot is holding, e.g. the preload at the start of a match
+   */
+  public void setBallCount(int count) {
+    held = count;
+  }
+
+  public int getBallCount() {
+    return held;
+  }
+
+  /**
+   * Whether the last ball the robot held has been shot
+   */
+  public boolean isEmpty() {
+    return held == 0;
+  }
+
+  public int getBallsIn() {
+    return ballsIn;
+  }
+
+  public int getBallsOut() {
+    return ballsOut;
+  }
+
+  /**
+   * Rate of the most recent shots, up to ballRateShots of them
+   * @return shots per second, 0 until there have been two
+   */
+  public double getShotsPerSecond() {
+    if (recordedShots < 2) {
+      return 0;
+    }
+
+    int count = Math.min(recordedShots, shotTimes.length);
+    int newest = (shotIndex - 1 + shotTimes.length) % shotTimes.length;
+    int oldest = (shotIndex - count + shotTimes.length) % shotTimes.length;
+    double span = shotTimes[newest] - shotTimes[oldest];
+    return span > 0 ? (count - 1) / span : 0;
+  }
+
+  @Override
+  public void periodic() {
+    profile.start();
+    update(RobotClock.getTime());
+    profile.stop();
+  }
+
+  /**
+   * One loop's tracking
+   * @param now time in seconds
+   */
+  void update(double now) {
+    if (goalMover.isCollectingPose()) {
+      shotState = ShotState.UNSETTLED;
+      watchIntake(now);
+    } else {
+      conveyorStartTime = Double.NaN;
+      watchShooter(now);
+    }
+
+    logger.log(heldSignal, held);
+    logger.log(inSignal, ballsIn);
+    logger.log(outSignal, ballsOut);
+  }
+
+  private void watchShooter(double now) {
+    double velocity = shooter.getVelocity();
+    double setpoint = shooter.getSetpoint();
+
+    boolean setpointChanged = setpoint != lastSetpoint && !(Double.isNaN(setpoint) && Double.isNaN(lastSetpoint));
+    lastSetpoint = setpoint;
+    if (!shooter.isEngaged() || setpointChanged || velocity < ballMinShotRPM) {
+      shotState = ShotState.UNSETTLED;
+      velocityAverage = velocity;
+      return;
+    }
+
+    double reference = Double.isNaN(setpoint) ? velocityAverage : setpoint;
+    switch (shotState) {
+      case UNSETTLED:
+        if (Math.abs(velocity - reference) <= shooterReadyTolerance) {
+          shotState = ShotState.ARMED;
+        }
+        break;
+
+      case ARMED:
+        if (velocity < reference - ballShotDipRPM) {
+          shotState = ShotState.DIPPED;
+          countShot(now);
+        }
+        break;
+
+      case DIPPED:
+        if (velocity >= reference - shooterSagTolerance) {
+          shotState = ShotState.ARMED;
+        }
+        break;
+    }
+
+    // The average stands in for the setpoint, so it holds still through a dip
+    if (shotState != ShotState.DIPPED) {
+      velocityAverage += (velocity - velocityAverage) * averageGain;
+    }
+  }
+
+  private void countShot(double now) {
+    held = Math.max(0, held - 1);
+    ballsOut++;
+
+    shotTimes[shotIndex] = now;
+    shotIndex = (shotIndex + 1) % shotTimes.length;
+    recordedShots++;
+  }
+
+  private void watchIntake(double now) {
+    double current = conveyor.getCurrent();
+    if (!conveyor.getEngaged()) {
+      conveyorStartTime = Double.NaN;
+      spiking = false;
+      return;
+    }
+
+    // The motor draws a rush of current as it starts, which isn't a ball
+    if (Double.isNaN(conveyorStartTime)) {
+      conveyorStartTime = now;
+    }
+    if (now - conveyorStartTime < ballInrushTime) {
+      currentAverage = current;
+      return;
+    }
+
+    if (!spiking && current > currentAverage + ballCurrentSpike) {
+      spiking = true;
+      held++;
+      ballsIn++;
+    } else if (spiking && current < currentAverage + ballCurrentSpike / 2) {
+      spiking = false;
+    }
+
+    if (!spiking) {
+      currentAverage += (current - currentAverage) * averageGain;
+    }
+  }
+}
@@ -8,23 +8,44 @@
 package frc.robot.shooter;
 
 import edu.wpi.first.wpilibj.Compressor;
-import edu.wpi.first.wpilibj.Solenoid;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.sim.IOMode;
+import frc.robot.sim.PneumaticSolenoidIO;
+import frc.robot.sim.SimSolenoidIO;
+import frc.robot.sim.SolenoidIO;
+import frc.robot.telemetry.EventLog;
 
 import static frc.robot.Constants.*;
 
 public class ChangePosition extends SubsystemBase {
 
-  private Compressor airow = new Compressor(20);
+  private Compressor airow;
 
-  private Solenoid leftPiston = new Solenoid(compressorModule, leftPoseMoverPort);
-  private Solenoid rightPiston = new Solenoid(compressorModule, rightPoseMoverPort);
+  private SolenoidIO leftPiston;
+  private SolenoidIO rightPiston;
 
   private boolean collecting = false;
   public boolean isSwapping = false;
+
+  private final EventLog.Event collectingEvent = EventLog.getInstance().event("Collecting Pose Set", 0);
+  private final EventLog.Event shootingEvent = EventLog.getInstance().event("Shooting Pose Set", 0);
   
   public ChangePosition() {
-    airow.start();
+    if (IOMode.get() == IOMode.REAL) {
+      airow = new Compressor(20);
+      airow.start();
+
+      leftPiston = new PneumaticSolenoidIO(compressorModule, leftPoseMoverPort);
+      rightPiston = new PneumaticSolenoidIO(compressorModule, rightPoseMoverPort);
+    } else {
+      leftPiston = new SimSolenoidIO();
+      rightPiston = new SimSolenoidIO();
+    }
+  }
+
+  public ChangePosition(SolenoidIO left, SolenoidIO right) {
+    leftPiston = left;
+    rightPiston = right;
   }
 
   public boolean isCollectingPose() {
@@ -48,7 +69,7 @@ public class ChangePosition extends SubsystemBase {
     rightPiston.set(true);
 
     collecting = true;
-    System.out.println("Collecting Pose Set");
+    collectingEvent.post();
   }
 
   public void shootPose(){
@@ -56,7 +77,7 @@ public class ChangePosition extends SubsystemBase {
     rightPiston.set(false);
 
     collecting = false;
-    System.out.println("Shooting Pose Set");
+    shootingEvent.post();
   }
 
   @Override
@@ -7,15 +7,16 @@
 
 package frc.robot.shooter;
 
-import com.ctre.phoenix.motorcontrol.can.WPI_TalonSRX;
-
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.can.CANRole;
+import frc.robot.sim.CurrentSensingController;
+import frc.robot.sim.MotorControllers;
 import static frc.robot.Constants.*;
 
 public class Conveyor extends SubsystemBase {
   private ChangePosition goalMover;
 
-  private WPI_TalonSRX conveyor = new WPI_TalonSRX(kConveyorPort);
+  private CurrentSensingController conveyor;
 
   private boolean engaged = false;
 
@@ -23,7 +24,12 @@ public class Conveyor extends SubsystemBase {
    * Creates a new Conveyor.
    */
   public Conveyor(ChangePosition changePosition) {
+    this(changePosition, MotorControllers.talonSRX("Conveyor", kConveyorPort, CANRole.MONITORED));
+  }
+
+  public Conveyor(ChangePosition changePosition, CurrentSensingController motor) {
     goalMover = changePosition;
+    conveyor = motor;
   }
 
   public void stop() {
@@ -69,6 +75,17 @@ public class Conveyor extends SubsystemBase {
     }
   }
 
+  public boolean getEngaged() {
+    return engaged;
+  }
+
+  /**
+   * Current through the conveyor motor in amps
+   */
+  public double getCurrent() {
+    return conveyor.getOutputCurrent();
+  }
+
   @Override
   public void periodic() {
     // This method will be called once per scheduler run
@@ -0,0 +1,88 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.shooter;
+
+import edu.wpi.first.wpilibj2.command.CommandBase;
+
+/**
+ * Runs the plucker and conveyor while the shooter is up to speed, pausing them when the
+ * wheel sags after a ball until it recovers. When collecting, or when the shooter is on a
+ * voltage with no setpoint to reach, the feeders run straight away. Ends when the shooter
+ * is turned off.
+ */
+public class FeedWhenReady extends CommandBase {
+  private final Shooter shooter;
+  private final Plucker plucker;
+  private final Conveyor conveyor;
+  private final ChangePosition goalMover;
+
+  private boolean feeding = false;
+
+  public FeedWhenReady(Shooter shooter, Plucker plucker, Conveyor conveyor, ChangePosition goalMover) {
+    this.shooter = shooter;
+    this.plucker = plucker;
+    this.conveyor = conveyor;
+    this.goalMover = goalMover;
+
+    addRequirements(plucker, conveyor);
+  }
+
+  // Called when the command is initially scheduled.
+  @Override
+  public void initialize() {
+    feeding = false;
+  }
+
+  // Called every time the scheduler runs while the command is scheduled.
+  @Override
+  public void execute() {
+    if (goalMover.isCollectingPose()) {
+      // Intaking doesn't need the wheel at speed
+      setFeeding(true);
+
+    } else if (!shooter.hasSetpoint()) {
+      // Voltage control has no speed to wait for, so feed straight away as the buttons do
+      setFeeding(true);
+
+    } else if (feeding) {
+      setFeeding(!shooter.hasSagged());
+
+    } else {
+      setFeeding(shooter.isReadyToFire());
+    }
+  }
+
+  private void setFeeding(boolean feed) {
+    if (feed == feeding) {
+      return;
+    }
+
+    if (feed) {
+      plucker.setSpeed();
+      conveyor.setSpeed();
+    } else {
+      plucker.stop();
+      conveyor.stop();
+    }
+    feeding = feed;
+  }
+
+  // Called once the command ends or is interrupted.
+  @Override
+  public void end(boolean interrupted) {
+    plucker.stop();
+    conveyor.stop();
+    feeding = false;
+  }
+
+  // Returns true when the command should end.
+  @Override
+  public boolean isFinished() {
+    return !shooter.isEngaged();
+  }
+}
@@ -7,17 +7,18 @@
 
 package frc.robot.shooter;
 
-import com.ctre.phoenix.motorcontrol.can.WPI_TalonSRX;
-
+import edu.wpi.first.wpilibj.SpeedController;
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.can.CANRole;
+import frc.robot.sim.MotorControllers;
 
 import static frc.robot.Constants.*;
 
 public class Plucker extends SubsystemBase {
   private ChangePosition goalMover;
 
-  private WPI_TalonSRX plucker = new WPI_TalonSRX(kPluckerPort);
+  private SpeedController plucker;
 
   private boolean engaged = false;
 
@@ -25,7 +26,12 @@ public class Plucker extends SubsystemBase {
    * Creates a new Plucker.
    */
   public Plucker(ChangePosition changePosition) {
+    this(changePosition, MotorControllers.talonSRX("Plucker", kPluckerPort, CANRole.OPEN_LOOP));
+  }
+
+  public Plucker(ChangePosition changePosition, SpeedController motor) {
     goalMover = changePosition;
+    plucker = motor;
   }
 
   public void stop() {
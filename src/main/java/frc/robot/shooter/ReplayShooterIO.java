@@ -0,0 +1,42 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.shooter;
+
+import frc.robot.sim.LogReplay;
+
+/**
+ * Shooter velocity played back from a log. Outputs go nowhere.
+ */
+public class ReplayShooterIO implements ShooterIO {
+  private final LogReplay.Signal velocity = LogReplay.getInstance().signal(kVelocitySignal);
+
+  public ReplayShooterIO() {
+    SimShooterIO.registerDevices();
+  }
+
+  @Override
+  public void setPID(double kP, double kI, double kD, double kF) {
+  }
+
+  @Override
+  public void setVoltage(double volts) {
+  }
+
+  @Override
+  public void setVelocity(double rpm) {
+  }
+
+  @Override
+  public void stop() {
+  }
+
+  @Override
+  public double getVelocity() {
+    return velocity.get(0);
+  }
+}
@@ -7,63 +7,136 @@
 
 package frc.robot.shooter;
 
-import com.revrobotics.CANEncoder;
-import com.revrobotics.CANPIDController;
-import com.revrobotics.CANSparkMax;
-import com.revrobotics.ControlType;
-import com.revrobotics.CANSparkMaxLowLevel.MotorType;
-
-import edu.wpi.first.wpilibj.util.Units;
+import edu.wpi.first.wpilibj.LinearFilter;
+import edu.wpi.first.wpilibj.controller.SimpleMotorFeedforward;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.sim.IOMode;
+import frc.robot.telemetry.DataLogger;
+import frc.robot.telemetry.LoopProfiler;
 import frc.robot.vision.Limelight;
 
 import static frc.robot.Gains.shooterPID.*;
+import static frc.robot.Gains.shooterFeedforward;
+import static frc.robot.Gains.shooterProfile;
 
 import static frc.robot.Constants.*;
 
 public class Shooter extends SubsystemBase {
+  /**
+   * How the wheel is driven
+   */
+  public enum ControlMode {
+    /**
+     * A fixed voltage, for collecting and plain shooting
+     */
+    VOLTAGE,
+    /**
+     * The Spark Max's own velocity loop
+     */
+    SPARK_PID,
+    /**
+     * Feedforward along an acceleration-limited ramp to the setpoint, with a 
+     * proportional correction from the (optionally Kalman filtered) velocity. Runs on 
+     * the roboRIO and sends the Spark Max a voltage each loop.
+     */
+    PROFILED
+  }
+
   private ChangePosition goalMover;
 
   private Limelight vision;
 
-  private CANSparkMax launcher = new CANSparkMax(kShooterPort, MotorType.kBrushless);
+  // Flywheel motor and encoder, real or simulated
+  private final ShooterIO io;
 
-  private CANEncoder launcherEncoder = launcher.getEncoder();
-  
-  private CANPIDController launcherController = launcher.getPIDController();
+  // Distance to RPM, built once at startup
+  private final ShooterMap shooterMap = ShooterMap.load();
 
   // Create toggle for shooting
   private boolean engaged = false;
 
+  // Velocity being held, NaN when not in velocity control
+  private double setpointRPM = Double.NaN;
+
+  private ControlMode controlMode = ControlMode.VOLTAGE;
+  // What velocity setpoints use
+  private ControlMode velocityMode = ControlMode.PROFILED;
+
+  // Onboard velocity control
+  private final SimpleMotorFeedforward feedforward 
+    = new SimpleMotorFeedforward(shooterFeedforward.ks, shooterFeedforward.kv, shooterFeedforward.ka);
+  private final VelocityKalmanFilter kalmanFilter = new VelocityKalmanFilter(
+    shooterFeedforward.ks, shooterFeedforward.kv, shooterFeedforward.ka, 
+    shooterModelStdDev, shooterMeasurementStdDev);
+  // Where the ramp to the setpoint has got to
+  private double profileReference = 0;
+
+  // Spin-up monitor
+  private final LinearFilter velocityFilter = LinearFilter.singlePoleIIR(shooterFilterTimeConstant, 0.02);
+  private double filteredVelocity = 0;
+  private int stableLoops = 0;
+
+  // Whether the RPM follows the distance to the target
+  private boolean tracking = false;
+  private long trackedFrame = -1;
+
+  private final LoopProfiler.Section profile = LoopProfiler.getInstance().section("Shooter");
+
+  private final DataLogger logger = DataLogger.getInstance();
+  private final int velocitySignal = logger.addSignal(ShooterIO.kVelocitySignal);
+  private final int setpointSignal = logger.addSignal("Shooter/Setpoint (RPM)");
+  private final int referenceSignal = logger.addSignal("Shooter/Reference (RPM)");
+  private final int estimateSignal = logger.addSignal("Shooter/Estimate (RPM)");
+  private final int voltsSignal = logger.addSignal("Shooter/Volts");
+
   public Shooter(ChangePosition changePosition, Limelight limelight) {
+    this(changePosition, limelight, createIO());
+  }
+
+  public Shooter(ChangePosition changePosition, Limelight limelight, ShooterIO shooterIO) {
     // Makes changePosition instance the same as in RobotContainer
     goalMover = changePosition;
     vision = limelight;
+    io = shooterIO;
     // Spark PID Stuff
-    launcherController.setP(kP);
-    launcherController.setI(kI);
-    launcherController.setD(kD); 
-    launcherController.setFF(kF);
+    io.setPID(kP, kI, kD, kF);
 
     //launcherEncoder.setVelocityConversionFactor(factor)
   }
 
 
+  private static ShooterIO createIO() {
+    switch (IOMode.get()) {
+      case REAL:
+        return new SparkMaxShooterIO();
+      case REPLAY:
+        return new ReplayShooterIO();
+      default:
+        return new SimShooterIO();
+    }
+  }
+
   public void collect() {
-    launcher.setVoltage(intakeVolts);
+    io.setVoltage(intakeVolts);
+    setpointRPM = Double.NaN;
+    controlMode = ControlMode.VOLTAGE;
     engaged = true;
   }
 
   public void shoot() {
-    launcher.setVoltage(shooterVolts);
+    io.setVoltage(shooterVolts);
+    setpointRPM = Double.NaN;
+    controlMode = ControlMode.VOLTAGE;
     engaged = true;
   }
 
   public void stop() {
-    launcher.setVoltage(0);
-    launcherController.setReference(0, ControlType.kVoltage);
+    io.stop();
 
+    setpointRPM = Double.NaN;
+    controlMode = ControlMode.VOLTAGE;
     engaged = false;
+    tracking = false;
   }
 
   /**
@@ -99,10 +172,10 @@ public class Shooter extends SubsystemBase {
    */
   public void setSpeedSpark() {
     if (goalMover.isCollectingPose()) {
-      launcherController.setReference(intakeRPM, ControlType.kVelocity);
+      setVelocity(intakeRPM);
 
     } else {
-      launcherController.setReference(shooterRPM, ControlType.kVelocity);
+      setVelocity(shooterRPM);
 
     }
 
@@ -119,45 +192,58 @@ public class Shooter extends SubsystemBase {
     }
   }
 
-  /**
-   * Using a ballistics equation and input distance, converts the output of meters per second
-   * to RPM which can be output by the shooter
-   * @param distance distance from the target
-   * @return Rotations Per Minute (RPM) required to shoot a ball into the goal
-   */
-  private double calculateRPM(double distanceFeet) {
-    // Get the velocity needed to shoot the ball
-    double distance = Units.feetToMeters(distanceFeet);
-    double top = Math.sqrt(-4.9 * Math.pow(distance, 2)); 
-    double bottom = Math.sqrt(Math.pow(Math.cos(Math.toRadians(shooterAngle)), 2) *
-     (highGoalHeight - shooterHeight - Math.tan(shooterAngle) * distance));
-
-    double metersPerSecond = top/bottom;
-
-    double radiansPerSecond = metersPerSecond / kShooterWheelRadiusMeters;
-
-    return Units.radiansPerSecondToRotationsPerMinute(radiansPerSecond);
-  }
-
   /**
    * Sets RPM based on whether the robot is in shooting position or intake position. 
    * If it is in shooting position, calculates the RPM needed for the shooter to 
-   * hit the target.
-   * @param inRPM the velocity in RPM the shooter goes to while in the intake position
+   * hit the target. Cheap enough to call every loop with a changing distance.
    * @param distance the distance in meters from the target
    */
   public void setRelativeSpeedSpark(double distance){
     if (goalMover.isCollectingPose()) {
-      launcherController.setReference(intakeRPM, ControlType.kVelocity);
+      setVelocity(intakeRPM);
       engaged = true;
 
     } else {
-      launcherController.setReference(calculateRPM(distance), ControlType.kVelocity);
+      setVelocity(shooterMap.getRPM(distance));
       engaged = true;
 
     }
   }
 
+  private void setVelocity(double rpm) {
+    if (velocityMode == ControlMode.SPARK_PID) {
+      io.setVelocity(rpm);
+
+    } else if (controlMode != ControlMode.PROFILED) {
+      // Ramp from wherever the wheel is now
+      profileReference = getVelocity();
+      kalmanFilter.reset(profileReference);
+    }
+
+    controlMode = velocityMode;
+    setpointRPM = rpm;
+  }
+
+  /**
+   * Chooses how velocity setpoints are held from now on. A setpoint already being held 
+   * switches over straight away.
+   * @param mode {@link ControlMode#SPARK_PID} or {@link ControlMode#PROFILED}
+   */
+  public void setVelocityMode(ControlMode mode) {
+    if (mode == ControlMode.VOLTAGE || mode == velocityMode) {
+      return;
+    }
+
+    velocityMode = mode;
+    if (controlMode != ControlMode.VOLTAGE) {
+      setVelocity(setpointRPM);
+    }
+  }
+
+  public ControlMode getControlMode() {
+    return controlMode;
+  }
+
   public void toggleRelativeSpeedSpark(double distance) {
     if (engaged) {
       stop();
@@ -167,6 +253,8 @@ public class Shooter extends SubsystemBase {
 
     } else {
       setRelativeSpeedSpark(distance);
+      tracking = true;
+      trackedFrame = vision.getFrameSequence();
 
       vision.visionMode();
       vision.lightOn();
@@ -181,16 +269,99 @@ public class Shooter extends SubsystemBase {
    * Gets the shooter velocity in RPM
    */
   public double getVelocity() {
-    return launcherEncoder.getVelocity();
+    return io.getVelocity();
+  }
+
+  /**
+   * Gets the velocity setpoint in RPM, NaN when the shooter is off or voltage controlled
+   */
+  public double getSetpoint() {
+    return setpointRPM;
+  }
+
+  /**
+   * Whether the filtered velocity has stayed within shooterReadyTolerance of the 
+   * setpoint for shooterReadyLoops loops in a row
+   */
+  public boolean isReadyToFire() {
+    return stableLoops >= shooterReadyLoops;
+  }
+
+  /**
+   * Whether the wheel has slowed too far below the setpoint to shoot, e.g. after a ball.
+   * Always false without a setpoint, as there is nothing to sag below.
+   */
+  public boolean hasSagged() {
+    if (!hasSetpoint()) {
+      return false;
+    }
+    return !(Math.abs(filteredVelocity - setpointRPM) <= shooterSagTolerance);
+  }
+
+  /**
+   * Whether a velocity is being held, rather than a voltage or nothing
+   */
+  public boolean hasSetpoint() {
+    return !Double.isNaN(setpointRPM);
   }
 
   @Override
   public void periodic() {
+    profile.start();
     /*
     if (goalMover.isSwapping) {
       stop();
       goalMover.isSwapping = false;
     }
     */
+
+    io.update(kLoopPeriodSeconds);
+
+    double velocity = getVelocity();
+    logger.log(velocitySignal, velocity);
+    logger.log(setpointSignal, setpointRPM);
+
+    if (controlMode == ControlMode.PROFILED) {
+      runProfile(velocity);
+    }
+
+    filteredVelocity = velocityFilter.calculate(velocity);
+    if (Math.abs(filteredVelocity - setpointRPM) <= shooterReadyTolerance) {
+      stableLoops = Math.min(stableLoops + 1, shooterReadyLoops);
+    } else {
+      // Also resets when there is no setpoint, since NaN compares false
+      stableLoops = 0;
+    }
+
+    // The distance only changes when a new frame arrives
+    if (tracking && vision.getFrameSequence() != trackedFrame) {
+      trackedFrame = vision.getFrameSequence();
+      if (vision.validTarget()) {
+        setRelativeSpeedSpark(vision.getTargetDistanceMeasured(cameraToBallTargetHeight, cameraAngle));
+      }
+    }
+    profile.stop();
+  }
+
+  /**
+   * Moves the reference one loop closer to the setpoint and sends the voltage that
+   * follows it
+   */
+  private void runProfile(double velocity) {
+    double estimate = shooterUseKalmanFilter ? kalmanFilter.correct(velocity) : velocity;
+
+    double maxStep = shooterMaxAcceleration * kLoopPeriodSeconds;
+    double step = Math.max(-maxStep, Math.min(maxStep, setpointRPM - profileReference));
+    profileReference += step;
+
+    double volts = feedforward.calculate(profileReference, step / kLoopPeriodSeconds)
+      + shooterProfile.kP * (profileReference - estimate);
+    volts = Math.max(-shooterMaxVolts, Math.min(shooterMaxVolts, volts));
+    io.setVoltage(volts);
+    kalmanFilter.predict(volts, kLoopPeriodSeconds);
+
+    logger.log(referenceSignal, profileReference);
+    logger.log(estimateSignal, estimate);
+    logger.log(voltsSignal, volts);
   }
 }
@@ -0,0 +1,41 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.shooter;
+
+/**
+ * The shooter flywheel's motor controller and encoder
+ */
+public interface ShooterIO {
+  // Name the input is logged and replayed under
+  String kVelocitySignal = "Shooter/Velocity (RPM)";
+
+  /**
+   * Gains for the motor controller's velocity loop, in its units
+   */
+  void setPID(double kP, double kI, double kD, double kF);
+
+  void setVoltage(double volts);
+
+  /**
+   * Holds a velocity with the motor controller's closed loop
+   */
+  void setVelocity(double rpm);
+
+  void stop();
+
+  /**
+   * Flywheel velocity in RPM
+   */
+  double getVelocity();
+
+  /**
+   * Called once per loop. Simulations advance by the time given.
+   */
+  default void update(double dtSeconds) {
+  }
+}
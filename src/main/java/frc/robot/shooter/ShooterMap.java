@@ -0,0 +1,160 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.shooter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleUnaryOperator;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.util.Units;
+
+import static frc.robot.Constants.*;
+
+/**
+ * Table of shooter RPM against distance to the target, filled once at startup so that
+ * looking up an RPM is a linear interpolation between two array entries.
+ *
+ * <p>The table comes from measured points in deploy/shooter_map.csv when that file exists,
+ * one "distance in meters, RPM" pair per line. Otherwise it is filled from the ballistic
+ * model. Distances outside the table use the nearest end.
+ */
+public class ShooterMap {
+  private static final double kGravity = 9.81;
+
+  private final double minDistance;
+  private final double inverseStep;
+  private final double[] rpms;
+
+  /**
+   * Fills a table by sampling a model at a fixed step.
+   * @param model RPM for a distance in meters
+   */
+  public ShooterMap(double minDistance, double maxDistance, double step, DoubleUnaryOperator model) {
+    this.minDistance = minDistance;
+    inverseStep = 1 / step;
+    rpms = new double[(int) Math.round((maxDistance - minDistance) * inverseStep) + 1];
+
+    for (int i = 0; i < rpms.length; i++) {
+      double distance = minDistance + i * step;
+      rpms[i] = model.applyAsDouble(distance);
+
+      if (!Double.isFinite(rpms[i])) {
+        throw new IllegalArgumentException("Shooter RPM is not a number at " + distance + " meters");
+      }
+    }
+  }
+
+  /**
+   * Loads the calibration file from the deploy directory, falling back to the ballistic
+   * model if it is missing or unreadable.
+   */
+  public static ShooterMap load() {
+    Path file = Filesystem.getDeployDirectory().toPath().resolve(shooterMapFile);
+    if (Files.exists(file)) {
+      try {
+        return fromPoints(readPoints(file));
+
+      } catch (IOException | IllegalArgumentException e) {
+        DriverStation.reportWarning("Could not load " + file + ", using ballistic shooter map: "
+          + e.getMessage(), false);
+      }
+    }
+
+    return new ShooterMap(shooterMapMinDistance, shooterMapMaxDistance, shooterMapStep,
+      ShooterMap::ballisticRPM);
+  }
+
+  /**
+   * Builds a table through measured points, interpolating linearly between them
+   * @param points pairs of {distance in meters, RPM}, sorted by distance
+   */
+  static ShooterMap fromPoints(double[][] points) {
+    if (points.length < 2) {
+      throw new IllegalArgumentException("At least two calibration points are needed");
+    }
+
+    return new ShooterMap(shooterMapMinDistance, shooterMapMaxDistance, shooterMapStep,
+      distance -> interpolate(points, distance));
+  }
+
+  private static double interpolate(double[][] points, double distance) {
+    if (distance <= points[0][0]) {
+      return points[0][1];
+    }
+
+    for (int i = 1; i < points.length; i++) {
+      if (distance <= points[i][0]) {
+        double fraction = (distance - points[i - 1][0]) / (points[i][0] - points[i - 1][0]);
+        return points[i - 1][1] + fraction * (points[i][1] - points[i - 1][1]);
+      }
+    }
+
+    return points[points.length - 1][1];
+  }
+
+  private static double[][] readPoints(Path file) throws IOException {
+    List<double[]> points = new ArrayList<>();
+    for (String line : Files.readAllLines(file)) {
+      line = line.trim();
+      if (line.isEmpty() || line.startsWith("#") || !Character.isDigit(line.charAt(0))) {
+        continue; // Comments and the header
+      }
+
+      String[] values = line.split(",");
+      double distance = Double.parseDouble(values[0].trim());
+      if (!points.isEmpty() && distance <= points.get(points.size() - 1)[0]) {
+        throw new IllegalArgumentException("Distances must be in increasing order");
+      }
+      points.add(new double[] {distance, Double.parseDouble(values[1].trim())});
+    }
+
+    return points.toArray(new double[0][]);
+  }
+
+  /**
+   * Gets the RPM needed to score from a distance. Does not allocate.
+   * @param distance distance from the target in meters
+   */
+  public double getRPM(double distance) {
+    double position = (distance - minDistance) * inverseStep;
+    if (!(position > 0)) {
+      return rpms[0];
+    }
+
+    int index = (int) position;
+    if (index >= rpms.length - 1) {
+      return rpms[rpms.length - 1];
+    }
+
+    double fraction = position - index;
+    return rpms[index] + fraction * (rpms[index + 1] - rpms[index]);
+  }
+
+  /**
+   * Using a ballistics equation and input distance, finds the launch speed needed to put
+   * the ball through the goal and converts it to RPM which can be output by the shooter
+   * @param distance distance from the target in meters
+   * @return Rotations Per Minute (RPM), NaN if the goal can't be reached at the shooter angle
+   */
+  static double ballisticRPM(double distance) {
+    double angle = Math.toRadians(shooterAngle);
+    double cos = Math.cos(angle);
+    double rise = distance * Math.tan(angle) - (highGoalHeight - shooterHeight);
+
+    double metersPerSecond = Math.sqrt(kGravity * distance * distance / (2 * cos * cos * rise));
+
+    double radiansPerSecond = metersPerSecond / kShooterWheelRadiusMeters;
+
+    return Units.radiansPerSecondToRotationsPerMinute(radiansPerSecond);
+  }
+}
@@ -0,0 +1,109 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.shooter;
+
+import edu.wpi.first.wpilibj.util.Units;
+import frc.robot.can.CANBudget;
+import frc.robot.can.CANDevice;
+import frc.robot.can.CANRole;
+import frc.robot.can.SimCANDevice;
+import frc.robot.sim.MotorModel;
+
+import static frc.robot.Constants.*;
+
+/**
+ * Simulated flywheel: one NEO driving simShooterMOI directly, with a velocity loop that 
+ * works like the Spark Max's, running every simStepSeconds with output as a fraction of
+ * the battery voltage.
+ */
+public class SimShooterIO implements ShooterIO {
+  private final MotorModel motor = MotorModel.neo(1);
+
+  private double kP = 0;
+  private double kI = 0;
+  private double kD = 0;
+  private double kF = 0;
+
+  private boolean velocityControl = false;
+  private double volts = 0;
+  private double setpoint = 0;
+  private double integral = 0;
+  private double lastError = 0;
+
+  private double speed = 0; // rad/s
+
+  public SimShooterIO() {
+    registerDevices();
+  }
+
+  /**
+   * Puts a stand-in for the shooter Spark Max in the CAN budget
+   */
+  static void registerDevices() {
+    CANBudget.getInstance().register(new SimCANDevice("Shooter", CANDevice.Type.SPARK_MAX, CANRole.CLOSED_LOOP));
+  }
+
+  @Override
+  public void setPID(double kP, double kI, double kD, double kF) {
+    this.kP = kP;
+    this.kI = kI;
+    this.kD = kD;
+    this.kF = kF;
+  }
+
+  @Override
+  public void setVoltage(double volts) {
+    this.volts = volts;
+    velocityControl = false;
+  }
+
+  @Override
+  public void setVelocity(double rpm) {
+    if (!velocityControl) {
+      integral = 0;
+      lastError = rpm - getVelocity();
+    }
+    setpoint = rpm;
+    velocityControl = true;
+  }
+
+  @Override
+  public void stop() {
+    setVoltage(0);
+  }
+
+  /**
+   * A ball going through the wheel, taking simBallSpeedLoss of its speed
+   */
+  public void shootBall() {
+    speed *= 1 - simBallSpeedLoss;
+  }
+
+  @Override
+  public double getVelocity() {
+    return Units.radiansPerSecondToRotationsPerMinute(speed);
+  }
+
+  @Override
+  public void update(double dtSeconds) {
+    int steps = Math.max(1, (int) Math.round(dtSeconds / simStepSeconds));
+    double step = dtSeconds / steps;
+
+    for (int i = 0; i < steps; i++) {
+      if (velocityControl) {
+        double error = setpoint - getVelocity();
+        integral += error;
+        double output = kF * setpoint + kP * error + kI * integral + kD * (error - lastError);
+        lastError = error;
+        volts = Math.max(-1, Math.min(1, output)) * simBatteryVoltage;
+      }
+
+      speed += motor.getTorque(volts, speed) / simShooterMOI * step;
+    }
+  }
+}
@@ -0,0 +1,64 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.shooter;
+
+import com.revrobotics.CANEncoder;
+import com.revrobotics.CANPIDController;
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.ControlType;
+import com.revrobotics.CANSparkMaxLowLevel.MotorType;
+
+import frc.robot.can.CANBudget;
+import frc.robot.can.CANRole;
+import frc.robot.can.SparkMaxDevice;
+
+import static frc.robot.Constants.*;
+
+/**
+ * The shooter's NEO on a Spark Max, using the Spark's own velocity loop
+ */
+public class SparkMaxShooterIO implements ShooterIO {
+  private CANSparkMax launcher = new CANSparkMax(kShooterPort, MotorType.kBrushless);
+
+  private CANEncoder launcherEncoder = launcher.getEncoder();
+  
+  private CANPIDController launcherController = launcher.getPIDController();
+
+  public SparkMaxShooterIO() {
+    CANBudget.getInstance().register(new SparkMaxDevice("Shooter", CANRole.CLOSED_LOOP, launcher));
+  }
+
+  @Override
+  public void setPID(double kP, double kI, double kD, double kF) {
+    launcherController.setP(kP);
+    launcherController.setI(kI);
+    launcherController.setD(kD); 
+    launcherController.setFF(kF);
+  }
+
+  @Override
+  public void setVoltage(double volts) {
+    launcher.setVoltage(volts);
+  }
+
+  @Override
+  public void setVelocity(double rpm) {
+    launcherController.setReference(rpm, ControlType.kVelocity);
+  }
+
+  @Override
+  public void stop() {
+    launcher.setVoltage(0);
+    launcherController.setReference(0, ControlType.kVoltage);
+  }
+
+  @Override
+  public double getVelocity() {
+    return launcherEncoder.getVelocity();
+  }
+}
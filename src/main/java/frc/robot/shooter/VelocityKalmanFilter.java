@@ -0,0 +1,86 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.shooter;
+
+/**
+ * One-state Kalman filter for a flywheel's velocity. Each loop it predicts where the wheel
+ * is heading from the voltage applied, using the same ks, kv and ka model as the
+ * feedforward, and then blends in the encoder reading by how much each is trusted.
+ * This smooths the reading without the lag of a plain low-pass filter.
+ *
+ * <p>Velocities are in RPM. Nothing allocates after construction.
+ */
+public class VelocityKalmanFilter {
+  private final double modelVariance;
+  private final double measurementVariance;
+
+  private double ks;
+  private double kv;
+  private double ka;
+
+  private double estimate = 0;
+  private double variance;
+
+  /**
+   * @param ks volts to overcome friction
+   * @param kv volts per RPM
+   * @param ka volts per RPM per second
+   * @param modelStdDev how far the model may drift in one prediction, in RPM
+   * @param measurementStdDev encoder noise in RPM
+   */
+  public VelocityKalmanFilter(double ks, double kv, double ka, double modelStdDev, double measurementStdDev) {
+    setModel(ks, kv, ka);
+    modelVariance = modelStdDev * modelStdDev;
+    measurementVariance = measurementStdDev * measurementStdDev;
+    variance = measurementVariance;
+  }
+
+  public void setModel(double ks, double kv, double ka) {
+    this.ks = ks;
+    this.kv = kv;
+    this.ka = ka;
+  }
+
+  /**
+   * Starts over from a known velocity
+   */
+  public void reset(double velocity) {
+    estimate = velocity;
+    variance = measurementVariance;
+  }
+
+  /**
+   * Moves the estimate forward in time with a voltage applied. Without a model (kv of 0)
+   * the estimate stays put and only its uncertainty grows.
+   */
+  public void predict(double volts, double dtSeconds) {
+    if (kv > 0) {
+      // The wheel approaches the speed this voltage holds with time constant ka / kv
+      double decay = ka > 0 ? Math.exp(-kv / ka * dtSeconds) : 0;
+      double steadyState = (volts - ks * Math.signum(estimate)) / kv;
+      estimate = steadyState + (estimate - steadyState) * decay;
+      variance = decay * decay * variance;
+    }
+    variance += modelVariance;
+  }
+
+  /**
+   * Blends in an encoder reading
+   * @return the new estimate in RPM
+   */
+  public double correct(double measuredVelocity) {
+    double gain = variance / (variance + measurementVariance);
+    estimate += gain * (measuredVelocity - estimate);
+    variance *= 1 - gain;
+    return estimate;
+  }
+
+  public double getEstimate() {
+    return estimate;
+  }
+}
@@ -0,0 +1,20 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.sim;
+
+import edu.wpi.first.wpilibj.SpeedController;
+
+/**
+ * A motor controller that can also say how much current its motor is drawing
+ */
+public interface CurrentSensingController extends SpeedController {
+  /**
+   * Motor current in amps
+   */
+  double getOutputCurrent();
+}
@@ -0,0 +1,24 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.sim;
+
+import com.ctre.phoenix.motorcontrol.can.WPI_TalonSRX;
+
+/**
+ * A Talon SRX reporting its stator current, the current through the motor
+ */
+public class CurrentSensingTalonSRX extends WPI_TalonSRX implements CurrentSensingController {
+  public CurrentSensingTalonSRX(int deviceNumber) {
+    super(deviceNumber);
+  }
+
+  @Override
+  public double getOutputCurrent() {
+    return getStatorCurrent();
+  }
+}
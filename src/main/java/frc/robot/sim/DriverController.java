@@ -0,0 +1,41 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.sim;
+
+import edu.wpi.first.wpilibj.XboxController;
+
+/**
+ * An Xbox controller read through {@link DriverInputs}, so its axes and buttons are logged
+ * and come back in a replay. Reads are as of the start of the loop. Only the raw axis, 
+ * button and POV reads, and the helpers and {@link 
+ * edu.wpi.first.wpilibj2.command.button.JoystickButton}s built on them, go through here; 
+ * the pressed and released edges still come straight from the driver station.
+ */
+public class DriverController extends XboxController {
+  private final DriverInputs.Controller inputs;
+
+  public DriverController(int port) {
+    super(port);
+    inputs = DriverInputs.getInstance().addController(port);
+  }
+
+  @Override
+  public double getRawAxis(int axis) {
+    return inputs.getAxis(axis);
+  }
+
+  @Override
+  public boolean getRawButton(int button) {
+    return inputs.getButton(button);
+  }
+
+  @Override
+  public int getPOV(int pov) {
+    return pov == 0 ? inputs.getPOV() : -1;
+  }
+}
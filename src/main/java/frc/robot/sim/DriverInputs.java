@@ -0,0 +1,258 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.sim;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.wpi.first.hal.sim.DriverStationSim;
+import edu.wpi.first.wpilibj.DriverStation;
+import frc.robot.telemetry.DataLogger;
+
+/**
+ * What the drivers give the robot: the mode the driver station is in, the controllers' 
+ * axes and buttons, and the game message. Read once at the start of each loop and logged.
+ * In a replay they come from the log instead, so the robot goes through the same mode
+ * changes and sees the same stick moves as it did in the match.
+ */
+public class DriverInputs {
+  private static DriverInputs instance;
+
+  // Driver station modes, as logged
+  public static final int kDisabled = 0;
+  public static final int kAutonomous = 1;
+  public static final int kTeleop = 2;
+  public static final int kTest = 3;
+
+  public static final String kModeSignal = "DS/Mode";
+  // The first character of the game message, 0 when there is none
+  public static final String kGameMessageSignal = "DS/Game Message";
+
+  // An Xbox controller's worth, enough for every controller the robot uses
+  static final int kAxes = 6;
+  static final int kButtons = 10;
+
+  // How long a replay waits for the simulated driver station to take a new mode
+  private static final long kModeTimeoutNanos = 1000000000L;
+
+  private final DataLogger logger = DataLogger.getInstance();
+  private final int modeSignal = logger.addSignal(kModeSignal);
+  private final int gameMessageSignal = logger.addSignal(kGameMessageSignal);
+
+  // Null unless replaying
+  private final LogReplay replay;
+  private final LogReplay.Signal replayMode;
+  private final LogReplay.Signal replayGameMessage;
+
+  private final List<Controller> controllers = new ArrayList<>();
+
+  int mode = kDisabled;
+  String gameMessage = "";
+  private int simulatedMode = -1;
+
+  /**
+   * One controller's inputs, as of the last {@link DriverInputs#update}
+   */
+  public final class Controller {
+    private final int port;
+    final double[] axes = new double[kAxes];
+    // Bit n - 1 is button n, as the driver station reports them
+    int buttons = 0;
+    int pov = -1;
+
+    private final int[] axisSignals = new int[kAxes];
+    private final int buttonsSignal;
+    private final int povSignal;
+
+    private final LogReplay.Signal[] replayAxes = new LogReplay.Signal[kAxes];
+    private final LogReplay.Signal replayButtons;
+    private final LogReplay.Signal replayPOV;
+
+    private Controller(int port) {
+      this.port = port;
+      String prefix = "HID " + port + "/";
+      for (int i = 0; i < kAxes; i++) {
+        axisSignals[i] = logger.addSignal(prefix + "Axis " + i);
+        replayAxes[i] = replay == null ? null : replay.signal(prefix + "Axis " + i);
+      }
+      buttonsSignal = logger.addSignal(prefix + "Buttons");
+      povSignal = logger.addSignal(prefix + "POV");
+      replayButtons = replay == null ? null : replay.signal(prefix + "Buttons");
+      replayPOV = replay == null ? null : replay.signal(prefix + "POV");
+    }
+
+    public int getPort() {
+      return port;
+    }
+
+    public double getAxis(int axis) {
+      return axis < kAxes ? axes[axis] : 0;
+    }
+
+    /**
+     * @param button numbered from 1, as on the driver station
+     */
+    public boolean getButton(int button) {
+      return button >= 1 && button <= kButtons && (buttons & (1 << (button - 1))) != 0;
+    }
+
+    /**
+     * Angle of the first POV hat in degrees, or -1 when it is not pressed
+     */
+    public int getPOV() {
+      return pov;
+    }
+
+    private void read(DriverStation ds) {
+      for (int i = 0; i < kAxes; i++) {
+        axes[i] = ds.getStickAxis(port, i);
+      }
+      buttons = ds.getStickButtons(port) & ((1 << kButtons) - 1);
+      pov = ds.getStickPOV(port, 0);
+    }
+
+    private void readReplay() {
+      for (int i = 0; i < kAxes; i++) {
+        axes[i] = replayAxes[i].get(0);
+      }
+      buttons = (int) replayButtons.get(0);
+      pov = (int) replayPOV.get(-1);
+    }
+
+    private void log() {
+      for (int i = 0; i < kAxes; i++) {
+        logger.log(axisSignals[i], axes[i]);
+      }
+      logger.log(buttonsSignal, buttons);
+      logger.log(povSignal, pov);
+    }
+  }
+
+  /**
+   * Reads from the driver station, or from the log when replaying
+   */
+  public static synchronized DriverInputs getInstance() {
+    if (instance == null) {
+      instance = new DriverInputs(IOMode.get() == IOMode.REPLAY ? LogReplay.getInstance() : null);
+    }
+    return instance;
+  }
+
+  /**
+   * @param replay log to read the inputs from, or null to read the driver station
+   */
+  DriverInputs(LogReplay replay) {
+    this.replay = replay;
+    replayMode = replay == null ? null : replay.signal(kModeSignal);
+    replayGameMessage = replay == null ? null : replay.signal(kGameMessageSignal);
+  }
+
+  /**
+   * Reads and logs a controller from now on, or gets the one already added on this port.
+   * Call this at construction, not in a periodic method.
+   */
+  public synchronized Controller addController(int port) {
+    for (Controller controller : controllers) {
+      if (controller.port == port) {
+        return controller;
+      }
+    }
+
+    Controller controller = new Controller(port);
+    controllers.add(controller);
+    return controller;
+  }
+
+  /**
+   * Reads this loop's inputs and logs them. Call once at the start of each loop, before 
+   * anything reads them.
+   */
+  public void update() {
+    if (replay == null) {
+      read();
+    } else {
+      readReplay();
+    }
+
+    logger.log(modeSignal, mode);
+    logger.log(gameMessageSignal, gameMessage.isEmpty() ? 0 : gameMessage.charAt(0));
+    for (Controller controller : controllers) {
+      controller.log();
+    }
+  }
+
+  /**
+   * Reads the driver station
+   */
+  void read() {
+    DriverStation ds = DriverStation.getInstance();
+    mode = getMode(ds);
+    gameMessage = ds.getGameSpecificMessage();
+    for (Controller controller : controllers) {
+      controller.read(ds);
+    }
+  }
+
+  private void readReplay() {
+    mode = (int) replayMode.get(kDisabled);
+    int message = (int) replayGameMessage.get(0);
+    gameMessage = message == 0 ? "" : String.valueOf((char) message);
+    for (Controller controller : controllers) {
+      controller.readReplay();
+    }
+  }
+
+  private static int getMode(DriverStation ds) {
+    if (ds.isDisabled()) {
+      return kDisabled;
+    }
+    if (ds.isAutonomous()) {
+      return kAutonomous;
+    }
+    return ds.isTest() ? kTest : kTeleop;
+  }
+
+  /**
+   * One of kDisabled, kAutonomous, kTeleop or kTest
+   */
+  public int getMode() {
+    return mode;
+  }
+
+  public String getGameSpecificMessage() {
+    return gameMessage;
+  }
+
+  /**
+   * Puts the mode into the simulated driver station, where the robot's mode changes and
+   * the command scheduler read it. Waits until the driver station reports the new mode,
+   * since it only rereads it now and then, so the loop that follows runs in it.
+   */
+  public void putModeInSimulation() {
+    if (mode == simulatedMode) {
+      return;
+    }
+
+    DriverStationSim sim = new DriverStationSim();
+    sim.setDsAttached(true);
+    sim.setEnabled(mode != kDisabled);
+    sim.setAutonomous(mode == kAutonomous);
+    sim.setTest(mode == kTest);
+    sim.notifyNewData();
+
+    DriverStation ds = DriverStation.getInstance();
+    long deadline = System.nanoTime() + kModeTimeoutNanos;
+    while (getMode(ds) != mode) {
+      if (System.nanoTime() > deadline) {
+        throw new IllegalStateException("The simulated driver station did not change to mode " + mode);
+      }
+      Thread.yield();
+    }
+    simulatedMode = mode;
+  }
+}
@@ -0,0 +1,28 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.sim;
+
+import edu.wpi.first.wpilibj.RobotBase;
+
+/**
+ * Which devices the subsystems talk to: the robot's hardware, a simulation, or the 
+ * inputs recorded in a log file.
+ */
+public enum IOMode {
+  REAL, SIM, REPLAY;
+
+  /**
+   * Real on the robot. On the desktop, replay when a replay log is set, otherwise sim.
+   */
+  public static IOMode get() {
+    if (RobotBase.isReal()) {
+      return REAL;
+    }
+    return LogReplay.isEnabled() ? REPLAY : SIM;
+  }
+}
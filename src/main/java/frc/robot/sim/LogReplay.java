@@ -0,0 +1,165 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.sim;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.wpi.first.wpilibj.Filesystem;
+import frc.robot.telemetry.DataLogReader;
+
+import static frc.robot.Constants.*;
+
+/**
+ * Plays back the signals in a {@link frc.robot.telemetry.DataLogger} file. The replay IO
+ * classes read their inputs from here instead of from hardware, so the subsystems run
+ * their normal logic on what the robot saw during a match.
+ *
+ * <p>Replay time only moves when {@link #advance} is called, once per robot loop, so a 
+ * replay gives the same result every run and can be stepped as fast as the caller likes.
+ */
+public final class LogReplay {
+  private static LogReplay instance;
+
+  // Logs are stamped to the microsecond, so replay time only needs to be that close
+  private static final double kTimeTolerance = 1e-6;
+
+  private final Map<String, Signal> signals = new HashMap<>();
+  private final double startTime;
+  private final double endTime;
+  private volatile double now;
+
+  /**
+   * The recorded values of one signal.
+   */
+  public final class Signal {
+    private double[] times = new double[64];
+    private double[] values = new double[64];
+    private int size = 0;
+
+    // Number of samples at or before the time of the last lookup
+    private int count = 0;
+    private double countTime = Double.NEGATIVE_INFINITY;
+
+    private void add(double time, double value) {
+      if (size == times.length) {
+        times = Arrays.copyOf(times, size * 2);
+        values = Arrays.copyOf(values, size * 2);
+      }
+      times[size] = time;
+      values[size] = value;
+      size++;
+    }
+
+    private void seek() {
+      double time = now;
+      if (time < countTime) {
+        count = 0;
+      }
+      while (count < size && times[count] <= time + kTimeTolerance) {
+        count++;
+      }
+      countTime = time;
+    }
+
+    /**
+     * The most recent value at the current replay time
+     * @param defaultValue returned before the first sample
+     */
+    public double get(double defaultValue) {
+      seek();
+      return count == 0 ? defaultValue : values[count - 1];
+    }
+
+    /**
+     * Number of samples recorded up to the current replay time. Goes up when a new 
+     * sample arrives, even if it has the same value.
+     */
+    public int getCount() {
+      seek();
+      return count;
+    }
+  }
+
+  /**
+   * Reads a whole log. Package-private for tests; the robot uses {@link #getInstance}.
+   */
+  LogReplay(Path file) throws IOException {
+    DataLogReader reader = new DataLogReader(file);
+    double first = Double.NaN;
+    double last = Double.NaN;
+    while (reader.next()) {
+      if (Double.isNaN(first)) {
+        first = reader.getTimestamp();
+      }
+      last = reader.getTimestamp();
+      signals.computeIfAbsent(reader.getName(), name -> new Signal())
+        .add(reader.getTimestamp(), reader.getValue());
+    }
+
+    startTime = Double.isNaN(first) ? 0 : first;
+    endTime = Double.isNaN(last) ? 0 : last;
+    now = startTime;
+  }
+
+  /**
+   * Whether a replay log is set in replayLogFile
+   */
+  public static boolean isEnabled() {
+    return !replayLogFile.isEmpty();
+  }
+
+  public static synchronized LogReplay getInstance() {
+    if (instance == null) {
+      Path file = Filesystem.getOperatingDirectory().toPath().resolve(replayLogFile);
+      try {
+        instance = new LogReplay(file);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Could not read replay log " + file, e);
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * Gets a signal by the name it was logged under. A signal missing from the log has no 
+   * samples, so it always reads its default.
+   */
+  public Signal signal(String name) {
+    return signals.computeIfAbsent(name, key -> new Signal());
+  }
+
+  /**
+   * Moves replay time forward by one loop
+   */
+  public void advance(double dtSeconds) {
+    now += dtSeconds;
+  }
+
+  /**
+   * Replay time, in the FPGA seconds of the recorded match
+   */
+  public double getTime() {
+    return now;
+  }
+
+  public double getStartTime() {
+    return startTime;
+  }
+
+  /**
+   * Whether replay time has gone past the last sample in the log
+   */
+  public boolean isFinished() {
+    return now > endTime + kTimeTolerance;
+  }
+}
@@ -0,0 +1,40 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.sim;
+
+import frc.robot.can.CANBudget;
+import frc.robot.can.CANDevice;
+import frc.robot.can.CANRole;
+import frc.robot.can.SimCANDevice;
+import frc.robot.can.TalonSRXDevice;
+
+/**
+ * Creates the motor controllers for subsystems that only send outputs. With no inputs 
+ * to play back, replay uses the same stand-in as simulation.
+ */
+public final class MotorControllers {
+  private MotorControllers() {
+  }
+
+  /**
+   * A Talon SRX on the robot, otherwise a {@link SimSpeedController}. Either way it is
+   * registered in the CAN budget.
+   * @param name what to call it in the CAN budget
+   */
+  public static CurrentSensingController talonSRX(String name, int deviceNumber, CANRole role) {
+    CANBudget bus = CANBudget.getInstance();
+    if (IOMode.get() == IOMode.REAL) {
+      CurrentSensingTalonSRX talon = new CurrentSensingTalonSRX(deviceNumber);
+      bus.register(new TalonSRXDevice(name, role, talon));
+      return talon;
+    }
+
+    bus.register(new SimCANDevice(name, CANDevice.Type.TALON_SRX, role));
+    return new SimSpeedController();
+  }
+}
@@ -0,0 +1,60 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.sim;
+
+import edu.wpi.first.wpilibj.util.Units;
+
+/**
+ * Brushed DC motor model, linear in voltage and speed, built from a motor's datasheet
+ * values at 12 volts. Friction is left out, so an unloaded motor settles at its free
+ * speed. Several identical motors geared together act as one with their torque and 
+ * current added up.
+ */
+public class MotorModel {
+  private static final double kNominalVoltage = 12;
+
+  private final double resistance;
+  private final double kv; // rad/s per volt
+  private final double kt; // Nm per amp
+  private final int count;
+
+  public MotorModel(double freeSpeedRPM, double stallTorque, double stallCurrent, int count) {
+    resistance = kNominalVoltage / stallCurrent;
+    kv = Units.rotationsPerMinuteToRadiansPerSecond(freeSpeedRPM) / kNominalVoltage;
+    kt = stallTorque / stallCurrent;
+    this.count = count;
+  }
+
+  public static MotorModel neo(int count) {
+    return new MotorModel(5676, 2.6, 105, count);
+  }
+
+  public static MotorModel cim(int count) {
+    return new MotorModel(5330, 2.41, 131, count);
+  }
+
+  public static MotorModel bag(int count) {
+    return new MotorModel(13180, 0.43, 53, count);
+  }
+
+  /**
+   * Current drawn by all the motors together
+   * @param speed motor speed in rad/s
+   */
+  public double getCurrent(double voltage, double speed) {
+    return count * (voltage - speed / kv) / resistance;
+  }
+
+  /**
+   * Torque of all the motors together, in Nm
+   * @param speed motor speed in rad/s
+   */
+  public double getTorque(double voltage, double speed) {
+    return kt * getCurrent(voltage, speed);
+  }
+}
@@ -0,0 +1,31 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.sim;
+
+import edu.wpi.first.wpilibj.Solenoid;
+
+/**
+ * A solenoid on the pneumatics control module
+ */
+public class PneumaticSolenoidIO implements SolenoidIO {
+  private final Solenoid solenoid;
+
+  public PneumaticSolenoidIO(int moduleNumber, int channel) {
+    solenoid = new Solenoid(moduleNumber, channel);
+  }
+
+  @Override
+  public void set(boolean on) {
+    solenoid.set(on);
+  }
+
+  @Override
+  public boolean get() {
+    return solenoid.get();
+  }
+}
@@ -0,0 +1,43 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.sim;
+
+import java.util.function.DoubleSupplier;
+
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * The time the robot code goes by. On the robot and in the simulation this is the FPGA 
+ * time. In a replay it is the time in the log, which only moves when the replay loop
+ * advances it, so the same log always gives the same result.
+ *
+ * <p>Anything that times, stamps or compares times should read this rather than 
+ * {@link Timer#getFPGATimestamp()}.
+ */
+public final class RobotClock {
+  private static volatile DoubleSupplier source =
+    IOMode.get() == IOMode.REPLAY ? LogReplay.getInstance()::getTime : Timer::getFPGATimestamp;
+
+  private RobotClock() {
+  }
+
+  /**
+   * Current time in seconds
+   */
+  public static double getTime() {
+    return source.getAsDouble();
+  }
+
+  /**
+   * Takes the time from something that steps it itself, such as a test running loops
+   * faster than real time. Set it before anything starts timing.
+   */
+  public static void setSource(DoubleSupplier time) {
+    source = time;
+  }
+}
@@ -0,0 +1,25 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.sim;
+
+/**
+ * Solenoid with no hardware behind it, which remembers the state it was set to
+ */
+public class SimSolenoidIO implements SolenoidIO {
+  private boolean on = false;
+
+  @Override
+  public void set(boolean on) {
+    this.on = on;
+  }
+
+  @Override
+  public boolean get() {
+    return on;
+  }
+}
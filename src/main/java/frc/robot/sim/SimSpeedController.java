@@ -0,0 +1,81 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.sim;
+
+import edu.wpi.first.wpilibj.SpeedController;
+
+import static frc.robot.Constants.*;
+
+/**
+ * Motor controller with no hardware behind it. It holds the output it was given for a 
+ * simulation to read, and reports whatever current the simulation says the motor draws.
+ */
+public class SimSpeedController implements CurrentSensingController {
+  private double speed = 0;
+  private boolean inverted = false;
+  private double loadCurrent = 0;
+
+  @Override
+  public void set(double speed) {
+    this.speed = Math.max(-1, Math.min(1, speed));
+  }
+
+  @Override
+  public void setVoltage(double outputVolts) {
+    set(outputVolts / simBatteryVoltage);
+  }
+
+  @Override
+  public double get() {
+    return speed;
+  }
+
+  /**
+   * Output voltage, after inversion
+   */
+  public double getVoltage() {
+    return (inverted ? -speed : speed) * simBatteryVoltage;
+  }
+
+  /**
+   * Sets the current the motor draws while it is running, e.g. to simulate a ball
+   */
+  public void setLoadCurrent(double amps) {
+    loadCurrent = amps;
+  }
+
+  @Override
+  public double getOutputCurrent() {
+    return speed != 0 ? loadCurrent : 0;
+  }
+
+  @Override
+  public void setInverted(boolean isInverted) {
+    inverted = isInverted;
+  }
+
+  @Override
+  public boolean getInverted() {
+    return inverted;
+  }
+
+  @Override
+  public void disable() {
+    speed = 0;
+  }
+
+  @Override
+  public void stopMotor() {
+    speed = 0;
+  }
+
+  @Override
+  public void pidWrite(double output) {
+    set(output);
+  }
+}
@@ -0,0 +1,143 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.telemetry;
+
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * Publishes values to SmartDashboard only when they change. Keys are registered once and
+ * referred to by an integer handle afterwards, so the periodic path never looks up an entry
+ * or allocates. Each key has its own deadband and minimum publish period.
+ */
+public class DashboardPublisher {
+  private static final int kNumber = 0;
+  private static final int kBoolean = 1;
+  private static final int kString = 2;
+
+  private final NetworkTableEntry[] entries;
+  private final int[] types;
+  private final double[] lastValues;
+  private final String[] lastStrings;
+  private final double[] deadbands;
+  private final double[] periods;
+  private final double[] lastPublishTimes;
+
+  private int size = 0;
+  private double now = 0;
+
+  /**
+   * Creates a publisher with room for a fixed number of keys.
+   * @param capacity maximum number of keys that can be registered
+   */
+  public DashboardPublisher(int capacity) {
+    entries = new NetworkTableEntry[capacity];
+    types = new int[capacity];
+    lastValues = new double[capacity];
+    lastStrings = new String[capacity];
+    deadbands = new double[capacity];
+    periods = new double[capacity];
+    lastPublishTimes = new double[capacity];
+  }
+
+  /**
+   * Registers a number key.
+   * @param deadband smallest change from the last published value that gets published
+   * @param periodSeconds minimum time between two publishes of this key
+   * @return handle used to set the value
+   */
+  public int addNumber(String key, double deadband, double periodSeconds) {
+    return add(key, kNumber, deadband, periodSeconds);
+  }
+
+  public int addBoolean(String key, double periodSeconds) {
+    return add(key, kBoolean, 0, periodSeconds);
+  }
+
+  public int addString(String key, double periodSeconds) {
+    return add(key, kString, 0, periodSeconds);
+  }
+
+  private int add(String key, int type, double deadband, double periodSeconds) {
+    if (size == entries.length) {
+      throw new IllegalStateException("Dashboard publisher is full, cannot add " + key);
+    }
+
+    int handle = size++;
+    entries[handle] = SmartDashboard.getEntry(key);
+    types[handle] = type;
+    lastValues[handle] = Double.NaN;
+    deadbands[handle] = deadband;
+    periods[handle] = periodSeconds;
+    lastPublishTimes[handle] = Double.NEGATIVE_INFINITY;
+    return handle;
+  }
+
+  /**
+   * Sets the time used for rate limiting. Call once per loop before setting values.
+   * @param timestamp current time in seconds
+   */
+  public void setTime(double timestamp) {
+    now = timestamp;
+  }
+
+  public void setNumber(int handle, double value) {
+    double last = lastValues[handle];
+    // NaN never compares, so the first value always goes out
+    if (Math.abs(value - last) <= deadbands[handle] || !due(handle)) {
+      return;
+    }
+
+    entries[handle].setDouble(value);
+    lastValues[handle] = value;
+    lastPublishTimes[handle] = now;
+  }
+
+  public void setBoolean(int handle, boolean value) {
+    double asNumber = value ? 1 : 0;
+    if (lastValues[handle] == asNumber || !due(handle)) {
+      return;
+    }
+
+    entries[handle].setBoolean(value);
+    lastValues[handle] = asNumber;
+    lastPublishTimes[handle] = now;
+  }
+
+  /**
+   * Strings are compared by reference, so pass constants (enum names, literals) rather
+   * than strings built every loop.
+   */
+  public void setString(int handle, String value) {
+    if (lastStrings[handle] == value || !due(handle)) {
+      return;
+    }
+
+    entries[handle].setString(value);
+    lastStrings[handle] = value;
+    lastPublishTimes[handle] = now;
+  }
+
+  /**
+   * Reads a number back from the dashboard, for values the drivers can edit.
+   */
+  public double getNumber(int handle, double defaultValue) {
+    return entries[handle].getDouble(defaultValue);
+  }
+
+  /**
+   * Gets the value this publisher last wrote for a number key, or NaN if none.
+   */
+  public double getLastNumber(int handle) {
+    return lastValues[handle];
+  }
+
+  private boolean due(int handle) {
+    return now - lastPublishTimes[handle] >= periods[handle];
+  }
+}
@@ -0,0 +1,136 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.telemetry;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a file written by {@link DataLogger}, one sample at a time. Run it on its own to
+ * turn a log into CSV:
+ *
+ * <pre>
+ * java -cp build/classes/java/main frc.robot.telemetry.DataLogReader log_12_1602999000000.bin [out.csv]
+ * </pre>
+ */
+public class DataLogReader {
+  private final ByteBuffer buffer;
+  private final List<String> names = new ArrayList<>();
+
+  private int signal;
+  private long micros;
+  private double value;
+
+  public DataLogReader(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    if (buffer.remaining() < Integer.BYTES || buffer.getInt() != DataLogger.kMagic) {
+      throw new IOException(file + " is not a robot log");
+    }
+  }
+
+  /**
+   * Moves to the next sample, reading any signal definitions on the way
+   * @return false at the end of the file, or at a record cut off by a reboot
+   */
+  public boolean next() {
+    while (buffer.hasRemaining()) {
+      int start = buffer.position();
+      byte type = buffer.get();
+
+      if (type == DataLogger.kDefinition && buffer.remaining() >= 2 * Short.BYTES) {
+        int id = buffer.getShort();
+        int length = buffer.getShort();
+        if (buffer.remaining() < length) {
+          break;
+        }
+
+        byte[] name = new byte[length];
+        buffer.get(name);
+        while (names.size() <= id) {
+          names.add(null);
+        }
+        names.set(id, new String(name, StandardCharsets.UTF_8));
+
+      } else if (type == DataLogger.kSample && buffer.remaining() >= DataLogger.kSampleBytes - 1) {
+        signal = buffer.getShort();
+        micros = buffer.getLong();
+        value = buffer.getDouble();
+        return true;
+
+      } else {
+        buffer.position(start);
+        break;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Handle of the current sample's signal
+   */
+  public int getSignal() {
+    return signal;
+  }
+
+  public String getName() {
+    return getName(signal);
+  }
+
+  public String getName(int signal) {
+    return signal < names.size() ? names.get(signal) : null;
+  }
+
+  /**
+   * FPGA time of the current sample in seconds
+   */
+  public double getTimestamp() {
+    return micros / 1e6;
+  }
+
+  public double getValue() {
+    return value;
+  }
+
+  /**
+   * Writes every sample as a "time,signal,value" row
+   */
+  public void exportCSV(PrintStream out) {
+    out.println("time,signal,value");
+    while (next()) {
+      out.println(getTimestamp() + "," + getName() + "," + getValue());
+    }
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.err.println("Usage: DataLogReader <log file> [csv file]");
+      System.exit(1);
+    }
+
+    DataLogReader reader = new DataLogReader(Paths.get(args[0]));
+    if (args.length > 1) {
+      try (PrintStream out = new PrintStream(args[1], "UTF-8")) {
+        reader.exportCSV(out);
+      }
+    } else {
+      reader.exportCSV(System.out);
+    }
+  }
+}
@@ -0,0 +1,406 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.telemetry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+
+import static frc.robot.Constants.*;
+
+/**
+ * Records numeric signals to a binary file for looking at after a match. Signals are
+ * registered once by name and logged through an integer handle. Logging copies the value
+ * into a preallocated ring buffer, and a background thread writes the buffer out in
+ * batches, so the robot loop never touches the file system.
+ *
+ * <p>The ring has a single producer: only log from the main robot thread. If the writer
+ * falls behind and the ring fills, new records are dropped and counted.
+ *
+ * <p>Each file is named with a number counting up from the last file and the time in
+ * milliseconds, e.g. log_12_1602999000000.bin, since the roboRIO's clock may not be set
+ * when logging starts and can't be used to order them. A new file is started once
+ * one reaches loggerMaxFileBytes, and the oldest files are deleted to stay within
+ * loggerMaxFiles and loggerMaxBytes, so logging never fills the disk.
+ *
+ * <p>Files are read back with {@link DataLogReader}.
+ */
+public final class DataLogger implements Runnable {
+  private static DataLogger instance;
+
+  // File format
+  static final int kMagic = 0x4652434C; // "FRCL"
+  static final byte kDefinition = 0; // short id, short length, UTF-8 name
+  static final byte kSample = 1; // short id, long microseconds, double value
+  static final int kSampleBytes = 1 + Short.BYTES + Long.BYTES + Double.BYTES;
+
+  private static final long kMicrosPerSecond = 1000000;
+
+  // Ring buffer, written by the main thread and read by the writer thread
+  private final int mask;
+  private final long[] times;
+  private final short[] ids;
+  private final double[] values;
+  private volatile long head = 0;
+  private volatile long tail = 0;
+  private long dropped = 0;
+
+  private final String[] names = new String[loggerMaxSignals];
+  private volatile int signalCount = 0;
+
+  private final Map<Command, Integer> commandSignals = new IdentityHashMap<>();
+  // Commands that were never added, which can't get a signal once the loop is running
+  private final Integer otherCommandsSignal;
+
+  private final long flushPeriodMillis;
+
+  private long now = 0;
+  private boolean running = false;
+  private volatile boolean stopping = false;
+  private Thread writer;
+
+  private Path directory;
+  private FileChannel channel;
+  private long fileBytes = 0;
+  private final ByteBuffer batch = ByteBuffer.allocateDirect(64 * 1024);
+  private int definedCount = 0;
+
+  /**
+   * @param capacity records the ring holds, rounded down to a power of two
+   * @param flushPeriod seconds the writer waits between writes
+   */
+  DataLogger(int capacity, double flushPeriod) {
+    capacity = Integer.highestOneBit(capacity);
+    mask = capacity - 1;
+    times = new long[capacity];
+    ids = new short[capacity];
+    values = new double[capacity];
+    otherCommandsSignal = addSignal("Command/other");
+    flushPeriodMillis = Math.round(flushPeriod * 1000);
+  }
+
+  public static synchronized DataLogger getInstance() {
+    if (instance == null) {
+      instance = new DataLogger(loggerCapacity, loggerFlushPeriod);
+    }
+    return instance;
+  }
+
+  /**
+   * Registers a signal, or gets the handle of one already registered with this name.
+   * Call this at construction, not in a periodic method.
+   * @return handle used to log the signal
+   */
+  public synchronized int addSignal(String name) {
+    int count = signalCount;
+    for (int i = 0; i < count; i++) {
+      if (names[i].equals(name)) {
+        return i;
+      }
+    }
+
+    if (count == names.length) {
+      throw new IllegalStateException("Too many logged signals, cannot add " + name);
+    }
+
+    names[count] = name;
+    signalCount = count + 1;
+    return count;
+  }
+
+  /**
+   * Opens a new log file in the logs directory and starts the writer thread. Until this
+   * is called, logged values are discarded.
+   */
+  public void start() {
+    start(Filesystem.getOperatingDirectory().toPath().resolve(logDirectory));
+  }
+
+  /**
+   * Like {@link #start()}, but logs into the given directory
+   */
+  public void start(Path logs) {
+    if (running) {
+      return;
+    }
+
+    try {
+      directory = logs;
+      Files.createDirectories(directory);
+      openFile();
+      stopping = false;
+
+    } catch (IOException e) {
+      DriverStation.reportWarning("Could not open a log file, logging is off: " + e.getMessage(), false);
+      return;
+    }
+
+    running = true;
+    writer = new Thread(this, "DataLogger");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  /**
+   * Stops logging and waits for the writer thread to write out everything logged so far
+   * and close the file
+   */
+  public void stop() {
+    if (!running) {
+      return;
+    }
+
+    running = false;
+    stopping = true;
+    try {
+      writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Gives a command a signal of its own, named after it and numbered if another signal
+   * already has the name. Call this at construction for every command that may be
+   * scheduled; one the scheduler runs without it is logged under "Command/other".
+   */
+  public synchronized void addCommand(Command command) {
+    if (commandSignals.containsKey(command)) {
+      return;
+    }
+
+    String name = "Command/" + command.getName();
+    String unique = name;
+    for (int copy = 2; hasSignal(unique); copy++) {
+      unique = name + " " + copy;
+    }
+    commandSignals.put(command, addSignal(unique));
+  }
+
+  private boolean hasSignal(String name) {
+    for (int i = 0; i < signalCount; i++) {
+      if (names[i].equals(name)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Logs the start and end of every command the scheduler runs, as 1 when it starts,
+   * 0 when it finishes and -1 when it is interrupted.
+   */
+  public void logCommands(CommandScheduler scheduler) {
+    scheduler.onCommandInitialize(command -> logCommand(command, 1));
+    scheduler.onCommandFinish(command -> logCommand(command, 0));
+    scheduler.onCommandInterrupt(command -> logCommand(command, -1));
+  }
+
+  void logCommand(Command command, double state) {
+    // Never adds a signal here: running out would throw out of the robot loop
+    log(commandSignals.getOrDefault(command, otherCommandsSignal), state);
+  }
+
+  /**
+   * Sets the timestamp for the records that follow. Call once at the start of each loop.
+   * @param seconds FPGA time in seconds
+   */
+  public void setTime(double seconds) {
+    now = Math.round(seconds * kMicrosPerSecond);
+  }
+
+  /**
+   * Logs a value at the current loop time. Does not allocate or block.
+   * @param signal handle from {@link #addSignal}
+   */
+  public void log(int signal, double value) {
+    if (!running) {
+      return;
+    }
+
+    long index = head;
+    if (index - tail > mask) {
+      dropped++;
+      return;
+    }
+
+    int slot = (int) index & mask;
+    times[slot] = now;
+    ids[slot] = (short) signal;
+    values[slot] = value;
+    head = index + 1;
+  }
+
+  /**
+   * Logs a boolean as 1 or 0
+   */
+  public void log(int signal, boolean value) {
+    log(signal, value ? 1 : 0);
+  }
+
+  /**
+   * Number of records dropped because the ring buffer was full
+   */
+  public long getDroppedCount() {
+    return dropped;
+  }
+
+  /**
+   * Number of records logged but not written out yet
+   */
+  public long getBacklog() {
+    return head - tail;
+  }
+
+  @Override
+  public void run() {
+    try {
+      while (!stopping && !Thread.currentThread().isInterrupted()) {
+        drain();
+
+        try {
+          Thread.sleep(flushPeriodMillis);
+        } catch (InterruptedException e) {
+          break;
+        }
+      }
+
+      drain();
+      channel.close();
+
+    } catch (IOException e) {
+      DriverStation.reportWarning("Logging stopped: " + e.getMessage(), false);
+    }
+  }
+
+  /**
+   * Writes everything in the ring to the file
+   */
+  private void drain() throws IOException {
+    long end = head;
+    // Signals are registered before they are logged, so reading the count after head
+    // covers every id up to end
+    int count = signalCount;
+    for (; definedCount < count; definedCount++) {
+      byte[] name = names[definedCount].getBytes(StandardCharsets.UTF_8);
+      if (batch.remaining() < 1 + 2 * Short.BYTES + name.length) {
+        flush();
+      }
+      batch.put(kDefinition);
+      batch.putShort((short) definedCount);
+      batch.putShort((short) name.length);
+      batch.put(name);
+    }
+
+    for (long index = tail; index < end; index++) {
+      if (batch.remaining() < kSampleBytes) {
+        flush();
+        tail = index;
+      }
+
+      int slot = (int) index & mask;
+      batch.put(kSample);
+      batch.putShort(ids[slot]);
+      batch.putLong(times[slot]);
+      batch.putDouble(values[slot]);
+    }
+
+    flush();
+    tail = end;
+
+    if (fileBytes >= loggerMaxFileBytes) {
+      channel.close();
+      openFile();
+    }
+  }
+
+  /**
+   * Starts the next log file, after deleting old ones to make room for it. Its signal
+   * definitions are written by the next drain.
+   */
+  private void openFile() throws IOException {
+    List<Path> logs = listLogs(directory);
+    long boot = logs.isEmpty() ? 1 : getBoot(logs.get(logs.size() - 1)) + 1;
+    deleteOldest(logs, loggerMaxFiles - 1, loggerMaxBytes - loggerMaxFileBytes);
+
+    Path file = directory.resolve("log_" + boot + "_" + System.currentTimeMillis() + ".bin");
+    channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    fileBytes = 0;
+    definedCount = 0;
+    batch.putInt(kMagic);
+  }
+
+  /**
+   * The log files in a directory, oldest first
+   */
+  static List<Path> listLogs(Path directory) throws IOException {
+    List<Path> logs = new ArrayList<>();
+    try (Stream<Path> files = Files.list(directory)) {
+      files.filter(file -> file.getFileName().toString().matches("log_.*\\.bin"))
+        .sorted(Comparator.comparingLong(DataLogger::getBoot).thenComparing(Path::toString))
+        .forEach(logs::add);
+    }
+    return logs;
+  }
+
+  /**
+   * The number a log file was given when it was started, 0 for names without one
+   */
+  private static long getBoot(Path log) {
+    String[] parts = log.getFileName().toString().split("[_.]");
+    if (parts.length != 4) {
+      return 0;
+    }
+    try {
+      return Long.parseLong(parts[1]);
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  /**
+   * Deletes logs, oldest first, until no more than maxFiles and maxBytes are left
+   * @param logs oldest first, as from listLogs; the deleted ones are removed
+   */
+  static void deleteOldest(List<Path> logs, int maxFiles, long maxBytes) throws IOException {
+    long bytes = 0;
+    for (Path log : logs) {
+      bytes += Files.size(log);
+    }
+
+    while (!logs.isEmpty() && (logs.size() > maxFiles || bytes > maxBytes)) {
+      Path oldest = logs.remove(0);
+      bytes -= Files.size(oldest);
+      Files.delete(oldest);
+    }
+  }
+
+  private void flush() throws IOException {
+    batch.flip();
+    fileBytes += batch.remaining();
+    while (batch.hasRemaining()) {
+      channel.write(batch);
+    }
+    batch.clear();
+  }
+}
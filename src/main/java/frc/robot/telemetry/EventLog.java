@@ -0,0 +1,194 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.telemetry;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static frc.robot.Constants.*;
+
+/**
+ * Prints messages to the console from a background thread, so the robot loop never waits
+ * on console output. Messages are registered once as an {@link Event} and posted through
+ * it; repeats of an event within its period are counted rather than queued.
+ *
+ * <p>Posting is lock free and safe from any thread. The queue is bounded; when it is full
+ * the message is dropped and counted in {@link #getDroppedCount()}.
+ */
+public final class EventLog implements Runnable {
+  private static EventLog instance;
+
+  // Bounded multi-producer queue: each slot's sequence says whose turn it is
+  private final int mask;
+  private final AtomicLongArray sequences;
+  private final Event[] events;
+  private final int[] repeats;
+  private final long[] times;
+  private final AtomicLong enqueuePosition = new AtomicLong();
+  private long dequeuePosition = 0;
+
+  private final AtomicLong dropped = new AtomicLong();
+
+  private final PrintStream out;
+  private final long startTime = System.nanoTime();
+
+  /**
+   * A message that can be posted repeatedly, at most once per period.
+   */
+  public final class Event {
+    private final String message;
+    private final long periodNanos;
+
+    private final AtomicLong lastPostTime = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicInteger suppressed = new AtomicInteger();
+
+    private Event(String message, double periodSeconds) {
+      this.message = message;
+      this.periodNanos = Math.round(periodSeconds * 1e9);
+    }
+
+    /**
+     * Queues the message. Does not block or allocate.
+     * @return false if it was rate limited or dropped
+     */
+    public boolean post() {
+      long now = System.nanoTime();
+      if (periodNanos > 0) {
+        long last = lastPostTime.get();
+        // Losing the race to another thread posting the same event also counts as a repeat
+        if ((last != Long.MIN_VALUE && now - last < periodNanos) || !lastPostTime.compareAndSet(last, now)) {
+          suppressed.incrementAndGet();
+          return false;
+        }
+      }
+
+      return offer(this, suppressed.getAndSet(0), now);
+    }
+  }
+
+  EventLog(int capacity, PrintStream out) {
+    capacity = Integer.highestOneBit(capacity);
+    mask = capacity - 1;
+    sequences = new AtomicLongArray(capacity);
+    events = new Event[capacity];
+    repeats = new int[capacity];
+    times = new long[capacity];
+    for (int i = 0; i < capacity; i++) {
+      sequences.set(i, i);
+    }
+
+    this.out = out;
+  }
+
+  public static synchronized EventLog getInstance() {
+    if (instance == null) {
+      instance = new EventLog(eventLogCapacity, System.out);
+
+      Thread thread = new Thread(instance, "EventLog");
+      thread.setDaemon(true);
+      thread.start();
+    }
+    return instance;
+  }
+
+  /**
+   * Registers a message, repeated at most once per eventRepeatPeriod
+   */
+  public Event event(String message) {
+    return event(message, eventRepeatPeriod);
+  }
+
+  /**
+   * Registers a message. Call this at construction, not in a periodic method.
+   * @param periodSeconds minimum time between two prints of the message, 0 for every post
+   */
+  public Event event(String message, double periodSeconds) {
+    return new Event(message, periodSeconds);
+  }
+
+  private boolean offer(Event event, int repeated, long time) {
+    long position = enqueuePosition.get();
+    while (true) {
+      int slot = (int) position & mask;
+      long difference = sequences.get(slot) - position;
+
+      if (difference == 0) {
+        if (enqueuePosition.compareAndSet(position, position + 1)) {
+          events[slot] = event;
+          repeats[slot] = repeated;
+          times[slot] = time;
+          sequences.lazySet(slot, position + 1);
+          return true;
+        }
+        position = enqueuePosition.get();
+
+      } else if (difference < 0) {
+        // The consumer has not freed this slot yet, so the queue is full
+        dropped.incrementAndGet();
+        event.suppressed.addAndGet(repeated);
+        return false;
+
+      } else {
+        position = enqueuePosition.get();
+      }
+    }
+  }
+
+  /**
+   * Prints every queued message. Only the drain thread calls this.
+   * @return number of messages printed
+   */
+  int drain() {
+    int count = 0;
+    while (true) {
+      int slot = (int) dequeuePosition & mask;
+      if (sequences.get(slot) != dequeuePosition + 1) {
+        return count;
+      }
+
+      Event event = events[slot];
+      int repeated = repeats[slot];
+      long time = times[slot];
+      events[slot] = null;
+      sequences.lazySet(slot, dequeuePosition + mask + 1);
+      dequeuePosition++;
+
+      StringBuilder line = new StringBuilder();
+      line.append('[').append(String.format("%.3f", (time - startTime) / 1e9)).append("] ");
+      line.append(event.message);
+      if (repeated > 0) {
+        line.append(" (repeated ").append(repeated).append(" more times)");
+      }
+      out.println(line);
+      count++;
+    }
+  }
+
+  /**
+   * Number of messages dropped because the queue was full
+   */
+  public long getDroppedCount() {
+    return dropped.get();
+  }
+
+  @Override
+  public void run() {
+    long periodMillis = Math.round(eventDrainPeriod * 1000);
+    while (!Thread.currentThread().isInterrupted()) {
+      drain();
+
+      try {
+        Thread.sleep(periodMillis);
+      } catch (InterruptedException e) {
+        return;
+      }
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.telemetry;
+
+import java.util.Arrays;
+
+/**
+ * Log-linear histogram of durations in microseconds, in the style of HdrHistogram.
+ * Values below 32 us get their own bucket; above that every power of two is split into
+ * 16 buckets, so any reported value is within about 6% of the real one. All storage is
+ * allocated up front and recording never allocates.
+ */
+public class LatencyHistogram {
+  private static final int kSubBucketBits = 4;
+  private static final int kSubBucketCount = 1 << kSubBucketBits;
+  private static final int kLinearLimit = kSubBucketCount * 2;
+
+  // Largest power of two tracked, 2^31 us is about 35 minutes
+  private static final int kMaxExponent = 31;
+
+  private final long[] counts = new long[indexOf(1L << (kMaxExponent + 1)) + 1];
+
+  private long totalCount = 0;
+  private long maxValue = 0;
+
+  public void record(long micros) {
+    if (micros < 0) {
+      micros = 0;
+    }
+
+    counts[Math.min(indexOf(micros), counts.length - 1)]++;
+    totalCount++;
+    if (micros > maxValue) {
+      maxValue = micros;
+    }
+  }
+
+  public long getCount() {
+    return totalCount;
+  }
+
+  public long getMax() {
+    return maxValue;
+  }
+
+  /**
+   * Gets the value below which the given fraction of recorded values fall.
+   * @param percentile fraction from 0 to 1, e.g. 0.99
+   * @return duration in microseconds, 0 if nothing has been recorded
+   */
+  public long getPercentile(double percentile) {
+    if (totalCount == 0) {
+      return 0;
+    }
+
+    long target = Math.max(1, (long) Math.ceil(percentile * totalCount));
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= target) {
+        return Math.min(highestValueAt(i), maxValue);
+      }
+    }
+    return maxValue;
+  }
+
+  public void reset() {
+    Arrays.fill(counts, 0);
+    totalCount = 0;
+    maxValue = 0;
+  }
+
+  private static int indexOf(long value) {
+    if (value < kLinearLimit) {
+      return (int) value;
+    }
+
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int shift = exponent - kSubBucketBits;
+    return shift * kSubBucketCount + (int) (value >>> shift);
+  }
+
+  private static long highestValueAt(int index) {
+    if (index < kLinearLimit) {
+      return index;
+    }
+
+    int shift = index / kSubBucketCount - 1;
+    long subBucket = index % kSubBucketCount + kSubBucketCount;
+    return ((subBucket + 1) << shift) - 1;
+  }
+}
@@ -0,0 +1,254 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.telemetry;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+
+import static frc.robot.Constants.*;
+
+/**
+ * Times each part of the robot loop into preallocated histograms and puts the p50, p99 and
+ * max of every section on the dashboard. Subsystems time their periodic() with a
+ * {@link Section}. Every command the scheduler runs is timed from its hooks, once
+ * {@link #profileCommands} is called, each command instance in a section of its own if
+ * it was added with {@link #addCommand}, or else together in "Command/other".
+ */
+public final class LoopProfiler {
+  private static LoopProfiler instance;
+
+  private static final double kNanosPerMicro = 1000.0;
+
+  private final Section[] sections = new Section[profilerMaxSections];
+  private int sectionCount = 0;
+
+  private final Section cycle;
+  // Commands that were never added, which can't get a section once the loop is running
+  private final Section otherCommands;
+
+  private final DashboardPublisher dashboard
+    = new DashboardPublisher(profilerMaxSections * 3 + 2);
+  private final int overrunKey = dashboard.addBoolean("Profiler/Overrun", 0);
+  private final int overrunCountKey = dashboard.addNumber("Profiler/Overruns", 0, 0);
+
+  // Section of each command, by instance, so commands sharing a name are kept apart
+  private final Map<Command, Section> commandSections = new IdentityHashMap<>();
+  // When the scheduler last finished something, from where the next execute() is timed
+  private long commandMark = 0;
+
+  private long overrunCount = 0;
+  private boolean overrun = false;
+  private double lastPublishTime = 0;
+
+  /**
+   * One timed part of the loop, e.g. a subsystem's periodic().
+   */
+  public final class Section {
+    private final String name;
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final int p50Key;
+    private final int p99Key;
+    private final int maxKey;
+
+    private long startTime;
+
+    private Section(String name) {
+      this.name = name;
+      p50Key = dashboard.addNumber("Profiler/" + name + " p50 (us)", 0, 0);
+      p99Key = dashboard.addNumber("Profiler/" + name + " p99 (us)", 0, 0);
+      maxKey = dashboard.addNumber("Profiler/" + name + " max (us)", 0, 0);
+    }
+
+    public void start() {
+      startTime = System.nanoTime();
+    }
+
+    /**
+     * @return the time since start() in microseconds
+     */
+    public long stop() {
+      return record(System.nanoTime() - startTime);
+    }
+
+    private long record(long nanos) {
+      long micros = Math.round(nanos / kNanosPerMicro);
+      histogram.record(micros);
+      return micros;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public long getP50() {
+      return histogram.getPercentile(0.5);
+    }
+
+    public long getP99() {
+      return histogram.getPercentile(0.99);
+    }
+
+    public long getMax() {
+      return histogram.getMax();
+    }
+
+    private void publish() {
+      dashboard.setNumber(p50Key, getP50());
+      dashboard.setNumber(p99Key, getP99());
+      dashboard.setNumber(maxKey, getMax());
+    }
+  }
+
+  private LoopProfiler() {
+    cycle = section("Loop");
+    otherCommands = section("Command/other");
+  }
+
+  public static synchronized LoopProfiler getInstance() {
+    if (instance == null) {
+      instance = new LoopProfiler();
+    }
+    return instance;
+  }
+
+  /**
+   * Gets the section with the given name, creating it the first time.
+   * Call this at construction, not in a periodic method.
+   */
+  public Section section(String name) {
+    for (int i = 0; i < sectionCount; i++) {
+      if (sections[i].name.equals(name)) {
+        return sections[i];
+      }
+    }
+
+    if (sectionCount == sections.length) {
+      throw new IllegalStateException("Too many profiler sections, cannot add " + name);
+    }
+
+    Section section = new Section(name);
+    sections[sectionCount++] = section;
+    return section;
+  }
+
+  /**
+   * Gets a new section, numbering the name if another section already has it
+   */
+  private Section uniqueSection(String name) {
+    String unique = name;
+    for (int copy = 2; hasSection(unique); copy++) {
+      unique = name + " " + copy;
+    }
+    return section(unique);
+  }
+
+  private boolean hasSection(String name) {
+    for (int i = 0; i < sectionCount; i++) {
+      if (sections[i].name.equals(name)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Gives a command its own section, named after it. Call this at construction for every
+   * command that may be scheduled; one the scheduler runs without it is timed in
+   * "Command/other".
+   */
+  public void addCommand(Command command) {
+    if (!commandSections.containsKey(command)) {
+      commandSections.put(command, uniqueSection("Command/" + command.getName()));
+    }
+  }
+
+  /**
+   * Times the execute() of every command the scheduler runs. The scheduler calls the
+   * execute hook straight after execute(), so each command is timed from the previous
+   * hook, or from the end of the subsystems' periodic() for the first command of a loop.
+   * That also takes in the isFinished() of the command before it, and the button polling
+   * before the first, which are normally trivial. Call this once every subsystem has been
+   * created.
+   */
+  public void profileCommands(CommandScheduler scheduler) {
+    // Registered after every other subsystem, so its periodic() runs last
+    new CommandMarker();
+
+    scheduler.onCommandExecute(command -> {
+      long now = System.nanoTime();
+      // Never adds a section here: running out would throw out of the robot loop
+      commandSections.getOrDefault(command, otherCommands).record(now - commandMark);
+      commandMark = now;
+    });
+    scheduler.onCommandInitialize(command -> markCommands());
+    scheduler.onCommandFinish(command -> markCommands());
+    scheduler.onCommandInterrupt(command -> markCommands());
+  }
+
+  private void markCommands() {
+    commandMark = System.nanoTime();
+  }
+
+  /**
+   * Marks the end of the subsystems' periodic() calls, where the scheduler moves on to
+   * commands
+   */
+  private class CommandMarker extends SubsystemBase {
+    @Override
+    public void periodic() {
+      markCommands();
+    }
+  }
+
+  /**
+   * Call at the very start of robotPeriodic().
+   */
+  public void startCycle() {
+    cycle.start();
+  }
+
+  /**
+   * Call at the very end of robotPeriodic(). Flags the cycle if it took longer than the
+   * loop period, and publishes the statistics about once a second.
+   */
+  public void endCycle() {
+    long cycleMicros = cycle.stop();
+    overrun = cycleMicros > loopPeriodMicros;
+    if (overrun) {
+      overrunCount++;
+    }
+
+    double now = Timer.getFPGATimestamp();
+    dashboard.setTime(now);
+    dashboard.setBoolean(overrunKey, overrun);
+    dashboard.setNumber(overrunCountKey, overrunCount);
+
+    if (now - lastPublishTime >= profilerPublishPeriod) {
+      for (int i = 0; i < sectionCount; i++) {
+        sections[i].publish();
+      }
+      lastPublishTime = now;
+    }
+  }
+
+  /**
+   * Whether the last cycle took longer than the loop period
+   */
+  public boolean isOverrun() {
+    return overrun;
+  }
+
+  public long getOverrunCount() {
+    return overrunCount;
+  }
+}
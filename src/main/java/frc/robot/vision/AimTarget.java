@@ -12,7 +12,6 @@ import edu.wpi.first.wpilibj2.command.CommandBase;
 import edu.wpi.first.wpiutil.math.MathUtil;
 import frc.robot.drive.RevDrivetrain;
 
-import static frc.robot.Constants.*;
 import static frc.robot.Gains.*;
 
 public class AimTarget extends CommandBase {
@@ -21,6 +20,13 @@ public class AimTarget extends CommandBase {
 
   private PIDController angleCorrector 
     = new PIDController(angleCorrection.kP, angleCorrection.kI, angleCorrection.kD);
+
+  // Gyro heading that points at the target, found from the latest camera frame
+  private double targetAngle = 0;
+  private boolean hasTarget = false;
+
+  // The frame the target angle came from
+  private long frameSequence = -1;
   
   /**
    * Creates a new FollowTarget.
@@ -39,6 +45,8 @@ public class AimTarget extends CommandBase {
   @Override
   public void initialize() {
     angleCorrector.setSetpoint(0);
+    hasTarget = false;
+    frameSequence = -1;
     vision.lightOn();
     vision.visionMode();
   }
@@ -46,13 +54,18 @@ public class AimTarget extends CommandBase {
   // Called every time the scheduler runs while the command is scheduled.
   @Override
   public void execute() {
+    updateTargetAngle();
+
+    // Between frames, the remaining error comes from the gyro
+    double remainingError = hasTarget ? drive.getAngle() - targetAngle : 0;
+
     // Passing aim PID output to the drive
     drive.getDifferentialDrive().arcadeDrive(
       0, // Stationary while rotating
       // Angle Correction
       MathUtil.clamp(
         // Calculate what to do based off measurement
-        angleCorrector.calculate(-vision.getXError()),
+        angleCorrector.calculate(-remainingError),
         // Min, Max output
         -0.5, 0.5),
       // No squared inputs
@@ -60,6 +73,22 @@ public class AimTarget extends CommandBase {
     );
   }
 
+  /**
+   * When a new frame arrives, works out the heading the robot had when the frame was 
+   * captured, so the x error is applied to that heading rather than the current one.
+   */
+  private void updateTargetAngle() {
+    long sequence = vision.getFrameSequence();
+    if (sequence == frameSequence || !vision.validTarget()) {
+      return; // Same frame as last loop
+    }
+
+    targetAngle = drive.getAngleAt(vision.getFrameCaptureTime()) - vision.getXError();
+    hasTarget = true;
+
+    frameSequence = sequence;
+  }
+
   // Called once the command ends or is interrupted.
   @Override
   public void end(boolean interrupted) {
@@ -7,136 +7,238 @@
 
 package frc.robot.vision;
 
-import edu.wpi.first.networktables.NetworkTable;
-import edu.wpi.first.networktables.NetworkTableEntry;
-import edu.wpi.first.networktables.NetworkTableInstance;
+import java.util.function.Supplier;
+
+import edu.wpi.first.wpilibj.geometry.Pose2d;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.sim.IOMode;
+import frc.robot.sim.RobotClock;
+import frc.robot.telemetry.DashboardPublisher;
+import frc.robot.telemetry.DataLogger;
+import frc.robot.telemetry.LatencyHistogram;
+import frc.robot.telemetry.LoopProfiler;
+
+import static frc.robot.Constants.*;
 
 /**
- * Configures limelight settings
+ * Configures limelight settings. 
+ * 
+ * <p>Targeting values are read as whole frames, latched once per loop, so every getter 
+ * in one loop sees the same frame.
+ *
+ * <p>In vision mode the pipeline is picked by distance to the target, see
+ * {@link PipelineScheduler}. Frames still in flight from the previous pipeline after a
+ * switch are skipped, so a frame is only used once the limelight reports running the
+ * pipeline asked for. If it hasn't after pipelineSwitchTimeout, the pipeline it is on is
+ * used instead. The pipeline latency, tl, of the frames used is kept per pipeline.
  */
 public class Limelight extends SubsystemBase {
 
+    // The camera, real or simulated
+    private final VisionIO io;
+
+    // The newest frame from the camera, and the one used during this loop
+    private final LimelightFrame incoming = new LimelightFrame();
+    private final LimelightFrame frame = new LimelightFrame();
+    private boolean newFrame = false;
+
+    private final PipelineScheduler scheduler = new PipelineScheduler();
+    private boolean scheduling = false;
+    private int requestedPipeline = limelightWidePipeline;
+    private double switchRequestTime = 0;
+    private long switchingFrames = 0;
+
+    // tl of the frames used, by pipeline
+    private static final int kPipelineCount = 10;
+    private final LatencyHistogram[] pipelineLatency = new LatencyHistogram[kPipelineCount];
+
+    private final DashboardPublisher dashboard = new DashboardPublisher(4);
+    private final int wideLatencyP50 = dashboard.addNumber("Limelight/Wide tl p50 (ms)", 0, 0);
+    private final int wideLatencyP99 = dashboard.addNumber("Limelight/Wide tl p99 (ms)", 0, 0);
+    private final int zoomLatencyP50 = dashboard.addNumber("Limelight/Zoom tl p50 (ms)", 0, 0);
+    private final int zoomLatencyP99 = dashboard.addNumber("Limelight/Zoom tl p99 (ms)", 0, 0);
+    private double lastPublishTime = 0;
+
+    private final LoopProfiler.Section profile = LoopProfiler.getInstance().section("Limelight");
+
+    private final DataLogger logger = DataLogger.getInstance();
+    private final int txSignal = logger.addSignal(VisionIO.kTxSignal);
+    private final int tySignal = logger.addSignal(VisionIO.kTySignal);
+    private final int taSignal = logger.addSignal(VisionIO.kTaSignal);
+    private final int tvSignal = logger.addSignal(VisionIO.kTvSignal);
+    private final int tlSignal = logger.addSignal(VisionIO.kTlSignal);
+    private final int pipelineSignal = logger.addSignal(VisionIO.kPipelineSignal);
+
+    public Limelight() {
+        this(Pose2d::new);
+    }
+
+    /**
+     * @param robotPose where the robot is, used to place the target when simulating
+     */
+    public Limelight(Supplier<Pose2d> robotPose) {
+        this(createIO(robotPose));
+    }
+
+    public Limelight(VisionIO visionIO) {
+        io = visionIO;
+        for (int i = 0; i < pipelineLatency.length; i++) {
+            pipelineLatency[i] = new LatencyHistogram();
+        }
 
-    private static final NetworkTable table = NetworkTableInstance.getDefault().getTable("limelight");
-        
-    private NetworkTableEntry tx = table.getEntry("tx");
-    private NetworkTableEntry ty = table.getEntry("ty");
-    private NetworkTableEntry ta = table.getEntry("ta");
-    private NetworkTableEntry tv = table.getEntry("tv");
-    private NetworkTableEntry ts = table.getEntry("ts");
-    private NetworkTableEntry tl = table.getEntry("tl");
-    private NetworkTableEntry camtran = table.getEntry("camtran");
+        io.setPipeline(requestedPipeline);
+    }
 
-    private NetworkTableEntry ledMode = table.getEntry("ledMode");
-    private NetworkTableEntry camMode = table.getEntry("camMode");
-    private NetworkTableEntry pipeline = table.getEntry("pipeline");
-    private NetworkTableEntry stream = table.getEntry("stream");
-    private NetworkTableEntry snapshot = table.getEntry("snapshot");
+    private static VisionIO createIO(Supplier<Pose2d> robotPose) {
+        switch (IOMode.get()) {
+            case REAL:
+                return new NetworkTablesVisionIO();
+            case REPLAY:
+                return new ReplayVisionIO();
+            default:
+                return new SimVisionIO(robotPose);
+        }
+    }
 
     /**
-     * Sets limelight to vision processing mode
+     * Sets limelight to vision processing mode, picking the pipeline by distance
      */
     public void visionMode() {
-        camMode.setNumber(0); // sets camera to vision processing mode
+        io.setCamMode(0); // sets camera to vision processing mode
+        scheduling = true;
     }
 
     /**
-     * Disables vision processing mode
+     * Disables vision processing mode, back on the wide pipeline
      */
     public void driverMode() {
-        camMode.setNumber(1); // sets camera to driving mode
+        io.setCamMode(1); // sets camera to driving mode
+        scheduling = false;
+        scheduler.reset();
+        requestPipeline(scheduler.getPipeline());
     }
 
     /**
-     * Sets vision pipeline, 0 through 9. 
+     * Sets vision pipeline, 0 through 9. The pipeline stays until visionMode() or
+     * driverMode() is called.
      */
     public void setPipeline(int number) {
-        pipeline.setNumber(number);
+        scheduling = false;
+        requestPipeline(number);
+    }
+
+    private void requestPipeline(int number) {
+        if (number != requestedPipeline) {
+            requestedPipeline = number;
+            switchRequestTime = RobotClock.getTime();
+            io.setPipeline(number);
+        }
+    }
+
+    /**
+     * The pipeline last asked for. Until the limelight reports it, frames from any other
+     * pipeline are skipped, for at most pipelineSwitchTimeout.
+     */
+    public int getPipeline() {
+        return requestedPipeline;
+    }
+
+    /**
+     * Number of frames skipped because they came from a pipeline that was switched away from
+     */
+    public long getSwitchingFrameCount() {
+        return switchingFrames;
+    }
+
+    /**
+     * Pipeline latency, tl in microseconds, of the frames used from a pipeline
+     */
+    public LatencyHistogram getLatencyHistogram(int pipeline) {
+        return pipelineLatency[pipeline];
     }
 
     /**
      * Side-by-side limelight and webcam streams 
      */
     public void standardStream() {
-        stream.setNumber(0);
+        io.setStream(0);
     }
 
     /**
      * Secondary camera stream placed on lower-right corner of primary camera (limelight) stream
      */
     public void PiPMainStream() {
-        stream.setNumber(1);
+        io.setStream(1);
     }
 
     /**
      * Primary camera (limelight) stream placed on lower-right corner of secondary camera stream
      */
     public void PiPSecondaryStream() {
-        stream.setNumber(2);
+        io.setStream(2);
     }
 
     /**
      * Changes light settings according to how vision pipeline is set
      */
     public void lightAuto() {
-        ledMode.setNumber(0);
+        io.setLedMode(0);
     }
 
     /**
      * Forces off light
      */
     public void lightOff() {
-        ledMode.setNumber(1);
+        io.setLedMode(1);
     }
 
     /**
      * Forces blink mode
      */
     public void lightBlink() {
-        ledMode.setNumber(2);
+        io.setLedMode(2);
     }
 
     /**
      * Forces on light
      */
     public void lightOn() {
-        ledMode.setNumber(3);
+        io.setLedMode(3);
     }
 
     /**
      * Snapshot mode is set to off
      */
     public void snapshotOff() {
-        snapshot.setNumber(0);
+        io.setSnapshot(0);
     }
 
     /**
      * Snapshot mode is set to on
      */
     public void snapshotOn() {
-        snapshot.setNumber(1);
+        io.setSnapshot(1);
     }
 
     /**
      * Angle error in x axis (left or right)
      */
     public double getXError() {
-        return tx.getDouble(0.0);
+        return frame.tx;
     }
 
     /**
      * Angle error in y axis (up or down)
      */
     public double getYError() {
-        return ty.getDouble(0.0);
+        return frame.ty;
     }
 
     /**
      * Detects if there is a valid target
      */
     public boolean validTarget() {
-        if (tv.getDouble(1.0) == 1.0) {
+        if (frame.tv == 1.0) {
             return true;
         } else {
             return false;
@@ -144,7 +246,7 @@ public class Limelight extends SubsystemBase {
     }
 
     public double getSkew() {
-        return ts.getDouble(0.0);
+        return frame.ts;
     }
 
     /**
@@ -152,11 +254,33 @@ public class Limelight extends SubsystemBase {
      * @return The pipeline’s latency contribution (ms) 
      */
     public double getLatency() {
-        return tl.getDouble(0.0);
+        return frame.tl;
     }
 
-    public NetworkTableEntry get3DTranslation() {
-        return camtran;
+    /**
+     * Whether the frame for this loop arrived since the last loop
+     */
+    public boolean hasNewFrame() {
+        return newFrame;
+    }
+
+    /**
+     * Number of the frame used during this loop. Consumers can keep the last number they
+     * used to skip work when nothing has changed.
+     */
+    public long getFrameSequence() {
+        return frame.sequence;
+    }
+
+    /**
+     * @return FPGA time in seconds when the frame used during this loop was captured
+     */
+    public double getFrameCaptureTime() {
+        return frame.timestamp - (frame.tl + limelightCaptureLatency) / 1000;
+    }
+
+    public double[] get3DTranslation() {
+        return io.getCameraTranslation();
     }
 
     /** 
@@ -165,7 +289,7 @@ public class Limelight extends SubsystemBase {
     */
     public double findMountingAngle(double measuredDistance, double cameraToTargetHeight) {
         double angle = Math.atan(cameraToTargetHeight / measuredDistance);
-        return angle - ty.getDouble(0.0); 
+        return angle - frame.ty; 
     }
 
     /** 
@@ -175,7 +299,7 @@ public class Limelight extends SubsystemBase {
     public double findMountingAngle(double measuredDistance, double cameraHeight, double targetHeight) {
         double cameraToTargetHeight = targetHeight - cameraHeight;
         double angle = Math.atan(cameraToTargetHeight / measuredDistance);
-        return angle - ty.getDouble(0.0); 
+        return angle - frame.ty; 
     }
 
     /** 
@@ -186,8 +310,7 @@ public class Limelight extends SubsystemBase {
      * use findMountingAngle() with a measured distance to find this.
     */
     public double getTargetDistanceMeasured(double cameraToTargetHeight, double cameraAngle) {
-        double distance = cameraToTargetHeight / Math.tan(Math.toRadians(cameraAngle + ty.getDouble(0.0)));
-        return distance;
+        return distanceFromAngle(cameraToTargetHeight, cameraAngle, frame.ty);
     }
 
     /** 
@@ -200,8 +323,15 @@ public class Limelight extends SubsystemBase {
     */
     public double getTargetDistanceMeasured(double cameraHeight, double targetHeight, double cameraAngle) {
         double cameraToTargetHeight = targetHeight - cameraHeight;
-        double distance = cameraToTargetHeight / Math.tan(Math.toRadians(cameraAngle + ty.getDouble(0.0)));
-        return distance;
+        return distanceFromAngle(cameraToTargetHeight, cameraAngle, frame.ty);
+    }
+
+    /**
+     * Distance to the target from the angle between the camera and the target
+     * @param yError the limelight's ty in degrees
+     */
+    static double distanceFromAngle(double cameraToTargetHeight, double cameraAngle, double yError) {
+        return cameraToTargetHeight / Math.tan(Math.toRadians(cameraAngle + yError));
     }
 
     /** 
@@ -212,13 +342,106 @@ public class Limelight extends SubsystemBase {
      * @return The difference of the target area and the current area
     */
     public double getTargetAreaDifference(double areaAtTargetDistance) {
-        return areaAtTargetDistance - ta.getDouble(areaAtTargetDistance);
+        return areaAtTargetDistance - frame.ta;
     }
     
     public double getTargetDistanceRegression() {
-        double area = ta.getDouble(0.0);
+        // The regression was measured on the wide pipeline, and zooming in enlarges the area
+        double zoom = frame.pipeline == limelightZoomPipeline ? limelightZoomFactor : 1;
+        return distanceFromArea(frame.ta / (zoom * zoom));
+    }
 
+    /**
+     * Distance to the target from a regression over measured target areas
+     * @param area the limelight's ta
+     */
+    static double distanceFromArea(double area) {
         return (1.1172 * Math.pow(area, 2) + -8.5806 * area + 25.7602); 
     }
 
+    /**
+     * Inverse of distanceFromArea, over the falling side of the regression it is used on
+     * @return the area at that distance, 0 past where the regression reaches 0 area
+     */
+    static double areaFromDistance(double distance) {
+        double discriminant = 8.5806 * 8.5806 - 4 * 1.1172 * (25.7602 - distance);
+        double area = (8.5806 - Math.sqrt(Math.max(0, discriminant))) / (2 * 1.1172);
+        return Math.max(0, area);
+    }
+
+    @Override
+    public void periodic() {
+        profile.start();
+        long lastSequence = incoming.sequence;
+
+        io.update(kLoopPeriodSeconds);
+        io.updateFrame(incoming);
+
+        newFrame = false;
+        if (incoming.sequence != lastSequence) {
+            logger.log(txSignal, incoming.tx);
+            logger.log(tySignal, incoming.ty);
+            logger.log(taSignal, incoming.ta);
+            logger.log(tvSignal, incoming.tv);
+            logger.log(tlSignal, incoming.tl);
+            logger.log(pipelineSignal, incoming.pipeline);
+
+            if (incoming.pipeline != requestedPipeline) {
+                // In flight when the pipeline changed: another zoom, another tuning
+                switchingFrames++;
+
+                // If the limelight never reports the pipeline asked for, e.g. it isn't set
+                // up on this one, go with the one it is on rather than go without. Whether
+                // it was picked by distance or set by hand, it stays until the next
+                // visionMode() or setPipeline().
+                if (RobotClock.getTime() - switchRequestTime > pipelineSwitchTimeout) {
+                    scheduling = false;
+                    scheduler.reset();
+                    boolean known = incoming.pipeline >= 0 && incoming.pipeline < kPipelineCount;
+                    requestPipeline(known ? incoming.pipeline : limelightWidePipeline);
+                    if (incoming.pipeline == requestedPipeline) {
+                        useFrame();
+                    }
+                }
+            } else {
+                useFrame();
+            }
+        }
+
+        publishLatency();
+        profile.stop();
+    }
+
+    private void useFrame() {
+        frame.copyFrom(incoming);
+        newFrame = true;
+
+        if (frame.pipeline >= 0 && frame.pipeline < kPipelineCount) {
+            pipelineLatency[frame.pipeline].record(Math.round(frame.tl * 1000));
+        }
+
+        if (scheduling) {
+            requestPipeline(scheduler.update(validTarget(), getTargetDistanceRegression()));
+        }
+    }
+
+    /**
+     * Puts the latency of both scheduled pipelines on the dashboard, about once a second
+     */
+    private void publishLatency() {
+        double now = RobotClock.getTime();
+        if (now - lastPublishTime < limelightLatencyPublishPeriod) {
+            return;
+        }
+        lastPublishTime = now;
+
+        LatencyHistogram wide = pipelineLatency[limelightWidePipeline];
+        LatencyHistogram zoom = pipelineLatency[limelightZoomPipeline];
+        dashboard.setTime(now);
+        dashboard.setNumber(wideLatencyP50, wide.getPercentile(0.5) / 1000.0);
+        dashboard.setNumber(wideLatencyP99, wide.getPercentile(0.99) / 1000.0);
+        dashboard.setNumber(zoomLatencyP50, zoom.getPercentile(0.5) / 1000.0);
+        dashboard.setNumber(zoomLatencyP99, zoom.getPercentile(0.99) / 1000.0);
+    }
+
 }
@@ -0,0 +1,40 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.vision;
+
+/**
+ * The targeting values from one limelight frame, kept together so they are never mixed
+ * with values from another frame. Reused rather than reallocated for every frame.
+ */
+public class LimelightFrame {
+    public double tx = 0;
+    public double ty = 0;
+    public double ta = 0;
+    public double tv = 1;
+    public double ts = 0;
+    public double tl = 0;
+    /** Pipeline the limelight ran to make the frame, its getpipe */
+    public int pipeline = 0;
+
+    /** Counts up by one for each frame received */
+    public long sequence = 0;
+    /** FPGA time in seconds when the frame reached the robot */
+    public double timestamp = 0;
+
+    public void copyFrom(LimelightFrame other) {
+        tx = other.tx;
+        ty = other.ty;
+        ta = other.ta;
+        tv = other.tv;
+        ts = other.ts;
+        tl = other.tl;
+        pipeline = other.pipeline;
+        sequence = other.sequence;
+        timestamp = other.timestamp;
+    }
+}
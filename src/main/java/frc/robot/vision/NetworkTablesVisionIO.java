@@ -0,0 +1,208 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.vision;
+
+import edu.wpi.first.networktables.EntryListenerFlags;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.NetworkTableValue;
+import edu.wpi.first.networktables.NetworkTablesJNI;
+import frc.robot.sim.RobotClock;
+
+import static frc.robot.Constants.*;
+
+/**
+ * The limelight over NetworkTables. In listener mode each value from the limelight is
+ * copied in on the NetworkTables thread as it arrives; otherwise the entries are polled
+ * once per loop.
+ *
+ * <p>NetworkTables sends each changed entry on its own and in no set order, so when one
+ * value of an update has arrived the rest may not have. A frame is only taken once no
+ * entry has changed for limelightFrameSettleTime, going by the entries' change times,
+ * so it never mixes values from two camera frames. The limelight sends every value of a
+ * frame together, well inside that time, and frames further apart than it.
+ */
+public class NetworkTablesVisionIO implements VisionIO {
+    private static final double[] kNoTranslation = new double[0];
+
+    private final NetworkTable table;
+        
+    private final NetworkTableEntry tx;
+    private final NetworkTableEntry ty;
+    private final NetworkTableEntry ta;
+    private final NetworkTableEntry tv;
+    private final NetworkTableEntry ts;
+    private final NetworkTableEntry tl;
+    private final NetworkTableEntry getpipe;
+    private final NetworkTableEntry camtran;
+
+    private final NetworkTableEntry ledMode;
+    private final NetworkTableEntry camMode;
+    private final NetworkTableEntry pipeline;
+    private final NetworkTableEntry stream;
+    private final NetworkTableEntry snapshot;
+    // Every entry of a frame, for the change times
+    private final NetworkTableEntry[] frameEntries;
+
+    private final long settleMicros;
+
+    // Written by the listener thread, guarded by its own lock
+    private final LimelightFrame incoming = new LimelightFrame();
+    // NetworkTables time of the newest value in incoming
+    private long incomingChange = 0;
+
+    // NetworkTables time of the newest value in the last frame taken
+    private long takenChange = 0;
+
+    public NetworkTablesVisionIO() {
+        this(NetworkTableInstance.getDefault());
+    }
+
+    /**
+     * @param instance NetworkTables instance the limelight publishes to, e.g. a local 
+     * instance for testing
+     */
+    public NetworkTablesVisionIO(NetworkTableInstance instance) {
+        this(instance, limelightFrameSettleTime);
+    }
+
+    /**
+     * @param settleSeconds how long no entry may change before a frame is taken
+     */
+    NetworkTablesVisionIO(NetworkTableInstance instance, double settleSeconds) {
+        settleMicros = Math.round(settleSeconds * 1e6);
+        table = instance.getTable("limelight");
+
+        tx = table.getEntry("tx");
+        ty = table.getEntry("ty");
+        ta = table.getEntry("ta");
+        tv = table.getEntry("tv");
+        ts = table.getEntry("ts");
+        tl = table.getEntry("tl");
+        getpipe = table.getEntry("getpipe");
+        camtran = table.getEntry("camtran");
+
+        ledMode = table.getEntry("ledMode");
+        camMode = table.getEntry("camMode");
+        pipeline = table.getEntry("pipeline");
+        stream = table.getEntry("stream");
+        snapshot = table.getEntry("snapshot");
+        frameEntries = new NetworkTableEntry[] {tx, ty, ta, tv, ts, tl, getpipe};
+
+        if (limelightListenerMode) {
+            table.addEntryListener((source, key, entry, value, flags) -> receive(key, value),
+                EntryListenerFlags.kNew | EntryListenerFlags.kUpdate);
+        }
+    }
+
+    /**
+     * Copies one value of a frame in. Called on the NetworkTables listener thread.
+     */
+    private void receive(String key, NetworkTableValue value) {
+        if (!value.isDouble()) {
+            return;
+        }
+
+        synchronized (incoming) {
+            switch (key) {
+                case "tx": incoming.tx = value.getDouble(); break;
+                case "ty": incoming.ty = value.getDouble(); break;
+                case "ta": incoming.ta = value.getDouble(); break;
+                case "tv": incoming.tv = value.getDouble(); break;
+                case "ts": incoming.ts = value.getDouble(); break;
+                case "tl": incoming.tl = value.getDouble(); break;
+                case "getpipe": incoming.pipeline = (int) value.getDouble(); break;
+                default: return;
+            }
+            incoming.timestamp = RobotClock.getTime();
+            incomingChange = Math.max(incomingChange, value.getTime());
+        }
+    }
+
+    /**
+     * Whether nothing has changed since the given NetworkTables time for long enough that
+     * the frame it belongs to has all arrived
+     */
+    private boolean isSettled(long change) {
+        return NetworkTablesJNI.now() - change >= settleMicros;
+    }
+
+    /**
+     * NetworkTables time of the newest value of the polled entries
+     */
+    private long getNewestChange() {
+        long newest = 0;
+        for (NetworkTableEntry entry : frameEntries) {
+            newest = Math.max(newest, entry.getLastChange());
+        }
+        return newest;
+    }
+
+    private void readFrame(LimelightFrame target) {
+        target.tx = tx.getDouble(0.0);
+        target.ty = ty.getDouble(0.0);
+        target.ta = ta.getDouble(0.0);
+        target.tv = tv.getDouble(1.0);
+        target.ts = ts.getDouble(0.0);
+        target.tl = tl.getDouble(0.0);
+        target.pipeline = (int) getpipe.getDouble(0.0);
+        target.timestamp = RobotClock.getTime();
+        target.sequence++;
+    }
+
+    @Override
+    public void updateFrame(LimelightFrame frame) {
+        if (limelightListenerMode) {
+            synchronized (incoming) {
+                if (incomingChange > takenChange && isSettled(incomingChange)) {
+                    takenChange = incomingChange;
+                    incoming.sequence++;
+                    frame.copyFrom(incoming);
+                }
+            }
+            return;
+        }
+
+        long newest = getNewestChange();
+        if (newest > takenChange && isSettled(newest)) {
+            takenChange = newest;
+            readFrame(frame);
+        }
+    }
+
+    @Override
+    public double[] getCameraTranslation() {
+        return camtran.getDoubleArray(kNoTranslation);
+    }
+
+    @Override
+    public void setLedMode(int mode) {
+        ledMode.setNumber(mode);
+    }
+
+    @Override
+    public void setCamMode(int mode) {
+        camMode.setNumber(mode);
+    }
+
+    @Override
+    public void setPipeline(int number) {
+        pipeline.setNumber(number);
+    }
+
+    @Override
+    public void setStream(int mode) {
+        stream.setNumber(mode);
+    }
+
+    @Override
+    public void setSnapshot(int mode) {
+        snapshot.setNumber(mode);
+    }
+}
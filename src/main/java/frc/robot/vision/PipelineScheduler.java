@@ -0,0 +1,60 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.vision;
+
+import static frc.robot.Constants.*;
+
+/**
+ * Picks the limelight pipeline from the distance to the target: the wide pipeline up
+ * close, where the target would not fit a zoomed view, and the zoomed one for long shots,
+ * where the target is only a few pixels wide. The two switching distances are apart so
+ * a distance near either one doesn't flip pipelines every frame.
+ *
+ * <p>The zoomed view is narrow, so after pipelineLostFrames frames in a row without a
+ * target it goes back to the wide pipeline to find it again.
+ */
+class PipelineScheduler {
+    private boolean zoomed = false;
+    private int framesWithoutTarget = 0;
+
+    /**
+     * Updates the choice from a frame taken with the current pipeline
+     * @param distance distance to the target from the frame, only used if it has one
+     * @return the pipeline to use from now on
+     */
+    int update(boolean hasTarget, double distance) {
+        if (!hasTarget) {
+            framesWithoutTarget++;
+            if (framesWithoutTarget >= pipelineLostFrames) {
+                zoomed = false;
+            }
+
+        } else {
+            framesWithoutTarget = 0;
+            if (distance > pipelineZoomInDistance) {
+                zoomed = true;
+            } else if (distance < pipelineZoomOutDistance) {
+                zoomed = false;
+            }
+        }
+
+        return getPipeline();
+    }
+
+    int getPipeline() {
+        return zoomed ? limelightZoomPipeline : limelightWidePipeline;
+    }
+
+    /**
+     * Goes back to the wide pipeline
+     */
+    void reset() {
+        zoomed = false;
+        framesWithoutTarget = 0;
+    }
+}
@@ -0,0 +1,71 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.vision;
+
+import frc.robot.sim.LogReplay;
+import frc.robot.sim.RobotClock;
+
+/**
+ * Limelight frames played back from a log. Frames were logged when they arrived, so a
+ * new tl sample marks a new frame. Settings go nowhere.
+ */
+public class ReplayVisionIO implements VisionIO {
+    private static final double[] kNoTranslation = new double[0];
+
+    private final LogReplay replay = LogReplay.getInstance();
+
+    private final LogReplay.Signal tx = replay.signal(kTxSignal);
+    private final LogReplay.Signal ty = replay.signal(kTySignal);
+    private final LogReplay.Signal ta = replay.signal(kTaSignal);
+    private final LogReplay.Signal tv = replay.signal(kTvSignal);
+    private final LogReplay.Signal tl = replay.signal(kTlSignal);
+    private final LogReplay.Signal pipeline = replay.signal(kPipelineSignal);
+
+    @Override
+    public void updateFrame(LimelightFrame frame) {
+        long sequence = tl.getCount();
+        if (sequence == frame.sequence) {
+            return;
+        }
+
+        frame.tx = tx.get(0);
+        frame.ty = ty.get(0);
+        frame.ta = ta.get(0);
+        frame.tv = tv.get(1);
+        frame.ts = 0;
+        frame.tl = tl.get(0);
+        frame.pipeline = (int) pipeline.get(0);
+        frame.timestamp = RobotClock.getTime();
+        frame.sequence = sequence;
+    }
+
+    @Override
+    public double[] getCameraTranslation() {
+        return kNoTranslation;
+    }
+
+    @Override
+    public void setLedMode(int mode) {
+    }
+
+    @Override
+    public void setCamMode(int mode) {
+    }
+
+    @Override
+    public void setPipeline(int pipeline) {
+    }
+
+    @Override
+    public void setStream(int mode) {
+    }
+
+    @Override
+    public void setSnapshot(int mode) {
+    }
+}
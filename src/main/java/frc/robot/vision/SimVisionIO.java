@@ -0,0 +1,171 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.vision;
+
+import java.util.function.Supplier;
+
+import edu.wpi.first.wpilibj.geometry.Pose2d;
+import edu.wpi.first.wpilibj.geometry.Translation2d;
+import edu.wpi.first.wpilibj.util.Units;
+import frc.robot.sim.RobotClock;
+
+import static frc.robot.Constants.*;
+
+/**
+ * Simulated limelight looking at a power port at (simTargetX, simTargetY) on the field.
+ * Each loop captures a frame with the angles from the robot's pose to the target, and a
+ * camtran with the camera's position. The target area follows Limelight's distance
+ * regression. The camera's rotation isn't modeled and reads 0.
+ *
+ * <p>Like a real one, a frame arrives its tl plus limelightCaptureLatency after it was
+ * captured, so the robot has moved on by the time it is used.
+ *
+ * <p>The zoomed pipeline narrows the view and enlarges the target by limelightZoomFactor.
+ * After a pipeline change, frames keep coming from the old pipeline for
+ * simPipelineSwitchTime, as they do from a real limelight.
+ */
+public class SimVisionIO implements VisionIO {
+    private static final double[] kNoTranslation = new double[0];
+    // Half the limelight's horizontal field of view, degrees
+    private static final double kHalfFieldOfView = 29.8;
+
+    // Enough frames to cover the longest latency at one capture per loop
+    private static final int kFramesInFlight = 8;
+
+    private final Supplier<Pose2d> robotPose;
+
+    // Frames captured and not yet superseded, each stamped with the time it arrives
+    private final LimelightFrame[] inFlight = new LimelightFrame[kFramesInFlight];
+    private final double[][] inFlightTranslation = new double[kFramesInFlight][6];
+    private long captured = 0;
+
+    // The newest frame to have arrived
+    private final LimelightFrame latest = new LimelightFrame();
+    private final double[] translation = new double[6];
+
+    private int ledMode = 0;
+    private int camMode = 0;
+    private int pipeline = 0;
+
+    // Pipeline the frames are made with, until the requested one takes over
+    private int activePipeline = 0;
+    private double switchTime = 0;
+
+    /**
+     * @param robotPose where the simulated robot is, e.g. from the drivetrain's odometry
+     */
+    public SimVisionIO(Supplier<Pose2d> robotPose) {
+        this.robotPose = robotPose;
+        for (int i = 0; i < kFramesInFlight; i++) {
+            inFlight[i] = new LimelightFrame();
+        }
+    }
+
+    @Override
+    public void update(double dtSeconds) {
+        if (activePipeline != pipeline) {
+            switchTime -= dtSeconds;
+            if (switchTime <= 0) {
+                activePipeline = pipeline;
+            }
+        }
+        capture();
+        deliver();
+    }
+
+    private void capture() {
+        LimelightFrame frame = inFlight[(int) (captured % kFramesInFlight)];
+        double[] camtran = inFlightTranslation[(int) (captured % kFramesInFlight)];
+        double zoom = activePipeline == limelightZoomPipeline ? limelightZoomFactor : 1;
+
+        Pose2d pose = robotPose.get();
+        double dx = simTargetX - pose.getTranslation().getX();
+        double dy = simTargetY - pose.getTranslation().getY();
+        double distance = Math.hypot(dx, dy);
+
+        // tx is positive to the right, the opposite way to the heading
+        double bearing = Math.toDegrees(Math.atan2(dy, dx)) - pose.getRotation().getDegrees();
+        bearing = Math.IEEEremainder(bearing, 360);
+
+        Translation2d camera = pose.getTranslation().plus(
+            new Translation2d(cameraOffsetX, cameraOffsetY).rotateBy(pose.getRotation()));
+        camtran[0] = Units.metersToInches(simTargetY - camera.getY());
+        camtran[1] = Units.metersToInches(-cameraToBallTargetHeight);
+        camtran[2] = Units.metersToInches(camera.getX() - simTargetX);
+
+        frame.tx = -bearing;
+        frame.ty = Math.toDegrees(Math.atan2(cameraToBallTargetHeight, distance)) - cameraAngle;
+        frame.ta = Limelight.areaFromDistance(Units.metersToFeet(distance)) * zoom * zoom;
+        frame.tv = camMode == 0 && Math.abs(bearing) < kHalfFieldOfView / zoom ? 1 : 0;
+        frame.ts = 0;
+        frame.tl = zoom > 1 ? simZoomVisionLatency : simVisionLatency;
+        frame.pipeline = activePipeline;
+        frame.timestamp = RobotClock.getTime() + (frame.tl + limelightCaptureLatency) / 1000;
+        frame.sequence = ++captured;
+    }
+
+    /**
+     * Makes the newest frame that has arrived by now the latest
+     */
+    private void deliver() {
+        double now = RobotClock.getTime();
+        long oldest = Math.max(latest.sequence + 1, captured - kFramesInFlight + 1);
+        for (long sequence = captured; sequence >= oldest; sequence--) {
+            int slot = (int) ((sequence - 1) % kFramesInFlight);
+            if (inFlight[slot].timestamp <= now) {
+                latest.copyFrom(inFlight[slot]);
+                System.arraycopy(inFlightTranslation[slot], 0, translation, 0, translation.length);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void updateFrame(LimelightFrame frame) {
+        frame.copyFrom(latest);
+    }
+
+    @Override
+    public double[] getCameraTranslation() {
+        return latest.tv == 1 ? translation : kNoTranslation;
+    }
+
+    @Override
+    public void setLedMode(int mode) {
+        ledMode = mode;
+    }
+
+    @Override
+    public void setCamMode(int mode) {
+        camMode = mode;
+    }
+
+    @Override
+    public void setPipeline(int number) {
+        if (number != pipeline) {
+            pipeline = number;
+            switchTime = simPipelineSwitchTime;
+        }
+    }
+
+    @Override
+    public void setStream(int mode) {
+    }
+
+    @Override
+    public void setSnapshot(int mode) {
+    }
+
+    public int getLedMode() {
+        return ledMode;
+    }
+
+    public int getPipeline() {
+        return pipeline;
+    }
+}
@@ -0,0 +1,51 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.vision;
+
+/**
+ * The limelight: targeting frames in, camera settings out
+ */
+public interface VisionIO {
+    // Names the inputs are logged and replayed under
+    String kTxSignal = "Limelight/tx";
+    String kTySignal = "Limelight/ty";
+    String kTaSignal = "Limelight/ta";
+    String kTvSignal = "Limelight/tv";
+    String kTlSignal = "Limelight/tl";
+    String kPipelineSignal = "Limelight/getpipe";
+
+    /**
+     * Copies the newest frame into the given one. Its sequence number only changes when
+     * a new frame has arrived.
+     */
+    void updateFrame(LimelightFrame frame);
+
+    /**
+     * The limelight's camtran: x, y, z, pitch, yaw, roll of the camera relative to the
+     * target, or an empty array when there is none. Positions are in inches, with x to the
+     * camera's right as it faces the target, y up and z negative in front of the target.
+     * Angles are in degrees.
+     */
+    double[] getCameraTranslation();
+
+    void setLedMode(int mode);
+
+    void setCamMode(int mode);
+
+    void setPipeline(int pipeline);
+
+    void setStream(int mode);
+
+    void setSnapshot(int mode);
+
+    /**
+     * Called once per loop. Simulations advance by the time given.
+     */
+    default void update(double dtSeconds) {
+    }
+}
@@ -0,0 +1,56 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.wheel;
+
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.wheel.SenseColor.Colour;
+
+import static frc.robot.Constants.*;
+
+/**
+ * Records what the color sensor reads over one color of the control panel, for a new
+ * colour model. Hold that color under the sensor, at the distance the spinner runs at,
+ * and move the panel about within the segment while it runs. Ends after
+ * colorCalibrationSamples readings.
+ *
+ * <p>Runs while disabled, so it can be started from the dashboard in the pits.
+ */
+public class CalibrateColour extends CommandBase {
+  private final SenseColor colorSense;
+  private final Colour colour;
+
+  public CalibrateColour(SenseColor colorSense, Colour colour) {
+    this.colorSense = colorSense;
+    this.colour = colour;
+
+    addRequirements(colorSense);
+  }
+
+  // Called when the command is initially scheduled.
+  @Override
+  public void initialize() {
+    colorSense.startCalibration(colour);
+  }
+
+  // Called once the command ends or is interrupted.
+  @Override
+  public void end(boolean interrupted) {
+    colorSense.stopCalibration();
+  }
+
+  // Returns true when the command should end.
+  @Override
+  public boolean isFinished() {
+    return colorSense.getCalibrationCount(colour) >= colorCalibrationSamples;
+  }
+
+  @Override
+  public boolean runsWhenDisabled() {
+    return true;
+  }
+}
@@ -0,0 +1,30 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.wheel;
+
+import edu.wpi.first.wpilibj.util.Color;
+
+/**
+ * One reading of the color sensor. Never modified after it is created, so it can be
+ * handed from the sampler thread to the main loop without locking.
+ */
+public final class ColorSample {
+  /** Normalized color, the same as ColorSensorV3.getColor() */
+  public final Color color;
+  public final int ir;
+  public final int proximity;
+  /** FPGA time in seconds when the sample was read */
+  public final double timestamp;
+
+  public ColorSample(Color color, int ir, int proximity, double timestamp) {
+    this.color = color;
+    this.ir = ir;
+    this.proximity = proximity;
+    this.timestamp = timestamp;
+  }
+}
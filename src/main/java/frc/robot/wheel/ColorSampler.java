@@ -0,0 +1,98 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.wheel;
+
+import edu.wpi.first.wpilibj.util.Color;
+
+/**
+ * Reads the color sensor on its own thread, so a stalled I2C transfer never holds up the
+ * robot loop. This thread is the only writer; readers get the newest sample through a
+ * volatile reference and never block.
+ *
+ * <p>Samples also go into a ring, so one reader can go through every sample rather than
+ * just the newest. If that reader falls a whole ring behind, the oldest are skipped.
+ *
+ * <p>Without the thread started, the robot loop takes samples itself with
+ * {@link #sample()}, which a replay needs to read the same samples every run.
+ */
+class ColorSampler implements Runnable {
+  private final ColorSensorIO sensor;
+  private final long periodMillis;
+
+  private volatile ColorSample latest = new ColorSample(new Color(0, 0, 0), 0, 0, 0);
+
+  // Ring written by the sampler thread and read by the robot loop
+  private final int mask;
+  private final ColorSample[] ring;
+  private volatile long head = 0;
+  private long tail = 0;
+
+  ColorSampler(ColorSensorIO sensor, double periodSeconds, int bufferSize) {
+    this.sensor = sensor;
+    this.periodMillis = Math.round(periodSeconds * 1000);
+
+    int capacity = Integer.highestOneBit(bufferSize);
+    mask = capacity - 1;
+    ring = new ColorSample[capacity];
+  }
+
+  void start() {
+    Thread thread = new Thread(this, "ColorSampler");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  ColorSample getLatest() {
+    return latest;
+  }
+
+  /**
+   * Takes the oldest sample not taken yet. Only one thread may call this.
+   * @return null if there are no new samples
+   */
+  ColorSample poll() {
+    long end = head;
+    if (end - tail > ring.length) {
+      tail = end - ring.length;
+    }
+
+    while (tail < end) {
+      long index = tail++;
+      ColorSample sample = ring[(int) index & mask];
+
+      // The sampler may have started writing over the slot while it was read
+      if (head - index < ring.length) {
+        return sample;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Reads one sample on the calling thread. Only for when the sampler thread isn't running.
+   */
+  void sample() {
+    ColorSample sample = sensor.read();
+    ring[(int) head & mask] = sample;
+    head++;
+    latest = sample;
+  }
+
+  @Override
+  public void run() {
+    while (!Thread.currentThread().isInterrupted()) {
+      sample();
+
+      try {
+        Thread.sleep(periodMillis);
+      } catch (InterruptedException e) {
+        return;
+      }
+    }
+  }
+}
@@ -0,0 +1,25 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.wheel;
+
+/**
+ * The control panel color sensor. Read from the sampler thread only.
+ */
+public interface ColorSensorIO {
+  // Names the inputs are logged and replayed under
+  String kRedSignal = "Color/Red";
+  String kGreenSignal = "Color/Green";
+  String kBlueSignal = "Color/Blue";
+  String kIRSignal = "Color/IR";
+  String kProximitySignal = "Color/Proximity";
+
+  /**
+   * Takes a reading, with the color normalized so its channels add up to 1
+   */
+  ColorSample read();
+}
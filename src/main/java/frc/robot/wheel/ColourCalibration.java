@@ -0,0 +1,92 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.wheel;
+
+import java.util.Arrays;
+
+import frc.robot.wheel.SenseColor.Colour;
+
+import static frc.robot.Constants.*;
+
+/**
+ * Collects sensor readings labelled with the color under the sensor and fits a
+ * {@link ColourModel} to them. Keeps running means and spreads rather than the readings
+ * themselves, so recording allocates nothing. Only used from the robot loop.
+ */
+class ColourCalibration {
+  private static final Colour[] colours = Colour.values();
+
+  private final int[] counts = new int[colours.length];
+  private final double[][] means = new double[colours.length][ColourModel.kStats];
+  // Sums of squared differences from the running mean (Welford's method)
+  private final double[][] squares = new double[colours.length][ColourModel.kStats];
+
+  /**
+   * Adds a reading taken over a color
+   */
+  void add(Colour colour, ColorSample sample) {
+    int c = colour.ordinal();
+    counts[c]++;
+    add(c, ColourModel.kRed, sample.color.red);
+    add(c, ColourModel.kGreen, sample.color.green);
+    add(c, ColourModel.kBlue, sample.color.blue);
+    add(c, ColourModel.kIR, sample.ir);
+    add(c, ColourModel.kProximity, sample.proximity);
+  }
+
+  private void add(int c, int stat, double value) {
+    double difference = value - means[c][stat];
+    means[c][stat] += difference / counts[c];
+    squares[c][stat] += difference * (value - means[c][stat]);
+  }
+
+  /**
+   * Forgets the readings of one color, to record it again
+   */
+  void clear(Colour colour) {
+    int c = colour.ordinal();
+    counts[c] = 0;
+    Arrays.fill(means[c], 0);
+    Arrays.fill(squares[c], 0);
+  }
+
+  int getCount(Colour colour) {
+    return counts[colour.ordinal()];
+  }
+
+  /**
+   * Whether every color has colorCalibrationSamples readings
+   */
+  boolean isComplete() {
+    for (int count : counts) {
+      if (count < colorCalibrationSamples) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Fits a model to the readings so far
+   * @throws IllegalStateException if a color has fewer than two readings
+   */
+  ColourModel fit() {
+    double[][] deviations = new double[colours.length][ColourModel.kStats];
+    for (int c = 0; c < colours.length; c++) {
+      if (counts[c] < 2) {
+        throw new IllegalStateException(colours[c] + " has not been calibrated");
+      }
+
+      for (int s = 0; s < ColourModel.kStats; s++) {
+        deviations[c][s] = Math.sqrt(squares[c][s] / (counts[c] - 1));
+      }
+    }
+
+    return new ColourModel(counts, means, deviations);
+  }
+}
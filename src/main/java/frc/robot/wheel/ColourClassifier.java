@@ -0,0 +1,28 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.wheel;
+
+import frc.robot.wheel.SenseColor.Colour;
+
+/**
+ * Turns a color sensor reading into a {@link Colour}. Implementations keep the result of
+ * the last call, so they are only used from one thread.
+ */
+interface ColourClassifier {
+  Colour classify(ColorSample sample);
+
+  /**
+   * Confidence of the last classification, from 0 to 1
+   */
+  double getConfidence();
+
+  /**
+   * Whether the last reading looked like any color of the panel at all
+   */
+  boolean isMatched();
+}
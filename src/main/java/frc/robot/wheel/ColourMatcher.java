@@ -0,0 +1,105 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.wheel;
+
+import edu.wpi.first.wpilibj.util.Color;
+
+import frc.robot.wheel.SenseColor.Colour;
+
+/**
+ * Nearest target matcher over the {@link Colour} targets, kept in flat arrays indexed by
+ * ordinal. Gives the same answer and confidence as REV's ColorMatch.matchClosestColor,
+ * but returns the Colour directly and allocates nothing.
+ */
+class ColourMatcher implements ColourClassifier {
+  private static final Colour[] colours = Colour.values();
+
+  private final double[] reds = new double[colours.length];
+  private final double[] greens = new double[colours.length];
+  private final double[] blues = new double[colours.length];
+
+  private double confidence = 0;
+  private boolean matched = false;
+
+  ColourMatcher() {
+    for (Colour colour : colours) {
+      Color target = colour.getTarget();
+      reds[colour.ordinal()] = target.red;
+      greens[colour.ordinal()] = target.green;
+      blues[colour.ordinal()] = target.blue;
+    }
+  }
+
+  @Override
+  public Colour classify(ColorSample sample) {
+    return match(sample.color);
+  }
+
+  Colour match(Color color) {
+    return match(color.red, color.green, color.blue);
+  }
+
+  /**
+   * Finds the closest target. If the color is black, or no target is within a distance
+   * of 1, nothing matches and BLUE is returned with zero confidence, as ColorMatch did
+   * with BLUE as its first target.
+   */
+  Colour match(double red, double green, double blue) {
+    double magnitude = red + green + blue;
+    if (!(magnitude > 0)) {
+      return unmatched();
+    }
+
+    red /= magnitude;
+    green /= magnitude;
+    blue /= magnitude;
+
+    // Squared distances, so only the winner needs a square root
+    double minDistance = 1.0;
+    int closest = -1;
+    for (int i = 0; i < reds.length; i++) {
+      double dRed = reds[i] - red;
+      double dGreen = greens[i] - green;
+      double dBlue = blues[i] - blue;
+      double distance = dRed * dRed + dGreen * dGreen + dBlue * dBlue;
+      if (distance < minDistance) {
+        minDistance = distance;
+        closest = i;
+      }
+    }
+    if (closest < 0) {
+      return unmatched();
+    }
+
+    confidence = 1 - Math.sqrt(minDistance);
+    matched = true;
+    return colours[closest];
+  }
+
+  private Colour unmatched() {
+    confidence = 0;
+    matched = false;
+    return Colour.BLUE;
+  }
+
+  /**
+   * Confidence of the last match, 1 when it sits exactly on a target
+   */
+  @Override
+  public double getConfidence() {
+    return confidence;
+  }
+
+  /**
+   * Whether the last color could be matched at all
+   */
+  @Override
+  public boolean isMatched() {
+    return matched;
+  }
+}
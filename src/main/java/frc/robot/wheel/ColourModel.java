@@ -0,0 +1,225 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.wheel;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import frc.robot.wheel.SenseColor.Colour;
+
+import static frc.robot.Constants.*;
+
+/**
+ * Per color Gaussian model of what the sensor reads over each panel segment, fitted by
+ * {@link ColourCalibration} under the lighting it will be used in. A reading is scored
+ * against every color on normalized red, green, blue and raw IR, each weighted by how
+ * much it varied during calibration, so a noisy channel counts for less.
+ *
+ * <p>Everything is precomputed into flat arrays indexed by ordinal, so classifying costs
+ * the same few multiply-adds per color every time and allocates nothing. A reading
+ * further than colorUnknownDistance from every color, or nearer the sensor than any
+ * calibration reading, is unknown: not matched and zero confidence.
+ *
+ * <p>Stored in colour_model.csv in /home/lvuser, or in deploy to ship one, one line per
+ * color: its capital, the number of samples, then the mean and the standard deviation of
+ * red, green, blue, IR and proximity.
+ */
+class ColourModel implements ColourClassifier {
+  // Statistics kept per color, in file order. Only the first kFeatures are classified on
+  static final int kRed = 0;
+  static final int kGreen = 1;
+  static final int kBlue = 2;
+  static final int kIR = 3;
+  static final int kProximity = 4;
+  static final int kStats = 5;
+  static final int kFeatures = 4;
+
+  // Standard deviations below the closest calibration proximity still counted as the panel
+  private static final double kProximitySpread = 3;
+
+  // Log likelihood, relative to the best color, below which a color can't change the confidence
+  private static final double kNegligible = -40;
+
+  private static final Colour[] colours = Colour.values();
+
+  // As calibrated, indexed [ordinal][stat]
+  private final int[] counts;
+  private final double[][] means;
+  private final double[][] deviations;
+
+  // Flat [ordinal * kFeatures + feature]
+  private final double[] centers = new double[colours.length * kFeatures];
+  private final double[] inverseVariances = new double[colours.length * kFeatures];
+  // Log of each Gaussian's normalizing constant, without the terms they all share
+  private final double[] logScales = new double[colours.length];
+  private final double minProximity;
+
+  private final double[] logLikelihoods = new double[colours.length];
+  private double confidence = 0;
+  private boolean matched = false;
+
+  /**
+   * @param counts samples behind each color, by ordinal
+   * @param means mean of each statistic, [ordinal][stat]
+   * @param deviations standard deviation of each statistic, [ordinal][stat]
+   */
+  ColourModel(int[] counts, double[][] means, double[][] deviations) {
+    this.counts = counts.clone();
+    this.means = new double[colours.length][];
+    this.deviations = new double[colours.length][];
+
+    double lowest = Double.POSITIVE_INFINITY;
+    for (int c = 0; c < colours.length; c++) {
+      this.means[c] = means[c].clone();
+      this.deviations[c] = deviations[c].clone();
+
+      for (int s = 0; s < kStats; s++) {
+        if (!Double.isFinite(means[c][s]) || !Double.isFinite(deviations[c][s])) {
+          throw new IllegalArgumentException(colours[c] + " is not calibrated");
+        }
+      }
+
+      for (int f = 0; f < kFeatures; f++) {
+        // Never trust a channel more than the sensor can resolve, however steady it was
+        double deviation = Math.max(deviations[c][f], f == kIR ? colorModelMinIRSpread : colorModelMinSpread);
+        centers[c * kFeatures + f] = means[c][f];
+        inverseVariances[c * kFeatures + f] = 1 / (deviation * deviation);
+        logScales[c] -= Math.log(deviation);
+      }
+
+      lowest = Math.min(lowest, means[c][kProximity] - kProximitySpread * deviations[c][kProximity]);
+    }
+    minProximity = lowest;
+  }
+
+  /**
+   * Reads a model saved by {@link #save}
+   */
+  static ColourModel read(Path file) throws IOException {
+    int[] counts = new int[colours.length];
+    double[][] means = new double[colours.length][kStats];
+    double[][] deviations = new double[colours.length][kStats];
+    for (double[] row : means) {
+      Arrays.fill(row, Double.NaN);
+    }
+
+    for (String line : Files.readAllLines(file)) {
+      line = line.trim();
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+
+      String[] values = line.split(",");
+      if (values.length != 2 + 2 * kStats) {
+        throw new IllegalArgumentException("Expected " + (2 + 2 * kStats) + " values in \"" + line + "\"");
+      }
+
+      int c = ordinalOf(values[0].trim());
+      counts[c] = Integer.parseInt(values[1].trim());
+      for (int s = 0; s < kStats; s++) {
+        means[c][s] = Double.parseDouble(values[2 + s].trim());
+        deviations[c][s] = Double.parseDouble(values[2 + kStats + s].trim());
+      }
+    }
+
+    return new ColourModel(counts, means, deviations);
+  }
+
+  private static int ordinalOf(String capital) {
+    for (Colour colour : colours) {
+      if (colour.getCapital().equals(capital)) {
+        return colour.ordinal();
+      }
+    }
+    throw new IllegalArgumentException("No color \"" + capital + "\"");
+  }
+
+  /**
+   * Writes the model in the format {@link #read} expects
+   */
+  void save(Path file) throws IOException {
+    try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, "UTF-8")) {
+      out.println("# colour,samples,red,green,blue,ir,proximity,"
+        + "red sd,green sd,blue sd,ir sd,proximity sd");
+
+      for (Colour colour : colours) {
+        int c = colour.ordinal();
+        StringBuilder line = new StringBuilder(colour.getCapital()).append(',').append(counts[c]);
+        for (double mean : means[c]) {
+          line.append(',').append(mean);
+        }
+        for (double deviation : deviations[c]) {
+          line.append(',').append(deviation);
+        }
+        out.println(line);
+      }
+    }
+  }
+
+  /**
+   * Picks the most likely color. The confidence is its probability against the other
+   * three, taking all four as equally likely beforehand.
+   */
+  @Override
+  public Colour classify(ColorSample sample) {
+    double red = sample.color.red;
+    double green = sample.color.green;
+    double blue = sample.color.blue;
+    double ir = sample.ir;
+
+    int best = 0;
+    double bestDistance = Double.POSITIVE_INFINITY;
+    for (int c = 0, i = 0; c < colours.length; c++, i += kFeatures) {
+      double dRed = red - centers[i + kRed];
+      double dGreen = green - centers[i + kGreen];
+      double dBlue = blue - centers[i + kBlue];
+      double dIR = ir - centers[i + kIR];
+      // Squared distance in standard deviations
+      double distance = dRed * dRed * inverseVariances[i + kRed]
+        + dGreen * dGreen * inverseVariances[i + kGreen]
+        + dBlue * dBlue * inverseVariances[i + kBlue]
+        + dIR * dIR * inverseVariances[i + kIR];
+
+      logLikelihoods[c] = logScales[c] - 0.5 * distance;
+      if (c == 0 || logLikelihoods[c] > logLikelihoods[best]) {
+        best = c;
+        bestDistance = distance;
+      }
+    }
+
+    matched = bestDistance <= colorUnknownDistance && sample.proximity >= minProximity;
+    if (!matched) {
+      confidence = 0;
+      return colours[best];
+    }
+
+    // Colors far less likely than the best add nothing a double can hold, so skip the exp
+    double total = 0;
+    for (int c = 0; c < colours.length; c++) {
+      double relative = logLikelihoods[c] - logLikelihoods[best];
+      if (relative > kNegligible) {
+        total += Math.exp(relative);
+      }
+    }
+    confidence = 1 / total;
+    return colours[best];
+  }
+
+  @Override
+  public double getConfidence() {
+    return confidence;
+  }
+
+  @Override
+  public boolean isMatched() {
+    return matched;
+  }
+}
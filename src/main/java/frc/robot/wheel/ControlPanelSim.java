@@ -0,0 +1,78 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.wheel;
+
+import frc.robot.sim.SimSpeedController;
+import frc.robot.wheel.SenseColor.Colour;
+
+import static frc.robot.Constants.*;
+
+/**
+ * Control panel turned by the simulated spinner, showing its colors to a
+ * {@link SimColorSensorIO}. Positions are in segments from the start of a red segment,
+ * increasing in {@link Colour#nextIn} order.
+ *
+ * <p>The spinner wheel drives the panel towards a speed proportional to its output, with a
+ * first order lag. With no output the panel coasts to a stop at a constant deceleration.
+ */
+public class ControlPanelSim {
+  private final SimSpeedController motor;
+  private final SimColorSensorIO sensor;
+
+  private double position = simPanelStart;
+  private double velocity = 0;
+
+  public ControlPanelSim(SimSpeedController motor, SimColorSensorIO sensor) {
+    this.motor = motor;
+    this.sensor = sensor;
+    showColor();
+  }
+
+  public void update(double dtSeconds) {
+    int steps = Math.max(1, (int) Math.round(dtSeconds / simStepSeconds));
+    double step = dtSeconds / steps;
+
+    for (int i = 0; i < steps; i++) {
+      double output = colorMotorDirection * motor.getVoltage() / simBatteryVoltage;
+      if (output != 0) {
+        velocity += (output * simPanelMaxSpeed - velocity) * step / simPanelTimeConstant;
+      } else {
+        double slowing = Math.min(Math.abs(velocity), simPanelCoastDecel * step);
+        velocity -= Math.signum(velocity) * slowing;
+      }
+      position += velocity * step;
+    }
+
+    showColor();
+  }
+
+  private void showColor() {
+    sensor.setColor(getColour().getTarget(), simPanelProximity);
+  }
+
+  /**
+   * The color under the sensor
+   */
+  public Colour getColour() {
+    return Colour.RED.nextIn((int) Math.floor(position));
+  }
+
+  /**
+   * Segments from the start of a red segment
+   */
+  public double getPosition() {
+    return position;
+  }
+
+  /**
+   * Segments per second
+   */
+  public double getVelocity() {
+    return velocity;
+  }
+}
@@ -0,0 +1,32 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.wheel;
+
+import edu.wpi.first.wpilibj.util.Color;
+import frc.robot.sim.LogReplay;
+import frc.robot.sim.RobotClock;
+
+/**
+ * Color samples played back from a log
+ */
+public class ReplayColorSensorIO implements ColorSensorIO {
+  private final LogReplay replay = LogReplay.getInstance();
+
+  // Read once per loop by SenseColor, as replays don't run the sampler thread
+  private final LogReplay.Signal red = replay.signal(kRedSignal);
+  private final LogReplay.Signal green = replay.signal(kGreenSignal);
+  private final LogReplay.Signal blue = replay.signal(kBlueSignal);
+  private final LogReplay.Signal ir = replay.signal(kIRSignal);
+  private final LogReplay.Signal proximity = replay.signal(kProximitySignal);
+
+  @Override
+  public ColorSample read() {
+    return new ColorSample(new Color(red.get(0), green.get(0), blue.get(0)),
+      (int) ir.get(0), (int) proximity.get(0), RobotClock.getTime());
+  }
+}
@@ -0,0 +1,49 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.wheel;
+
+import com.revrobotics.ColorSensorV3;
+import com.revrobotics.ColorSensorV3.ColorSensorMeasurementRate;
+import com.revrobotics.ColorSensorV3.ColorSensorResolution;
+import com.revrobotics.ColorSensorV3.GainFactor;
+import com.revrobotics.ColorSensorV3.RawColor;
+
+import edu.wpi.first.wpilibj.I2C;
+import edu.wpi.first.wpilibj.util.Color;
+import frc.robot.sim.RobotClock;
+
+/**
+ * REV Color Sensor V3 on the onboard I2C port
+ */
+public class RevColorSensorIO implements ColorSensorIO {
+  private final ColorSensorV3 sensor = new ColorSensorV3(I2C.Port.kOnboard);
+
+  public RevColorSensorIO() {
+    // Fastest color measurement rate the sensor supports
+    sensor.configureColorSensor(ColorSensorResolution.kColorSensorRes16bit, 
+      ColorSensorMeasurementRate.kColorRate25ms, GainFactor.kGain3x);
+  }
+
+  @Override
+  public ColorSample read() {
+    // One transfer for all four channels instead of one each
+    RawColor raw = sensor.getRawColor();
+    int proximity = sensor.getProximity();
+    double timestamp = RobotClock.getTime();
+
+    double magnitude = raw.red + raw.green + raw.blue;
+    Color color;
+    if (magnitude > 0) {
+      color = new Color(raw.red / magnitude, raw.green / magnitude, raw.blue / magnitude);
+    } else {
+      color = new Color(0, 0, 0);
+    }
+
+    return new ColorSample(color, raw.ir, proximity, timestamp);
+  }
+}
@@ -0,0 +1,241 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.wheel;
+
+import frc.robot.wheel.SenseColor.Colour;
+
+/**
+ * Counts control panel segments passing the color sensor. Fed every sensor sample, not
+ * one per loop.
+ *
+ * <p>Segments pass in {@link Colour#nextIn} order one way and the reverse the other, so a
+ * new color only says how far the panel moved modulo four. The counter keeps an estimate
+ * of the panel's speed in segments per sample and takes the step that best matches it,
+ * up to three segments, so segments that went by between two samples are still counted.
+ * A step a segment or more away from what the speed predicts could be a misread, since
+ * the edge between two segments can look like a third color. It only counts once the next
+ * good read repeats it or carries on from it as the speed predicts. Reads below the
+ * confidence or proximity thresholds are ignored.
+ *
+ * <p>The count always agrees with the color under the sensor, so a misread is undone by
+ * the next good read rather than building up. Fewer than four segments may pass between
+ * two good reads; a whole lap between samples can't be seen.
+ *
+ * <p>The time between the last two color changes gives the speed in segments per second,
+ * and from that where the sensor is within the current segment.
+ */
+class RotationCounter {
+  // Samples the speed is averaged over
+  private static final int kRateWindow = 8;
+  // How far into a segment the position can be guessed, as a fraction of the segment
+  private static final double kMinFraction = 0.05;
+  private static final double kMaxFraction = 0.95;
+
+  private final double minConfidence;
+  private final int minProximity;
+
+  private Colour current = null;
+  private int samplesSinceRead = 0;
+
+  // Count at each of the last kRateWindow samples, for the speed
+  private final int[] history = new int[kRateWindow];
+  private int samples = 0;
+
+  // A step waiting for a second read
+  private Colour candidate = null;
+  private int candidateStep = 0;
+  private int candidateSample = 0;
+  private double candidateTime = 0;
+
+  // Last color change, for the speed in segments per second
+  private double transitionTime = 0;
+  private int direction = 0;
+  private double velocity = 0;
+
+  private int segments = 0;
+  private int inferred = 0;
+
+  /**
+   * @param minConfidence lowest match confidence to trust
+   * @param minProximity lowest proximity reading, below which the panel is too far away
+   */
+  RotationCounter(double minConfidence, int minProximity) {
+    this.minConfidence = minConfidence;
+    this.minProximity = minProximity;
+  }
+
+  /**
+   * Starts counting from zero at the next good reading
+   */
+  void reset() {
+    current = null;
+    samplesSinceRead = 0;
+    samples = 0;
+    candidate = null;
+    direction = 0;
+    velocity = 0;
+    segments = 0;
+    inferred = 0;
+  }
+
+  /**
+   * @param timestamp FPGA time in seconds the sample was read
+   */
+  void addSample(Colour colour, double confidence, int proximity, double timestamp) {
+    double rate = getRate();
+    history[samples % kRateWindow] = segments;
+    samples++;
+
+    samplesSinceRead++;
+    if (confidence < minConfidence || proximity < minProximity) {
+      return;
+    }
+
+    if (current == null) {
+      current = colour;
+      samplesSinceRead = 0;
+      return;
+    }
+
+    if (candidate != null) {
+      double expectedNext = rate * (samples - candidateSample);
+      int next = step(candidate, colour, expectedNext);
+      if (colour == candidate || Math.abs(next - expectedNext) < 1) {
+        accept(candidate, candidateStep, candidateTime);
+        accept(colour, next, timestamp);
+        return;
+      }
+      candidate = null;
+    }
+
+    double expected = rate * samplesSinceRead;
+    int step = step(current, colour, expected);
+
+    // Includes reading the same color again when the panel should have moved on
+    if (Math.abs(step - expected) >= 1) {
+      candidate = colour;
+      candidateStep = step;
+      candidateSample = samples;
+      candidateTime = timestamp;
+      return;
+    }
+
+    accept(colour, step, timestamp);
+  }
+
+  /**
+   * The move between two colors closest to the expected one, from three segments back to
+   * three on
+   */
+  private static int step(Colour from, Colour to, double expected) {
+    int forward = 0;
+    while (from.nextIn(forward) != to) {
+      forward++;
+    }
+    if (forward == 0) {
+      return 0;
+    }
+
+    int backward = forward - 4;
+    return Math.abs(backward - expected) < Math.abs(forward - expected) ? backward : forward;
+  }
+
+  private void accept(Colour colour, int step, double timestamp) {
+    samplesSinceRead = 0;
+    candidate = null;
+
+    if (step != 0) {
+      // Only a change in the same direction as the last one times a whole segment
+      if (Integer.signum(step) == direction && timestamp > transitionTime) {
+        velocity = step / (timestamp - transitionTime);
+      } else {
+        velocity = 0;
+      }
+      direction = Integer.signum(step);
+      transitionTime = timestamp;
+    }
+
+    segments += step;
+    inferred += Math.max(0, Math.abs(step) - 1);
+    current = colour;
+  }
+
+  /**
+   * Segments per sample over the last few samples
+   */
+  private double getRate() {
+    int window = Math.min(samples, kRateWindow);
+    if (window == 0) {
+      return 0;
+    }
+    return (double) (segments - history[(samples - window) % kRateWindow]) / window;
+  }
+
+  /**
+   * Speed from the time between the last two color changes, positive in
+   * {@link Colour#nextIn} order. Falls off as the current segment lasts longer than that,
+   * so it drops to zero when the panel stops.
+   * @param timestamp FPGA time in seconds now
+   */
+  double getSegmentsPerSecond(double timestamp) {
+    double elapsed = timestamp - transitionTime;
+    if (velocity == 0 || elapsed <= 0) {
+      return velocity;
+    }
+    return Math.signum(velocity) * Math.min(Math.abs(velocity), 1 / elapsed);
+  }
+
+  /**
+   * Where the sensor is, in segments since the reset. The whole part is the segment
+   * under it, the same as {@link #getSegments()}; the fraction is guessed from the speed
+   * and the time since the segment started. Until the panel has moved, the sensor is
+   * taken to be in the middle.
+   * @param timestamp FPGA time in seconds now
+   */
+  double getPosition(double timestamp) {
+    return getPosition(timestamp, 0);
+  }
+
+  /**
+   * Where the sensor is, for a panel known to be turning at least a certain speed, e.g.
+   * while it is still catching up with the speed it was asked for
+   * @param minSpeed segments per second, either direction
+   */
+  double getPosition(double timestamp, double minSpeed) {
+    if (direction == 0) {
+      return segments + 0.5;
+    }
+
+    double speed = Math.max(Math.abs(getSegmentsPerSecond(timestamp)), Math.abs(minSpeed));
+    double travelled = speed * (timestamp - transitionTime);
+    travelled = Math.max(kMinFraction, Math.min(kMaxFraction, travelled));
+    // Moving backwards, the segment was entered from its far edge
+    return direction > 0 ? segments + travelled : segments + 1 - travelled;
+  }
+
+  /**
+   * Net segments passed since the reset, positive in {@link Colour#nextIn} order
+   */
+  int getSegments() {
+    return segments;
+  }
+
+  /**
+   * Segments counted without being seen, because they passed between two good reads
+   */
+  int getInferredSegments() {
+    return inferred;
+  }
+
+  /**
+   * The last color counted, or null if nothing has been read since the reset
+   */
+  Colour getCurrent() {
+    return current;
+  }
+}
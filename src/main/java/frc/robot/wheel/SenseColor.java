@@ -11,29 +11,116 @@ import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import static frc.robot.Constants.*;
 import frc.robot.Constants;
 
+import java.io.IOException;
 import java.lang.annotation.Target;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
-import edu.wpi.first.wpilibj.I2C;
-import com.revrobotics.ColorSensorV3;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
 import edu.wpi.first.wpilibj.util.Color;
 
-import com.revrobotics.ColorMatchResult;
-import com.revrobotics.ColorMatch;
+import frc.robot.sim.IOMode;
+
+import frc.robot.sim.RobotClock;
+import frc.robot.telemetry.DataLogger;
+import frc.robot.telemetry.EventLog;
+import frc.robot.telemetry.LoopProfiler;
 
 public class SenseColor extends SubsystemBase {
-  private final I2C.Port i2cPort = I2C.Port.kOnboard;
-  private final ColorSensorV3 m_colorSensor = new ColorSensorV3(i2cPort);
-  private int proximity = m_colorSensor.getProximity();
-  private double IR = m_colorSensor.getIR();
-  public Color detectedColor = m_colorSensor.getColor();
-  private final ColorMatch m_colorMatcher = new ColorMatch();
-  public ColorMatchResult match = m_colorMatcher.matchClosestColor(detectedColor);
+  // Only the sampler talks to the sensor after construction
+  private final ColorSensorIO io;
+  private final ColorSampler sampler;
+  // In a replay the loop samples, once per loop, rather than a thread on its own clock
+  private final boolean sampleInLoop;
+  private ColorSample sample;
+
+  private int proximity;
+  private double IR;
+  public Color detectedColor;
+
+  // Classification of the current sample, only redone when a new sample arrives
+  private ColourClassifier classifier = createClassifier();
+  private ColorSample classifiedSample = null;
+  private Colour colour = Colour.BLUE;
+  private double confidence = 0;
+
+  // Readings of the color being calibrated, if any, go into the next colour model
+  private final ColourCalibration calibration = new ColourCalibration();
+  private Colour calibrating = null;
+  private final EventLog.Event calibrationIncompleteEvent =
+    EventLog.getInstance().event("Colour model not saved, calibrate every color first", 0);
+  private final EventLog.Event calibrationSavedEvent = EventLog.getInstance().event("Colour model saved", 0);
+
+  private final RotationCounter rotationCounter = new RotationCounter(colorMinConfidence, colorMinProximity);
+
+  private final LoopProfiler.Section profile = LoopProfiler.getInstance().section("SenseColor");
+
+  private final DataLogger logger = DataLogger.getInstance();
+  private final int redSignal = logger.addSignal(ColorSensorIO.kRedSignal);
+  private final int greenSignal = logger.addSignal(ColorSensorIO.kGreenSignal);
+  private final int blueSignal = logger.addSignal(ColorSensorIO.kBlueSignal);
+  private final int irSignal = logger.addSignal(ColorSensorIO.kIRSignal);
+  private final int proximitySignal = logger.addSignal(ColorSensorIO.kProximitySignal);
   
   public SenseColor(){
-    m_colorMatcher.addColorMatch(Colour.BLUE.target);
-    m_colorMatcher.addColorMatch(Colour.YELLOW.target);
-    m_colorMatcher.addColorMatch(Colour.RED.target);
-    m_colorMatcher.addColorMatch(Colour.GREEN.target);
+    this(createIO());
+  }
+
+  public SenseColor(ColorSensorIO sensor) {
+    this(sensor, IOMode.get() == IOMode.REPLAY);
+  }
+
+  /**
+   * @param sampleInLoop take one sample each loop instead of starting the sampler thread,
+   * so the samples only depend on the loop
+   */
+  SenseColor(ColorSensorIO sensor, boolean sampleInLoop) {
+    io = sensor;
+    this.sampleInLoop = sampleInLoop;
+    sampler = new ColorSampler(sensor, colorSamplePeriod, colorSampleBufferSize);
+    sample = sampler.getLatest();
+    proximity = sample.proximity;
+    IR = sample.ir;
+    detectedColor = sample.color;
+
+    if (!sampleInLoop) {
+      sampler.start();
+    }
+  }
+
+  private static ColorSensorIO createIO() {
+    switch (IOMode.get()) {
+      case REAL:
+        return new RevColorSensorIO();
+      case REPLAY:
+        return new ReplayColorSensorIO();
+      default:
+        return new SimColorSensorIO();
+    }
+  }
+  
+  /**
+   * The colour model last calibrated on the robot, else one shipped in the deploy
+   * directory, else the fixed targets in Constants
+   */
+  private static ColourClassifier createClassifier() {
+    Path[] files = {
+      Filesystem.getOperatingDirectory().toPath().resolve(colourModelFile),
+      Filesystem.getDeployDirectory().toPath().resolve(colourModelFile)
+    };
+    for (Path file : files) {
+      if (Files.exists(file)) {
+        try {
+          return ColourModel.read(file);
+
+        } catch (IOException | IllegalArgumentException e) {
+          DriverStation.reportWarning("Could not load " + file + ": " + e.getMessage(), false);
+        }
+      }
+    }
+
+    return new ColourMatcher();
   }
   
   private Colour prevColor = Colour.YELLOW;
@@ -51,7 +138,18 @@ public class SenseColor extends SubsystemBase {
     private final int position;
     private final String capital;
     private final Color target; 
-   
+
+    // Colors in panel order, indexed by position
+    private static final Colour[] ring = new Colour[4];
+    // Colors indexed by their capital letter, null where there is none
+    private static final Colour[] byCapital = new Colour[128];
+
+    static {
+      for (Colour colour : values()) {
+        ring[colour.position] = colour;
+        byCapital[colour.capital.charAt(0)] = colour;
+      }
+    }
 
     Colour (final Color Target, final int position, final String capital) {
       this.target= Target;
@@ -61,58 +159,39 @@ public class SenseColor extends SubsystemBase {
 
     /**
      * 
-     * @param n = number of ofset color counterclockwise
-     * @return 
+     * @param n = number of ofset color counterclockwise, negative for clockwise
+     * @return the color n segments round, wrapping for any n
      */
     public Colour nextIn(int n) {
-      n = this.position + n % 4;
-
-      if (n == YELLOW.position) {
-        return YELLOW;
-      }
-
-      else if (n == BLUE.position) {
-        return BLUE;
-      }
-
-      else if (n == GREEN.position) {
-        return GREEN;
-      }
-
-      else if (n == RED.position) {
-        return RED;
-      }
-
-      else {
-        return null;
-      }
-    
+      return ring[(position + n) & 3];
     }
 
   public String getCapital() {
     return capital;
   }
 
+  Color getTarget() {
+    return target;
+  }
+
+  /**
+   * The color with this capital letter, yellow for anything else
+   */
+  public static Colour fromChar(final char ch) {
+    Colour colour = ch < byCapital.length ? byCapital[ch] : null;
+    return colour != null ? colour : Colour.YELLOW;
+  }
+
 	public static Colour fromString (final String Ch){
-    switch(Ch){
-    case("B"):
-      return Colour.BLUE;
-    case("Y"):
-      return Colour.YELLOW;
-    case("G"):
-      return Colour.GREEN;
-    case("R"):
-      return Colour.RED;
-    default:
+    if (Ch == null || Ch.length() != 1) {
       return Colour.YELLOW;
     }
-
+    return fromChar(Ch.charAt(0));
   }
 
 }
   
   public double getRawColor() {
-    IR = m_colorSensor.getIR();
     return IR;
   }
 
@@ -122,29 +201,110 @@ public class SenseColor extends SubsystemBase {
 
  
   public Colour getColour(){
-    
-    ColorMatchResult matching = m_colorMatcher.matchClosestColor(detectedColor);
+    classify();
+    return colour;
+  }
 
-    if (matching.color == Colour.BLUE.target) {
-      prevColor = Colour.BLUE;
-      return Colour.BLUE;
+  /**
+   * Matches the current sample against the targets, once per sample.
+   */
+  private void classify() {
+    if (classifiedSample == sample) {
+      return;
+    }
 
-    } else if (matching.color ==  Colour.RED.target) {
-      prevColor = Colour.RED;
-      return Colour.RED;
+    classify(sample);
+  }
 
-    } else if (matching.color ==  Colour.GREEN.target) {
-      prevColor = Colour.GREEN;
-      return Colour.GREEN;
+  private void classify(ColorSample newSample) {
+    colour = classifier.classify(newSample);
+    confidence = classifier.getConfidence();
+    if (classifier.isMatched()) {
+      prevColor = colour;
+    }
+    classifiedSample = newSample;
+  }
 
-    } else if (matching.color ==  Colour.YELLOW.target) {
-      prevColor = Colour.YELLOW;
-      return Colour.YELLOW;
+  /**
+   * Starts recording readings as this color, dropping any recorded for it before
+   */
+  public void startCalibration(Colour colour) {
+    calibration.clear(colour);
+    calibrating = colour;
+  }
+
+  public void stopCalibration() {
+    calibrating = null;
+  }
 
-    } else {
-      return Colour.BLUE;
+  /**
+   * Readings recorded for a color since its calibration was last started
+   */
+  public int getCalibrationCount(Colour colour) {
+    return calibration.getCount(colour);
+  }
+
+  /**
+   * Fits a colour model to the calibration readings, switches to it and writes it to the
+   * operating directory, /home/lvuser on the robot, where deploys leave it alone and it is
+   * loaded first at startup.
+   * @return false if some color is still missing readings
+   */
+  public boolean saveCalibration() {
+    if (!calibration.isComplete()) {
+      calibrationIncompleteEvent.post();
+      return false;
     }
 
+    ColourModel model = calibration.fit();
+    classifier = model;
+    classifiedSample = null;
+
+    Path file = Filesystem.getOperatingDirectory().toPath().resolve(colourModelFile);
+    try {
+      model.save(file);
+      calibrationSavedEvent.post();
+
+    } catch (IOException e) {
+      DriverStation.reportWarning("Could not save " + file + ", the colour model is only used until restart: "
+        + e.getMessage(), false);
+    }
+    return true;
+  }
+
+  /**
+   * The sensor, for a simulation to show colors to. Don't read it from the robot loop.
+   */
+  ColorSensorIO getIO() {
+    return io;
+  }
+
+  /**
+   * Counts panel segments from every sample, including ones read between two loops
+   */
+  RotationCounter getRotationCounter() {
+    return rotationCounter;
+  }
+
+  /**
+   * The sensor reading used during this loop. Every reader in one loop sees the same one.
+   */
+  public ColorSample getSample() {
+    return sample;
+  }
+
+  /**
+   * Time in seconds since the current sample was read from the sensor
+   */
+  public double getSampleAge() {
+    return RobotClock.getTime() - sample.timestamp;
+  }
+
+  /**
+   * Whether the sampler has stopped delivering new readings, e.g. the I2C bus stalled
+   */
+  public boolean isSampleStale() {
+    return getSampleAge() > colorSampleStaleTime;
   }
 
   public Colour getPrevColour() {
@@ -169,16 +329,39 @@ public class SenseColor extends SubsystemBase {
 
   }
    public double getConfidence(){
-     return m_colorMatcher.matchClosestColor(detectedColor).confidence;
+     classify();
+     return confidence;
    }
   
 
   @Override
   public void periodic() {
     // This method will be called once per scheduler run
-    detectedColor = m_colorSensor.getColor();
-    IR = m_colorSensor.getIR();
-    proximity = m_colorSensor.getProximity();
+    profile.start();
+    if (sampleInLoop) {
+      sampler.sample();
+    }
+
+    ColorSample next;
+    while ((next = sampler.poll()) != null) {
+      logger.log(redSignal, next.color.red);
+      logger.log(greenSignal, next.color.green);
+      logger.log(blueSignal, next.color.blue);
+      logger.log(irSignal, next.ir);
+      logger.log(proximitySignal, next.proximity);
+
+      classify(next);
+      if (calibrating != null) {
+        calibration.add(calibrating, next);
+      }
+      rotationCounter.addSample(colour, confidence, next.proximity, next.timestamp);
+    }
+
+    sample = sampler.getLatest();
+    detectedColor = sample.color;
+    IR = sample.ir;
+    proximity = sample.proximity;
+    profile.stop();
   }
 
 }
@@ -0,0 +1,33 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.wheel;
+
+import edu.wpi.first.wpilibj.util.Color;
+import frc.robot.sim.RobotClock;
+
+/**
+ * Color sensor with no hardware behind it. It reads whatever color it was last given, 
+ * black and far away until then.
+ */
+public class SimColorSensorIO implements ColorSensorIO {
+  private volatile Color color = new Color(0, 0, 0);
+  private volatile int proximity = 0;
+
+  /**
+   * Sets what the sensor sees. Safe to call from any thread.
+   */
+  public void setColor(Color color, int proximity) {
+    this.color = color;
+    this.proximity = proximity;
+  }
+
+  @Override
+  public ColorSample read() {
+    return new ColorSample(color, 0, proximity, RobotClock.getTime());
+  }
+}
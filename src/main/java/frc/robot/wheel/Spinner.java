@@ -7,53 +7,139 @@
 
 package frc.robot.wheel;
 
+import edu.wpi.first.wpilibj.SpeedController;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.can.CANRole;
+import frc.robot.sim.MotorControllers;
+import frc.robot.sim.RobotClock;
+import frc.robot.sim.SimSpeedController;
+import frc.robot.telemetry.EventLog;
 import frc.robot.wheel.SenseColor.*;
 
-import com.ctre.phoenix.motorcontrol.can.WPI_TalonSRX;
-
 import static frc.robot.Constants.*;
 
 public class Spinner extends SubsystemBase {
 
   private SenseColor colorSense;
 
-  private final WPI_TalonSRX SpinnerMotor = new WPI_TalonSRX(kSpinnerPort);
+  private final SpeedController SpinnerMotor;
+  private final ControlPanelSim panelSim;
+  private boolean onColor = false;
+  private double targetSpeed = 0;
+
+  // Last color message asked for and the color it puts under our sensor
+  private String selectedMessage = null;
+  private Colour selectedObjective = null;
   
   private double colorSwitches = 9;
+  private final RotationCounter rotationCounter;
+  private int passesPosted = 0;
 
-  private Colour pastColor = Colour.YELLOW;
   private Colour countCol= Colour.GREEN; 
 
+  private final EventLog.Event releaseEvent = EventLog.getInstance().event("Release!");
+  private final EventLog.Event colorPassedEvent = EventLog.getInstance().event("color passed", 0);
+
   public Spinner(SenseColor colorSensor) {
+    this(colorSensor, MotorControllers.talonSRX("Spinner", kSpinnerPort, CANRole.OPEN_LOOP));
+  }
+
+  public Spinner(SenseColor colorSensor, SpeedController motor) {
     colorSense = colorSensor;
+    rotationCounter = colorSensor.getRotationCounter();
+    SpinnerMotor = motor;
+
+    // With no real spinner or sensor, turn a simulated panel under the sensor
+    if (motor instanceof SimSpeedController && colorSensor.getIO() instanceof SimColorSensorIO) {
+      panelSim = new ControlPanelSim((SimSpeedController) motor, (SimColorSensorIO) colorSensor.getIO());
+    } else {
+      panelSim = null;
+    }
   }
 
   public void move(double speed) {
     SpinnerMotor.set(speed);
   }
 
+  /**
+   * Turns the panel to put a color under the field's sensor, two segments round from
+   * ours. Runs fast, slows down along a profile and covers the last stretch at an
+   * approach speed slow enough to stop as soon as the color is seen. Call it every loop.
+   */
   public void toSelectedColor(String c) {
-    Colour objective = Colour.fromString(c).nextIn(2);
-    move(colorSpeed);
+    // The game message is the same string every loop, so only parse it when it changes
+    if (!c.equals(selectedMessage)) {
+      selectedMessage = c;
+      selectedObjective = Colour.fromString(c).nextIn(2);
+    }
+    Colour objective = selectedObjective;
+    Colour current = rotationCounter.getCurrent();
+
+    // Nothing to position from, so creep until there is
+    if (current == null || colorSense.isSampleStale()) {
+      onColor = false;
+      targetSpeed = 0;
+      move(colorSpeed);
+      return;
+    }
 
-    if (colorSense.getColour() == objective){
+    // Once stopped, stay put until the color changes
+    onColor = current == objective;
+    if (onColor) {
+      targetSpeed = 0;
       move(0);
-      System.out.println("Release!");
+      releaseEvent.post();
+      return;
+    }
+
+    // Distance to the start of the next segment of the objective color
+    int ahead = 1;
+    while (current.nextIn(ahead) != objective) {
+      ahead++;
     }
+    // While speeding up the panel lags the speed asked for, and while slowing down it is
+    // slower than over the last segment; taking the faster errs towards braking early
+    double position = rotationCounter.getPosition(RobotClock.getTime(), targetSpeed);
+    double toGo = rotationCounter.getSegments() + ahead - position;
+
+    // Fastest speed that can still slow to the approach speed in time
+    targetSpeed = colorApproachSpeed;
+    if (toGo > colorApproachDistance) {
+      targetSpeed = Math.min(colorPositionMaxSpeed, Math.sqrt(colorApproachSpeed * colorApproachSpeed
+        + 2 * colorPositionDecel * (toGo - colorApproachDistance)));
+    }
+    move(colorMotorDirection * Math.min(1, targetSpeed * colorOutputPerSpeed));
   }
 
+  /**
+   * Color switches left to count, twice the rotations
+   */
   public double getColorSwitches() {
-    return colorSwitches;
+    return colorSwitches - getColorPasses();
+  }
+
+  /**
+   * Times the count color has come round since counting started. Each color is every
+   * fourth segment, whichever way the panel turns.
+   */
+  private int getColorPasses() {
+    return Math.abs(rotationCounter.getSegments()) / 4;
   }
 
+  /**
+   * Sets the rotations to count, starting from here
+   */
   public void changeMaxSwitches(double maxColorSwitches) {
     colorSwitches = maxColorSwitches * 2 ;
+    rotationCounter.reset();
+    passesPosted = 0;
   };
 
 
   public void setCountColor() {
 	  countCol = colorSense.getColour();
+    rotationCounter.reset();
+    passesPosted = 0;
   }
 
 
@@ -64,15 +150,18 @@ public Colour getCountColor(){
   public void toSelectedColorSwitches(){
     
     move(-colorSwitchSpeed);
-    pastColor = colorSense.getColour();
-    
-    if(colorSense.getColour() == Colour.BLUE && pastColor != colorSense.getColour())  {
-      colorSwitches--;
-      System.out.println("color passed");
-     
+
+    // SenseColor counts every sample; if none are arriving the count can't be trusted
+    if (colorSense.isSampleStale()) {
+      return;
     }
 
-    if (colorSwitches <= 0){
+    int passes = getColorPasses();
+    for (; passesPosted < passes; passesPosted++) {
+      colorPassedEvent.post();
+    }
+
+    if (getColorSwitches() <= 0){
       toSelectedColor(countCol.getCapital());
     }
 
@@ -80,8 +169,18 @@ public Colour getCountColor(){
 
 
 
+  /**
+   * The simulated panel, or null on a real spinner
+   */
+  ControlPanelSim getPanelSim() {
+    return panelSim;
+  }
+
   @Override
   public void periodic() {
+    if (panelSim != null) {
+      panelSim.update(kLoopPeriodSeconds);
+    }
   }
 
 
@@ -0,0 +1,86 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.geometry.Pose2d;
+import edu.wpi.first.wpilibj.trajectory.Trajectory;
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.drive.FollowPathCommand;
+import frc.robot.drive.RevDrivetrain;
+import frc.robot.drive.SimDrivetrainIO;
+import frc.robot.sim.RobotClock;
+
+import static frc.robot.Constants.*;
+import static org.junit.Assert.*;
+
+/**
+ * Drives the autonomous path from each starting position on the simulated drivetrain,
+ * stepping the clock a loop at a time rather than waiting for it
+ */
+public class AutonomousPathTest {
+  private static final double kPositionTolerance = 0.1;
+  // On the narrow track the robot keeps turning for a while after the path stops turning
+  private static final double kHeadingTolerance = 15;
+
+  private double time;
+
+  @Before
+  public void setUp() {
+    time = 100;
+    RobotClock.setSource(() -> time);
+  }
+
+  @After
+  public void restoreClock() {
+    RobotClock.setSource(Timer::getFPGATimestamp);
+  }
+
+  @Test
+  public void followsThePathFromEachStartingPosition() {
+    for (Map.Entry<String, Pose2d> position : Update.getStartingPositions().entrySet()) {
+      Pose2d start = position.getValue();
+      Trajectory path = RobotContainer.getMovingTrajectory(start);
+      RevDrivetrain drive = new RevDrivetrain(new SimDrivetrainIO());
+      drive.resetPose(start);
+
+      Command command = new FollowPathCommand(drive, path);
+      double startTime = time;
+      long wallStart = System.nanoTime();
+      command.initialize();
+      int loops = 0;
+      do {
+        time += kLoopPeriodSeconds;
+        drive.periodic();
+        command.execute();
+        loops++;
+      } while (!command.isFinished() && loops < 1000);
+      command.end(false);
+      double wallSeconds = (System.nanoTime() - wallStart) / 1e9;
+
+      String name = position.getKey();
+      double duration = time - startTime;
+      assertTrue(name + " path took " + duration + " s", command.isFinished());
+      assertEquals(name + " path time", path.getTotalTimeSeconds(), duration, 2 * kLoopPeriodSeconds);
+      assertTrue(name + " path ran at real time", wallSeconds < duration / 10);
+
+      Pose2d end = path.getStates().get(path.getStates().size() - 1).poseMeters;
+      Pose2d pose = drive.getPose();
+      assertEquals(name + " path end", 0,
+        pose.getTranslation().getDistance(end.getTranslation()), kPositionTolerance);
+      assertEquals(name + " path heading", end.getRotation().getDegrees(),
+        pose.getRotation().getDegrees(), kHeadingTolerance);
+    }
+  }
+}
@@ -0,0 +1,68 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.can;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CANBudgetTest {
+  private static final double kUtilizationDelta = 1e-9;
+
+  private final CANBudget bus = new CANBudget();
+
+  @Test
+  public void appliesEachRolesPeriods() {
+    SimCANDevice sparkLeader = bus.register(new SimCANDevice("Spark Leader", CANDevice.Type.SPARK_MAX, CANRole.LEADER));
+    SimCANDevice sparkFollower = bus.register(new SimCANDevice("Spark Follower", CANDevice.Type.SPARK_MAX, CANRole.FOLLOWER));
+    SimCANDevice talonFollower = bus.register(new SimCANDevice("Talon Follower", CANDevice.Type.TALON_SRX, CANRole.FOLLOWER));
+    SimCANDevice talonClosedLoop = bus.register(new SimCANDevice("Talon Closed Loop", CANDevice.Type.TALON_SRX, CANRole.CLOSED_LOOP));
+
+    // Nothing is sent until init applies them all
+    assertNull(sparkLeader.getAppliedPeriods());
+    assertEquals(0, bus.applyAll());
+
+    assertArrayEquals(new int[] {10, 20, 20}, sparkLeader.getAppliedPeriods());
+    assertArrayEquals(new int[] {100, 500, 500}, sparkFollower.getAppliedPeriods());
+    // A Talon's 500 ms feedback frame is held to 255 ms
+    assertArrayEquals(new int[] {100, 255, 255, 255, 255, 255, 255, 255}, talonFollower.getAppliedPeriods());
+    assertArrayEquals(new int[] {100, 20, 255, 255, 255, 255, 255, 255}, talonClosedLoop.getAppliedPeriods());
+  }
+
+  @Test
+  public void appliesDevicesRegisteredLaterStraightAway() {
+    bus.register(new SimCANDevice("Early", CANDevice.Type.SPARK_MAX, CANRole.LEADER));
+    bus.applyAll();
+
+    SimCANDevice late = bus.register(new SimCANDevice("Late", CANDevice.Type.SPARK_MAX, CANRole.OPEN_LOOP));
+    assertArrayEquals(new int[] {100, 500, 500}, late.getAppliedPeriods());
+    assertEquals(2, bus.getDevices().size());
+  }
+
+  @Test
+  public void estimatesUtilizationFromThePeriods() {
+    bus.register(new SimCANDevice("Spark Leader", CANDevice.Type.SPARK_MAX, CANRole.LEADER));
+    bus.register(new SimCANDevice("Spark Follower", CANDevice.Type.SPARK_MAX, CANRole.FOLLOWER));
+    bus.register(new SimCANDevice("Talon Follower", CANDevice.Type.TALON_SRX, CANRole.FOLLOWER));
+    bus.register(new SimCANDevice("Talon Closed Loop", CANDevice.Type.TALON_SRX, CANRole.CLOSED_LOOP));
+
+    // Frames per second:
+    // Spark leader 100 + 50 + 50 status, 50 control = 250
+    // Spark follower 10 + 2 + 2 = 14
+    // Talon follower 10, then 7 frames at 255 ms = 10 + 7000 / 255
+    // Talon closed loop 10 + 50, 6 frames at 255 ms, 50 control = 110 + 6000 / 255
+    double frames = 250 + 14 + 10 + 7000.0 / 255 + 110 + 6000.0 / 255;
+    // 150 bits a frame on a 1 Mbit/s bus: about 6.5%
+    assertEquals(frames * 150 / 1e6, bus.getEstimatedUtilization(), kUtilizationDelta);
+    assertEquals(0.0652, bus.getEstimatedUtilization(), 1e-4);
+
+    // At factory periods: Sparks 100 + 50 + 50 + 100, Talons 100 + 50 + 6 * 6.25 + 100
+    double defaultFrames = 2 * 300 + 2 * 287.5;
+    assertEquals(defaultFrames * 150 / 1e6, bus.getDefaultUtilization(), kUtilizationDelta);
+  }
+}
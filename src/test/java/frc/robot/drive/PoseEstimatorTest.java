@@ -0,0 +1,130 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.drive;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static frc.robot.Constants.*;
+import static org.junit.Assert.*;
+
+/**
+ * Drives the estimator along a straight line on the x axis at 1 m/s, one entry a second,
+ * so the estimate at any time is easy to work out by hand.
+ */
+public class PoseEstimatorTest {
+  private static final int kCapacity = 5;
+  private static final double kDelta = 1e-9;
+
+  private PoseEstimator estimator;
+  private int time;
+
+  @Before
+  public void setUp() {
+    estimator = new PoseEstimator(kCapacity);
+    estimator.reset(0, 0, 0, 0);
+    time = 0;
+  }
+
+  /**
+   * Adds one entry a second for the given number of seconds
+   */
+  private void drive(int seconds) {
+    for (int i = 0; i < seconds; i++) {
+      estimator.update(time, 0, time, time);
+      time++;
+    }
+  }
+
+  @Test
+  public void correctsFromTheEstimateBetweenTwoEntries() {
+    drive(4);
+    assertEquals(3, estimator.getX(), kDelta);
+
+    // Halfway between the entries at 1 s and 2 s the estimate is 1.5 m; the measurement is
+    // 0.4 m further on, and half of that is corrected
+    assertTrue(estimator.addMeasurement(1.5, 1.9, 0, 0.5, visionMaxCorrection));
+    assertEquals(3.2, estimator.getX(), kDelta);
+    assertEquals(0, estimator.getY(), kDelta);
+  }
+
+  @Test
+  public void interpolatesTheHeading() {
+    estimator.update(0, 0, 0, 0);
+    estimator.update(1, 0.4, 0, 0);
+
+    assertEquals(0.1, estimator.getHeadingAt(0.25), kDelta);
+    assertEquals(0.4, estimator.getHeadingAt(5), kDelta);
+    assertEquals(0, estimator.getHeadingAt(-1), kDelta);
+  }
+
+  @Test
+  public void rejectsMeasurementsBeyondTheMaxCorrection() {
+    drive(4);
+
+    assertFalse(estimator.addMeasurement(3, 3, visionMaxCorrection + 0.01, 1, visionMaxCorrection));
+    assertEquals(3, estimator.getX(), kDelta);
+    assertEquals(0, estimator.getY(), kDelta);
+
+    assertTrue(estimator.addMeasurement(3, 3, visionMaxCorrection - 0.01, 1, visionMaxCorrection));
+    assertEquals(visionMaxCorrection - 0.01, estimator.getY(), kDelta);
+  }
+
+  @Test
+  public void rejectsTimesOutsideTheHistory() {
+    assertFalse(estimator.addMeasurement(0, 0, 0, 1, visionMaxCorrection));
+
+    // Only 3 s to 7 s are still held
+    drive(8);
+    assertFalse(estimator.addMeasurement(2.5, 2.5, 0.1, 1, visionMaxCorrection));
+    assertEquals(0, estimator.getY(), kDelta);
+
+    // Past the newest entry the newest one is corrected
+    assertTrue(estimator.addMeasurement(9, 7, 0.1, 1, visionMaxCorrection));
+    assertEquals(0.1, estimator.getY(), kDelta);
+  }
+
+  @Test
+  public void replaysAfterWrappingAround() {
+    drive(8);
+    assertEquals(kCapacity, estimator.size());
+
+    // The oldest entry sits at the end of the arrays, so the replay wraps past the start
+    assertTrue(estimator.addMeasurement(3, 3.5, -0.5, 1, visionMaxCorrection));
+    assertEquals(7.5, estimator.getX(), kDelta);
+    assertEquals(-0.5, estimator.getY(), kDelta);
+
+    drive(1);
+    assertEquals(8.5, estimator.getX(), kDelta);
+    assertEquals(-0.5, estimator.getY(), kDelta);
+  }
+
+  @Test
+  public void ignoresMeasurementsOlderThanTheLastOneUsed() {
+    drive(5);
+
+    assertTrue(estimator.addMeasurement(3, 3, 0.3, 1, visionMaxCorrection));
+    assertFalse(estimator.addMeasurement(2, 2, 0.1, 1, visionMaxCorrection));
+    assertEquals(0.3, estimator.getY(), kDelta);
+
+    // A later one builds on it
+    assertTrue(estimator.addMeasurement(4, 4, 0.5, 0.5, visionMaxCorrection));
+    assertEquals(0.4, estimator.getY(), kDelta);
+  }
+
+  @Test
+  public void resetForgetsTheLastMeasurement() {
+    drive(5);
+    assertTrue(estimator.addMeasurement(4, 4, 0.1, 1, visionMaxCorrection));
+
+    estimator.reset(0, 0, 0, 0);
+    time = 0;
+    drive(3);
+    assertTrue(estimator.addMeasurement(1, 1, 0.1, 1, visionMaxCorrection));
+  }
+}
@@ -0,0 +1,144 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.drive;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static frc.robot.Constants.*;
+import static org.junit.Assert.*;
+
+/**
+ * Runs the simulated drivetrain and checks that its encoders and gyro, put through the
+ * pose estimator as RevDrivetrain does each loop, agree with where the simulated robot
+ * actually went. The true path is integrated every simulation step from the wheel speeds.
+ */
+public class SimDrivetrainIOTest {
+  private static final int kStepsPerLoop = (int) Math.round(kLoopPeriodSeconds / simStepSeconds);
+
+  private SimDrivetrainIO io;
+  private PoseEstimator estimator;
+
+  private double time;
+  // The simulated robot's real position, meters
+  private double trueX;
+  private double trueY;
+
+  @Before
+  public void setUp() {
+    io = new SimDrivetrainIO();
+    estimator = new PoseEstimator(poseHistorySize);
+    estimator.reset(0, 0, 0, gyroHeading());
+    estimator.update(0, gyroHeading(), io.getLeftPosition(), io.getRightPosition());
+
+    time = 0;
+    trueX = 0;
+    trueY = 0;
+  }
+
+  /**
+   * The gyro as RevDrivetrain reads it, counterclockwise positive in radians
+   */
+  private double gyroHeading() {
+    return Math.toRadians(-io.getGyroAngle());
+  }
+
+  /**
+   * Drives for a while, updating the estimate once per loop
+   * @param leftVolts voltage driving the left side forward
+   * @param rightVolts voltage driving the right side forward
+   */
+  private void drive(double leftVolts, double rightVolts, double seconds) {
+    // The right gearbox is mirrored, so forward is negative
+    io.getLeftController().setVoltage(leftVolts);
+    io.getRightController().setVoltage(-rightVolts);
+
+    int loops = (int) Math.round(seconds / kLoopPeriodSeconds);
+    for (int loop = 0; loop < loops; loop++) {
+      for (int step = 0; step < kStepsPerLoop; step++) {
+        double heading = io.getHeadingRadians();
+        io.update(simStepSeconds);
+        double speed = (io.getLeftVelocity() + io.getRightVelocity()) / 2;
+        double midHeading = (heading + io.getHeadingRadians()) / 2;
+        trueX += speed * Math.cos(midHeading) * simStepSeconds;
+        trueY += speed * Math.sin(midHeading) * simStepSeconds;
+      }
+
+      time += kLoopPeriodSeconds;
+      estimator.update(time, gyroHeading(), io.getLeftPosition(), io.getRightPosition());
+    }
+  }
+
+  private void assertPoseMatches(double tolerance) {
+    assertEquals("x", trueX, estimator.getX(), tolerance);
+    assertEquals("y", trueY, estimator.getY(), tolerance);
+    assertEquals("heading", io.getHeadingRadians(), estimator.getHeading(), 1e-9);
+  }
+
+  @Test
+  public void drivingStraightMovesTheEncoderDistance() {
+    drive(6, 6, 3);
+
+    assertEquals(io.getLeftPosition(), io.getRightPosition(), 1e-9);
+    assertEquals(0, io.getGyroAngle(), 1e-9);
+    assertTrue("Robot should have moved", io.getLeftPosition() > 1);
+
+    assertEquals(io.getLeftPosition(), estimator.getX(), 1e-9);
+    assertEquals(0, estimator.getY(), 1e-9);
+    assertPoseMatches(1e-6);
+  }
+
+  @Test
+  public void drivingBackwardsCountsDown() {
+    drive(-6, -6, 2);
+
+    assertTrue(io.getLeftPosition() < -0.5);
+    assertEquals(io.getLeftPosition(), estimator.getX(), 1e-9);
+    assertPoseMatches(1e-6);
+  }
+
+  @Test
+  public void gyroAgreesWithTheEncoders() {
+    drive(3, 7, 2);
+    drive(8, 2, 2);
+
+    double encoderHeading = (io.getRightPosition() - io.getLeftPosition()) / kTrackWidthMeters;
+    assertEquals(encoderHeading, gyroHeading(), 1e-6);
+    // Turning left is counterclockwise, which the navX reads as negative
+    assertEquals(Math.toDegrees(-io.getHeadingRadians()), io.getGyroAngle(), 1e-9);
+  }
+
+  @Test
+  public void odometryFollowsAnArc() {
+    drive(4, 7, 3);
+    assertPoseMatches(0.02);
+    assertTrue("Robot should have turned left", io.getHeadingRadians() > 0.5);
+  }
+
+  @Test
+  public void odometryFollowsAnSCurve() {
+    drive(6, 6, 1);
+    drive(3, 6, 1.5);
+    drive(6, 3, 1.5);
+    drive(-5, -4, 1);
+    assertPoseMatches(0.03);
+  }
+
+  @Test
+  public void resetsZeroTheEncodersAndGyro() {
+    drive(5, 6, 1);
+    io.resetEncoders();
+    io.resetGyro();
+
+    assertEquals(0, io.getLeftPosition(), 0);
+    assertEquals(0, io.getRightPosition(), 0);
+    assertEquals(0, io.getGyroAngle(), 0);
+    // The robot keeps moving after the reset
+    assertTrue(io.getLeftVelocity() > 0);
+  }
+}
@@ -0,0 +1,132 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.drive;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.wpi.first.wpilibj.geometry.Pose2d;
+import edu.wpi.first.wpilibj.geometry.Rotation2d;
+import edu.wpi.first.wpilibj.trajectory.Trajectory;
+import edu.wpi.first.wpilibj.trajectory.TrajectoryConfig;
+import edu.wpi.first.wpilibj.trajectory.TrajectoryGenerator;
+
+import static org.junit.Assert.*;
+
+public class TrajectoryCacheTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private static final double kMaxVelocity = 1;
+  private static final double kMaxAcceleration = 1;
+  private static final int kVersion = 1;
+
+  private Path file;
+  private final Map<String, Pose2d> positions = new LinkedHashMap<>();
+  private int generated = 0;
+
+  @Before
+  public void setUp() {
+    file = folder.getRoot().toPath().resolve("trajectories.bin");
+    positions.put("Center", new Pose2d(0, 0, new Rotation2d()));
+    positions.put("Left", new Pose2d(0, 1, new Rotation2d()));
+  }
+
+  private Trajectory generate(Pose2d start) {
+    generated++;
+    return TrajectoryGenerator.generateTrajectory(
+      Arrays.asList(start, new Pose2d(2, 0.5, Rotation2d.fromDegrees(30))),
+      new TrajectoryConfig(kMaxVelocity, kMaxAcceleration));
+  }
+
+  /**
+   * Loads or generates like the background thread, and returns how many trajectories it generated
+   */
+  private int load(TrajectoryCache cache) {
+    int before = generated;
+    cache.run();
+    assertTrue(cache.isReady());
+    return generated - before;
+  }
+
+  private TrajectoryCache cache(int version) {
+    return new TrajectoryCache(file, positions, this::generate, kMaxVelocity, kMaxAcceleration, version);
+  }
+
+  private static void assertSameStates(Trajectory expected, Trajectory actual) {
+    List<Trajectory.State> expectedStates = expected.getStates();
+    List<Trajectory.State> actualStates = actual.getStates();
+    assertEquals(expectedStates.size(), actualStates.size());
+    for (int i = 0; i < expectedStates.size(); i++) {
+      Trajectory.State e = expectedStates.get(i);
+      Trajectory.State a = actualStates.get(i);
+      assertEquals(e.timeSeconds, a.timeSeconds, 0);
+      assertEquals(e.velocityMetersPerSecond, a.velocityMetersPerSecond, 0);
+      assertEquals(e.accelerationMetersPerSecondSq, a.accelerationMetersPerSecondSq, 0);
+      assertEquals(e.poseMeters.getTranslation().getX(), a.poseMeters.getTranslation().getX(), 0);
+      assertEquals(e.poseMeters.getTranslation().getY(), a.poseMeters.getTranslation().getY(), 0);
+      assertEquals(e.poseMeters.getRotation().getRadians(), a.poseMeters.getRotation().getRadians(), 0);
+      assertEquals(e.curvatureRadPerMeter, a.curvatureRadPerMeter, 0);
+    }
+  }
+
+  @Test
+  public void loadsWhatItGenerated() {
+    TrajectoryCache first = cache(kVersion);
+    assertEquals(2, load(first));
+    assertTrue(Files.exists(file));
+
+    TrajectoryCache second = cache(kVersion);
+    assertEquals(0, load(second));
+    for (Pose2d start : positions.values()) {
+      assertSameStates(first.get(start), second.get(start));
+      assertSameStates(generate(start), second.get(start));
+    }
+  }
+
+  @Test
+  public void regeneratesWhenAStartingPoseMoves() {
+    load(cache(kVersion));
+
+    positions.put("Left", new Pose2d(0, 1.5, new Rotation2d()));
+    TrajectoryCache moved = cache(kVersion);
+    assertEquals(2, load(moved));
+    assertSameStates(generate(positions.get("Left")), moved.get(positions.get("Left")));
+
+    // And the rewritten file is loaded from then on
+    assertEquals(0, load(cache(kVersion)));
+  }
+
+  @Test
+  public void regeneratesWhenThePathVersionChanges() {
+    load(cache(kVersion));
+    assertEquals(2, load(cache(kVersion + 1)));
+    assertEquals(0, load(cache(kVersion + 1)));
+  }
+
+  @Test
+  public void regeneratesOverAGarbledFile() throws IOException {
+    load(cache(kVersion));
+    byte[] bytes = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+
+    TrajectoryCache cache = cache(kVersion);
+    assertEquals(2, load(cache));
+    assertSameStates(generate(positions.get("Center")), cache.get(positions.get("Center")));
+  }
+}
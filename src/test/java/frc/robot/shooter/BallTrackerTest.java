@@ -0,0 +1,169 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.shooter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import frc.robot.sim.SimSolenoidIO;
+import frc.robot.sim.SimSpeedController;
+
+import static frc.robot.Constants.*;
+import static org.junit.Assert.*;
+
+/**
+ * Runs the tracker against the simulated flywheel and a conveyor whose current is
+ * scripted, one robot loop at a time, in the order the scheduler runs them.
+ */
+public class BallTrackerTest {
+  private static final double kRunningCurrent = 3;
+  private static final double kBallCurrent = kRunningCurrent + 2 * ballCurrentSpike;
+
+  private SimShooterIO shooterIO;
+  private SimSpeedController conveyorMotor;
+  private ChangePosition goalMover;
+  private Shooter shooter;
+  private Conveyor conveyor;
+  private BallTracker tracker;
+
+  private double time;
+
+  @Before
+  public void setUp() {
+    shooterIO = new SimShooterIO();
+    conveyorMotor = new SimSpeedController();
+    goalMover = new ChangePosition(new SimSolenoidIO(), new SimSolenoidIO());
+    shooter = new Shooter(goalMover, null, shooterIO);
+    conveyor = new Conveyor(goalMover, conveyorMotor);
+    tracker = new BallTracker(shooter, conveyor, goalMover);
+    time = 0;
+  }
+
+  private void loop() {
+    time += kLoopPeriodSeconds;
+    shooter.periodic();
+    conveyor.periodic();
+    tracker.update(time);
+  }
+
+  private void loops(double seconds) {
+    int count = (int) Math.round(seconds / kLoopPeriodSeconds);
+    for (int i = 0; i < count; i++) {
+      loop();
+    }
+  }
+
+  /**
+   * Runs the conveyor with a ball pulled on for a few loops
+   */
+  private void intakeBall() {
+    conveyorMotor.setLoadCurrent(kBallCurrent);
+    loops(0.1);
+    conveyorMotor.setLoadCurrent(kRunningCurrent);
+    loops(0.5);
+  }
+
+  private void shootBall(double recoverySeconds) {
+    shooterIO.shootBall();
+    loops(recoverySeconds);
+  }
+
+  @Test
+  public void countsBallsIn() {
+    goalMover.collectPose();
+    conveyor.collect();
+    conveyorMotor.setLoadCurrent(kRunningCurrent);
+    loops(0.5);
+
+    for (int ball = 0; ball < 3; ball++) {
+      intakeBall();
+    }
+
+    assertEquals(3, tracker.getBallsIn());
+    assertEquals(3, tracker.getBallCount());
+    assertEquals(0, tracker.getBallsOut());
+  }
+
+  @Test
+  public void ignoresTheInrushWhenTheConveyorStarts() {
+    goalMover.collectPose();
+    conveyor.collect();
+    conveyorMotor.setLoadCurrent(kBallCurrent);
+    loops(ballInrushTime * 0.8);
+    conveyorMotor.setLoadCurrent(kRunningCurrent);
+    loops(0.5);
+
+    assertEquals(0, tracker.getBallsIn());
+  }
+
+  @Test
+  public void ignoresCurrentWhileTheConveyorIsOff() {
+    goalMover.collectPose();
+    conveyorMotor.setLoadCurrent(kBallCurrent);
+    loops(1);
+
+    assertEquals(0, tracker.getBallsIn());
+  }
+
+  @Test
+  public void countsBallsOutUntilEmpty() {
+    tracker.setBallCount(3);
+    shooter.setSpeedSpark();
+    loops(2);
+
+    for (int ball = 0; ball < 3; ball++) {
+      assertFalse(tracker.isEmpty());
+      shootBall(0.5);
+    }
+
+    assertTrue(tracker.isEmpty());
+    assertEquals(3, tracker.getBallsOut());
+    assertEquals(2, tracker.getShotsPerSecond(), 0.01);
+  }
+
+  @Test
+  public void spinningUpChangingSetpointAndStoppingAreNotShots() {
+    tracker.setBallCount(3);
+    shooter.setSpeedSpark();
+    loops(2);
+    shooter.setRelativeSpeedSpark(shooterMapMinDistance);
+    loops(2);
+    shooter.stop();
+    loops(2);
+
+    assertEquals(0, tracker.getBallsOut());
+    assertEquals(3, tracker.getBallCount());
+  }
+
+  @Test
+  public void countsShotsInVoltageMode() {
+    tracker.setBallCount(2);
+    // Open loop, the wheel takes a few seconds to reach its free speed and to recover
+    shooter.shoot();
+    loops(5);
+
+    shootBall(2);
+    shootBall(2);
+
+    assertEquals(2, tracker.getBallsOut());
+    assertTrue(tracker.isEmpty());
+  }
+
+  @Test
+  public void neverCountsBelowEmpty() {
+    tracker.setBallCount(1);
+    shooter.setSpeedSpark();
+    loops(2);
+
+    shootBall(0.5);
+    shootBall(0.5);
+
+    assertEquals(2, tracker.getBallsOut());
+    assertEquals(0, tracker.getBallCount());
+  }
+}
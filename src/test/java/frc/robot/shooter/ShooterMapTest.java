@@ -0,0 +1,76 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.shooter;
+
+import org.junit.Test;
+
+import static frc.robot.Constants.*;
+import static org.junit.Assert.*;
+
+public class ShooterMapTest {
+  // Finer than the table, so every interpolated span is crossed several times
+  private static final double kSampleStep = 0.001;
+  // Samples this far past each end of the table too, where the nearest end is used
+  private static final double kMargin = 1;
+
+  private static void assertFiniteAndMonotonic(ShooterMap map) {
+    double lastRPM = Double.NEGATIVE_INFINITY;
+    int samples = (int) Math.round((shooterMapMaxDistance - shooterMapMinDistance + 2 * kMargin) / kSampleStep);
+
+    for (int i = 0; i <= samples; i++) {
+      double distance = shooterMapMinDistance - kMargin + i * kSampleStep;
+      double rpm = map.getRPM(distance);
+
+      assertTrue("RPM is " + rpm + " at " + distance + " meters", Double.isFinite(rpm) && rpm > 0);
+      assertTrue("RPM drops from " + lastRPM + " to " + rpm + " at " + distance + " meters",
+        rpm >= lastRPM);
+      lastRPM = rpm;
+    }
+  }
+
+  @Test
+  public void ballisticMapIsFiniteAndMonotonicOverItsWholeRange() {
+    assertFiniteAndMonotonic(new ShooterMap(shooterMapMinDistance, shooterMapMaxDistance, shooterMapStep,
+      ShooterMap::ballisticRPM));
+  }
+
+  @Test
+  public void ballisticMapMatchesTheModelAtEachStep() {
+    ShooterMap map = new ShooterMap(shooterMapMinDistance, shooterMapMaxDistance, shooterMapStep,
+      ShooterMap::ballisticRPM);
+
+    for (double distance = shooterMapMinDistance; distance <= shooterMapMaxDistance; distance += shooterMapStep) {
+      double expected = ShooterMap.ballisticRPM(distance);
+      assertEquals(expected, map.getRPM(distance), expected * 1e-3);
+    }
+  }
+
+  @Test
+  public void measuredMapIsFiniteAndMonotonicOverItsWholeRange() {
+    ShooterMap map = ShooterMap.fromPoints(new double[][] {
+      {3, 3200},
+      {5, 3900},
+      {8, 4700},
+    });
+
+    assertFiniteAndMonotonic(map);
+    assertEquals(3200, map.getRPM(shooterMapMinDistance), 1e-9);
+    assertEquals(4700, map.getRPM(shooterMapMaxDistance), 1e-9);
+  }
+
+  @Test
+  public void nanDistanceUsesTheNearEnd() {
+    ShooterMap map = ShooterMap.fromPoints(new double[][] {{3, 3200}, {8, 4700}});
+    assertEquals(3200, map.getRPM(Double.NaN), 1e-9);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void refusesAModelThatIsNotANumber() {
+    new ShooterMap(0, 10, shooterMapStep, ShooterMap::ballisticRPM);
+  }
+}
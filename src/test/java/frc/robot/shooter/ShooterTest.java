@@ -0,0 +1,177 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.shooter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import frc.robot.sim.SimSolenoidIO;
+
+import static frc.robot.Constants.*;
+import static org.junit.Assert.*;
+
+/**
+ * Runs the shooter on the simulated flywheel, one robot loop at a time, and puts balls
+ * through it once it is ready.
+ */
+public class ShooterTest {
+  // After a ball the onboard profile should be back at speed within this
+  private static final int kMaxRecoveryLoops = (int) Math.round(0.5 / kLoopPeriodSeconds);
+  // Long enough for either mode to reach speed from rest
+  private static final int kSpinUpLoops = (int) Math.round(3 / kLoopPeriodSeconds);
+  // Loops run after each ball, a second
+  private static final int kBallWindowLoops = (int) Math.round(1 / kLoopPeriodSeconds);
+
+  private SimShooterIO io;
+  private ChangePosition goalMover;
+  private Shooter shooter;
+
+  @Before
+  public void setUp() {
+    io = new SimShooterIO();
+    goalMover = new ChangePosition(new SimSolenoidIO(), new SimSolenoidIO());
+    shooter = new Shooter(goalMover, null, io);
+  }
+
+  /**
+   * Runs loops until the shooter is ready to fire
+   * @return loops it took, or -1 if it wasn't ready within the limit
+   */
+  private int loopsUntilReady(int limit) {
+    for (int loop = 1; loop <= limit; loop++) {
+      shooter.periodic();
+      if (shooter.isReadyToFire()) {
+        return loop;
+      }
+    }
+    return -1;
+  }
+
+  @Test
+  public void profiledSpinUpDoesNotOvershoot() {
+    shooter.setSpeedSpark();
+    double setpoint = shooter.getSetpoint();
+    assertEquals(shooterRPM, setpoint, 0);
+    assertEquals(Shooter.ControlMode.PROFILED, shooter.getControlMode());
+
+    // The ramp alone takes setpoint / shooterMaxAcceleration
+    int rampLoops = (int) Math.ceil(setpoint / shooterMaxAcceleration / kLoopPeriodSeconds);
+    double peak = 0;
+    int readyLoop = -1;
+    for (int loop = 1; loop <= 2 * rampLoops; loop++) {
+      shooter.periodic();
+      peak = Math.max(peak, shooter.getVelocity());
+      if (readyLoop < 0 && shooter.isReadyToFire()) {
+        readyLoop = loop;
+      }
+    }
+
+    assertTrue("Not ready after " + 2 * rampLoops + " loops", readyLoop > 0);
+    assertTrue("Peaked at " + peak + " for " + setpoint, peak < setpoint + shooterReadyTolerance);
+    assertEquals(setpoint, shooter.getVelocity(), shooterReadyTolerance);
+  }
+
+  @Test
+  public void profiledRecoversFromEachBall() {
+    shooter.setSpeedSpark();
+    assertTrue(loopsUntilReady(500) > 0);
+
+    for (int ball = 1; ball <= 3; ball++) {
+      io.shootBall();
+
+      shooter.periodic();
+      assertFalse("Ball " + ball + " should stop the shooter being ready", shooter.isReadyToFire());
+      boolean sagged = shooter.hasSagged();
+      for (int loop = 0; loop < 3; loop++) {
+        shooter.periodic();
+        sagged |= shooter.hasSagged();
+      }
+      assertTrue("Ball " + ball + " should sag the wheel", sagged);
+
+      int loops = loopsUntilReady(kMaxRecoveryLoops);
+      assertTrue("Ball " + ball + " not recovered within " + kMaxRecoveryLoops + " loops", loops > 0);
+      assertFalse(shooter.hasSagged());
+    }
+  }
+
+  /**
+   * Spins up in the given mode, then puts the same balls through, each followed by a fixed
+   * window of loops
+   * @return for each ball, the loop from which the shooter was ready for the rest of its
+   * window, or one past the window if it never settled, and the peak velocity in it, as
+   * {loops, peak}
+   */
+  private double[][] recoverFromBalls(Shooter.ControlMode mode, int balls) {
+    shooter.setVelocityMode(mode);
+    shooter.setSpeedSpark();
+    assertEquals(mode, shooter.getControlMode());
+    for (int loop = 0; loop < kSpinUpLoops; loop++) {
+      shooter.periodic();
+    }
+
+    double[][] recoveries = new double[balls][];
+    for (int ball = 0; ball < balls; ball++) {
+      io.shootBall();
+
+      double peak = 0;
+      int settled = 1;
+      for (int loop = 1; loop <= kBallWindowLoops; loop++) {
+        shooter.periodic();
+        peak = Math.max(peak, shooter.getVelocity());
+        if (!shooter.isReadyToFire()) {
+          settled = loop + 1;
+        }
+      }
+      recoveries[ball] = new double[] {settled, peak};
+    }
+    return recoveries;
+  }
+
+  @Test
+  public void profiledRecoversFasterThanSparkPID() {
+    double[][] spark = recoverFromBalls(Shooter.ControlMode.SPARK_PID, 3);
+    setUp();
+    double[][] profiled = recoverFromBalls(Shooter.ControlMode.PROFILED, 3);
+
+    for (int ball = 0; ball < 3; ball++) {
+      String message = "Ball " + (ball + 1) + ": " + (int) profiled[ball][0] + " loops to "
+        + (int) profiled[ball][1] + " RPM profiled, " + (int) spark[ball][0] + " loops to "
+        + (int) spark[ball][1] + " RPM with the Spark Max";
+      assertTrue(message, profiled[ball][0] <= kMaxRecoveryLoops);
+      assertTrue(message, profiled[ball][0] < spark[ball][0]);
+      assertTrue(message, profiled[ball][1] < spark[ball][1]);
+      assertTrue(message, profiled[ball][1] < shooterRPM + shooterReadyTolerance);
+    }
+  }
+
+  @Test
+  public void voltageModeHasNoSetpointToSagBelow() {
+    shooter.shoot();
+    for (int loop = 0; loop < 100; loop++) {
+      shooter.periodic();
+    }
+    io.shootBall();
+    shooter.periodic();
+
+    assertFalse(shooter.hasSetpoint());
+    assertFalse(shooter.hasSagged());
+    assertTrue(shooter.isEngaged());
+  }
+
+  @Test
+  public void stoppingDropsTheSetpoint() {
+    shooter.setSpeedSpark();
+    assertTrue(loopsUntilReady(500) > 0);
+
+    shooter.stop();
+    shooter.periodic();
+    assertFalse(shooter.hasSetpoint());
+    assertFalse(shooter.isReadyToFire());
+    assertFalse(shooter.isEngaged());
+  }
+}
@@ -0,0 +1,183 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.sim;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.drive.DrivetrainIO;
+import frc.robot.drive.ReplayDrivetrainIO;
+import frc.robot.drive.RevDrivetrain;
+import frc.robot.drive.SimDrivetrainIO;
+import frc.robot.telemetry.DataLogReader;
+import frc.robot.telemetry.DataLogger;
+
+import static frc.robot.Constants.*;
+import static org.junit.Assert.*;
+
+public class LogReplayTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private static final int kLeftY = 1;
+  private static final int kRightY = 5;
+  private static final int kStopButton = 1;
+  private static final int kLoops = 300;
+
+  private final DataLogger logger = DataLogger.getInstance();
+  private final int leftOutputSignal = logger.addSignal("Test/Left Output");
+  private final int rightOutputSignal = logger.addSignal("Test/Right Output");
+
+  private double time = 100;
+
+  /**
+   * A short match: disabled, then autonomous, then the driver steering in teleop
+   */
+  private class ScriptedInputs extends DriverInputs {
+    private int loop = 0;
+
+    ScriptedInputs() {
+      super(null);
+    }
+
+    @Override
+    void read() {
+      mode = loop < 25 ? kDisabled : loop < 125 ? kAutonomous : kTeleop;
+      gameMessage = loop < 200 ? "" : "G";
+
+      Controller xbox = addController(kXboxPort);
+      xbox.axes[kLeftY] = loop < 150 ? 0 : -0.8;
+      xbox.axes[kRightY] = loop < 150 ? 0 : -0.4 - 0.002 * (loop - 150);
+      xbox.buttons = loop >= 260 && loop < 270 ? 1 << (kStopButton - 1) : 0;
+      loop++;
+    }
+  }
+
+  @After
+  public void restoreClock() {
+    logger.stop();
+    RobotClock.setSource(Timer::getFPGATimestamp);
+  }
+
+  /**
+   * What the robot code does with the inputs: drives forward in autonomous and with the 
+   * sticks in teleop, unless the stop button is held
+   */
+  private void runLoop(DriverInputs inputs, DrivetrainIO io, RevDrivetrain drive) {
+    logger.setTime(RobotClock.getTime());
+    inputs.update();
+
+    DriverInputs.Controller xbox = inputs.addController(kXboxPort);
+    if (inputs.getMode() == DriverInputs.kAutonomous) {
+      drive.setOutputPercent(0.5, 0.5);
+    } else if (inputs.getMode() == DriverInputs.kTeleop && !xbox.getButton(kStopButton)) {
+      drive.setOutputPercent(-xbox.getAxis(kLeftY), -xbox.getAxis(kRightY));
+    } else {
+      drive.setOutputPercent(0, 0);
+    }
+    drive.periodic();
+
+    logger.log(leftOutputSignal, io.getLeftController().get());
+    logger.log(rightOutputSignal, io.getRightController().get());
+  }
+
+  private Path record() throws IOException {
+    Path logs = folder.newFolder("match").toPath();
+    RobotClock.setSource(() -> time);
+    DriverInputs inputs = new ScriptedInputs();
+    inputs.addController(kXboxPort);
+    DrivetrainIO io = new SimDrivetrainIO();
+    RevDrivetrain drive = new RevDrivetrain(io);
+
+    logger.start(logs);
+    for (int i = 0; i < kLoops; i++) {
+      runLoop(inputs, io, drive);
+      time += kLoopPeriodSeconds;
+    }
+    logger.stop();
+    return onlyLog(logs);
+  }
+
+  /**
+   * Replays a log the way Robot does, with the replay's own log going to a new directory
+   */
+  private Path replay(Path match, String name) throws IOException {
+    Path logs = folder.newFolder(name).toPath();
+    LogReplay replay = new LogReplay(match);
+    RobotClock.setSource(replay::getTime);
+    DriverInputs inputs = new DriverInputs(replay);
+    inputs.addController(kXboxPort);
+    DrivetrainIO io = new ReplayDrivetrainIO(replay);
+    RevDrivetrain drive = new RevDrivetrain(io);
+
+    logger.start(logs);
+    while (!replay.isFinished()) {
+      runLoop(inputs, io, drive);
+      replay.advance(kLoopPeriodSeconds);
+    }
+    logger.stop();
+    return onlyLog(logs);
+  }
+
+  private static Path onlyLog(Path logs) throws IOException {
+    try (Stream<Path> files = Files.list(logs)) {
+      List<Path> all = files.collect(Collectors.toList());
+      assertEquals(1, all.size());
+      return all.get(0);
+    }
+  }
+
+  private static List<String> read(Path log) throws IOException {
+    List<String> records = new ArrayList<>();
+    DataLogReader reader = new DataLogReader(log);
+    while (reader.next()) {
+      // Adding zero turns -0 into 0, which a replayed sensor minus its zero can't tell apart
+      records.add(reader.getName() + " " + reader.getTimestamp() + " " + (reader.getValue() + 0.0));
+    }
+    return records;
+  }
+
+  private static List<String> read(Path log, String prefix) throws IOException {
+    return read(log).stream().filter(record -> record.startsWith(prefix)).collect(Collectors.toList());
+  }
+
+  @Test
+  public void replaysTheSameEveryTime() throws IOException {
+    Path match = record();
+    List<String> first = read(replay(match, "first"));
+    List<String> second = read(replay(match, "second"));
+
+    assertFalse(first.isEmpty());
+    assertEquals(first, second);
+  }
+
+  @Test
+  public void replaysTheDriversInputs() throws IOException {
+    Path match = record();
+    Path replay = replay(match, "replay");
+
+    // Every loop of the match, with the same mode changes, sticks and buttons
+    assertEquals(kLoops, read(replay, DriverInputs.kModeSignal).size());
+    assertEquals(read(match, "DS/"), read(replay, "DS/"));
+    assertEquals(read(match, "HID "), read(replay, "HID "));
+    // So the robot code does what it did in the match
+    assertEquals(read(match, "Test/"), read(replay, "Test/"));
+    assertEquals(read(match, "Drive/"), read(replay, "Drive/"));
+  }
+}
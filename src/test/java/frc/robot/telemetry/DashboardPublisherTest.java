@@ -0,0 +1,123 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.telemetry;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Test;
+
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+import static org.junit.Assert.*;
+
+public class DashboardPublisherTest {
+  private static final double kDelta = 1e-9;
+
+  @Test
+  public void publishesFirstValueThenOnlyChangesPastTheDeadband() {
+    DashboardPublisher dashboard = new DashboardPublisher(1);
+    int key = dashboard.addNumber("Test/Deadband", 0.1, 0);
+
+    dashboard.setNumber(key, 1.0);
+    assertEquals(1.0, SmartDashboard.getNumber("Test/Deadband", -1), kDelta);
+
+    dashboard.setNumber(key, 1.05);
+    assertEquals(1.0, SmartDashboard.getNumber("Test/Deadband", -1), kDelta);
+    assertEquals(1.0, dashboard.getLastNumber(key), kDelta);
+
+    dashboard.setNumber(key, 1.2);
+    assertEquals(1.2, SmartDashboard.getNumber("Test/Deadband", -1), kDelta);
+  }
+
+  @Test
+  public void rateLimitsEachKeyOnItsOwn() {
+    DashboardPublisher dashboard = new DashboardPublisher(2);
+    int slow = dashboard.addNumber("Test/Slow", 0, 0.1);
+    int fast = dashboard.addNumber("Test/Fast", 0, 0);
+
+    dashboard.setTime(0);
+    dashboard.setNumber(slow, 1);
+    dashboard.setNumber(fast, 1);
+
+    dashboard.setTime(0.05);
+    dashboard.setNumber(slow, 2);
+    dashboard.setNumber(fast, 2);
+    assertEquals(1, SmartDashboard.getNumber("Test/Slow", -1), kDelta);
+    assertEquals(2, SmartDashboard.getNumber("Test/Fast", -1), kDelta);
+
+    dashboard.setTime(0.1);
+    dashboard.setNumber(slow, 3);
+    assertEquals(3, SmartDashboard.getNumber("Test/Slow", -1), kDelta);
+  }
+
+  @Test
+  public void publishesBooleansAndStringsOnChange() {
+    DashboardPublisher dashboard = new DashboardPublisher(2);
+    int flag = dashboard.addBoolean("Test/Flag", 0);
+    int text = dashboard.addString("Test/Text", 0);
+
+    dashboard.setBoolean(flag, true);
+    dashboard.setString(text, "RED");
+    assertTrue(SmartDashboard.getBoolean("Test/Flag", false));
+    assertEquals("RED", SmartDashboard.getString("Test/Text", ""));
+
+    dashboard.setBoolean(flag, false);
+    dashboard.setString(text, "BLUE");
+    assertFalse(SmartDashboard.getBoolean("Test/Flag", true));
+    assertEquals("BLUE", SmartDashboard.getString("Test/Text", ""));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void refusesKeysPastItsCapacity() {
+    DashboardPublisher dashboard = new DashboardPublisher(1);
+    dashboard.addNumber("Test/First", 0, 0);
+    dashboard.addNumber("Test/Second", 0, 0);
+  }
+
+  @Test
+  public void steadyStateCycleDoesNotAllocate() {
+    DashboardPublisher dashboard = new DashboardPublisher(4);
+    int changing = dashboard.addNumber("Test/Changing", 0.01, 0);
+    int steady = dashboard.addNumber("Test/Steady", 0.01, 0);
+    int flag = dashboard.addBoolean("Test/Toggling", 0);
+    int text = dashboard.addString("Test/Mode", 0);
+
+    // Warm up, so class loading and compilation are out of the way
+    for (int i = 0; i < 20000; i++) {
+      cycle(dashboard, i, changing, steady, flag, text);
+    }
+
+    com.sun.management.ThreadMXBean threads =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long thread = Thread.currentThread().getId();
+
+    // Reading the counter can allocate a little itself, so measure that first
+    long overheadStart = threads.getThreadAllocatedBytes(thread);
+    long overhead = threads.getThreadAllocatedBytes(thread) - overheadStart;
+
+    long start = threads.getThreadAllocatedBytes(thread);
+    for (int i = 0; i < 1000; i++) {
+      cycle(dashboard, i, changing, steady, flag, text);
+    }
+    long allocated = threads.getThreadAllocatedBytes(thread) - start - overhead;
+
+    assertEquals("Bytes allocated over 1000 cycles", 0, allocated);
+  }
+
+  /**
+   * One loop's worth of telemetry: a changing number, an unchanged one, a toggling
+   * boolean and a constant string
+   */
+  private static void cycle(DashboardPublisher dashboard, int loop, int changing, int steady, int flag, int text) {
+    dashboard.setTime(loop * 0.02);
+    dashboard.setNumber(changing, loop);
+    dashboard.setNumber(steady, 42);
+    dashboard.setBoolean(flag, (loop & 1) == 0);
+    dashboard.setString(text, (loop & 1) == 0 ? "Shooting" : "Collecting");
+  }
+}
@@ -0,0 +1,202 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.telemetry;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import edu.wpi.first.wpilibj2.command.InstantCommand;
+
+import static org.junit.Assert.*;
+
+public class DataLoggerTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private static final double kTimeDelta = 1e-9;
+
+  private Path log(String name, int bytes) throws IOException {
+    return Files.write(folder.getRoot().toPath().resolve(name), new byte[bytes]);
+  }
+
+  private static void assertNext(DataLogReader reader, double time, String name, double value) {
+    assertTrue("no sample for " + name, reader.next());
+    assertEquals(time, reader.getTimestamp(), kTimeDelta);
+    assertEquals(name, reader.getName());
+    assertEquals(value, reader.getValue(), 0);
+  }
+
+  @Test
+  public void readsBackWhatWasLogged() throws IOException {
+    DataLogger logger = new DataLogger(1024, 0.01);
+    int speed = logger.addSignal("Test/Speed");
+    int ready = logger.addSignal("Test/Ready");
+    CommandBase shoot = new InstantCommand();
+    shoot.setName("Shoot");
+    logger.addCommand(shoot);
+    Command neverAdded = new InstantCommand();
+
+    // Discarded until started
+    logger.log(speed, 99);
+
+    logger.start(folder.getRoot().toPath());
+    logger.setTime(1.5);
+    logger.log(speed, 3.25);
+    logger.log(ready, true);
+    logger.logCommand(shoot, 1);
+    logger.setTime(1.52);
+    logger.log(speed, -0.5);
+    logger.logCommand(shoot, 0);
+    logger.logCommand(neverAdded, -1);
+    logger.stop();
+
+    // And once stopped
+    logger.log(speed, 42);
+
+    List<Path> logs = DataLogger.listLogs(folder.getRoot().toPath());
+    assertEquals(1, logs.size());
+    DataLogReader reader = new DataLogReader(logs.get(0));
+    assertNext(reader, 1.5, "Test/Speed", 3.25);
+    assertNext(reader, 1.5, "Test/Ready", 1);
+    assertNext(reader, 1.5, "Command/Shoot", 1);
+    assertNext(reader, 1.52, "Test/Speed", -0.5);
+    assertNext(reader, 1.52, "Command/Shoot", 0);
+    assertNext(reader, 1.52, "Command/other", -1);
+    assertFalse(reader.next());
+    assertEquals(0, logger.getDroppedCount());
+  }
+
+  @Test
+  public void numbersCommandsSharingAName() throws IOException {
+    DataLogger logger = new DataLogger(1024, 0.01);
+    CommandBase first = new InstantCommand();
+    CommandBase second = new InstantCommand();
+    first.setName("Drive");
+    second.setName("Drive");
+    logger.addCommand(first);
+    logger.addCommand(second);
+
+    logger.start(folder.getRoot().toPath());
+    logger.logCommand(second, 1);
+    logger.logCommand(first, 1);
+    logger.stop();
+
+    DataLogReader reader = new DataLogReader(DataLogger.listLogs(folder.getRoot().toPath()).get(0));
+    assertNext(reader, 0, "Command/Drive 2", 1);
+    assertNext(reader, 0, "Command/Drive", 1);
+  }
+
+  @Test
+  public void startsANewReadableFileEachTime() throws IOException {
+    DataLogger logger = new DataLogger(1024, 0.01);
+    int signal = logger.addSignal("Test/Boot");
+
+    logger.start(folder.getRoot().toPath());
+    logger.log(signal, 1);
+    logger.stop();
+    logger.start(folder.getRoot().toPath());
+    logger.log(signal, 2);
+    logger.stop();
+
+    List<Path> logs = DataLogger.listLogs(folder.getRoot().toPath());
+    assertEquals(2, logs.size());
+    assertTrue(logs.get(0).getFileName().toString().startsWith("log_1_"));
+    assertTrue(logs.get(1).getFileName().toString().startsWith("log_2_"));
+
+    // Each file defines its own signals
+    DataLogReader second = new DataLogReader(logs.get(1));
+    assertNext(second, 0, "Test/Boot", 2);
+    assertFalse(second.next());
+  }
+
+  @Test
+  public void dropsAndCountsWhatDoesNotFit() throws Exception {
+    // The writer drains once as it starts, then not for another second
+    DataLogger logger = new DataLogger(16, 1);
+    int signal = logger.addSignal("Test/Count");
+    logger.start(folder.getRoot().toPath());
+    Thread.sleep(200);
+
+    for (int i = 0; i < 20; i++) {
+      logger.log(signal, i);
+    }
+    assertEquals(4, logger.getDroppedCount());
+    assertEquals(16, logger.getBacklog());
+    logger.stop();
+    assertEquals(0, logger.getBacklog());
+
+    DataLogReader reader = new DataLogReader(DataLogger.listLogs(folder.getRoot().toPath()).get(0));
+    for (int i = 0; i < 16; i++) {
+      assertNext(reader, 0, "Test/Count", i);
+    }
+    assertFalse(reader.next());
+  }
+
+  @Test
+  public void listsLogsInTheOrderTheyWereStarted() throws IOException {
+    // The clock was unset for the second, so only the number orders them
+    Path first = log("log_9_1602999000000.bin", 1);
+    Path second = log("log_10_946684800000.bin", 1);
+    Path third = log("log_11_1603000000000.bin", 1);
+    Path unnumbered = log("log_1602000000000.bin", 1);
+    log("trajectories.bin", 1);
+
+    List<Path> logs = DataLogger.listLogs(folder.getRoot().toPath());
+    assertEquals(4, logs.size());
+    assertEquals(unnumbered, logs.get(0));
+    assertEquals(first, logs.get(1));
+    assertEquals(second, logs.get(2));
+    assertEquals(third, logs.get(3));
+  }
+
+  @Test
+  public void deletesTheOldestPastTheFileCount() throws IOException {
+    for (int i = 1; i <= 5; i++) {
+      log("log_" + i + "_0.bin", 10);
+    }
+
+    List<Path> logs = DataLogger.listLogs(folder.getRoot().toPath());
+    DataLogger.deleteOldest(logs, 3, Long.MAX_VALUE);
+
+    assertEquals(3, logs.size());
+    assertFalse(Files.exists(folder.getRoot().toPath().resolve("log_1_0.bin")));
+    assertFalse(Files.exists(folder.getRoot().toPath().resolve("log_2_0.bin")));
+    assertEquals(logs, DataLogger.listLogs(folder.getRoot().toPath()));
+  }
+
+  @Test
+  public void deletesTheOldestPastTheByteBudget() throws IOException {
+    log("log_1_0.bin", 400);
+    log("log_2_0.bin", 300);
+    log("log_3_0.bin", 200);
+
+    List<Path> logs = DataLogger.listLogs(folder.getRoot().toPath());
+    DataLogger.deleteOldest(logs, 10, 500);
+
+    assertEquals(2, logs.size());
+    assertEquals("log_2_0.bin", logs.get(0).getFileName().toString());
+  }
+
+  @Test
+  public void keepsLogsWithinBothLimits() throws IOException {
+    log("log_1_0.bin", 100);
+    log("log_2_0.bin", 100);
+
+    List<Path> logs = DataLogger.listLogs(folder.getRoot().toPath());
+    DataLogger.deleteOldest(logs, 2, 200);
+    assertEquals(2, DataLogger.listLogs(folder.getRoot().toPath()).size());
+  }
+}
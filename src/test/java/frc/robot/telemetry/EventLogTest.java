@@ -0,0 +1,128 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.telemetry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class EventLogTest {
+  private final ByteArrayOutputStream printed = new ByteArrayOutputStream();
+  private final PrintStream out = new PrintStream(printed, true);
+
+  /**
+   * The printed lines, without their timestamps
+   */
+  private String[] lines() {
+    String all = printed.toString().trim();
+    if (all.isEmpty()) {
+      return new String[0];
+    }
+    return all.replaceAll("(?m)^\\[[0-9.]+\\] ", "").split("\\R");
+  }
+
+  @Test
+  public void dropsAndCountsWhatDoesNotFit() {
+    EventLog log = new EventLog(4, out);
+    EventLog.Event event = log.event("Full", 0);
+
+    for (int i = 0; i < 4; i++) {
+      assertTrue(event.post());
+    }
+    assertFalse(event.post());
+    assertFalse(event.post());
+    assertEquals(2, log.getDroppedCount());
+
+    assertEquals(4, log.drain());
+    assertArrayEquals(new String[] {"Full", "Full", "Full", "Full"}, lines());
+
+    // Draining made room again
+    assertTrue(event.post());
+    assertEquals(1, log.drain());
+    assertEquals(2, log.getDroppedCount());
+  }
+
+  @Test
+  public void reportsRepeatsOnceThePeriodIsOver() throws InterruptedException {
+    EventLog log = new EventLog(16, out);
+    EventLog.Event event = log.event("Brownout", 0.2);
+    EventLog.Event other = log.event("Other", 0.2);
+
+    assertTrue(event.post());
+    for (int i = 0; i < 3; i++) {
+      assertFalse(event.post());
+    }
+    // Periods are per event
+    assertTrue(other.post());
+    assertEquals(2, log.drain());
+    assertArrayEquals(new String[] {"Brownout", "Other"}, lines());
+
+    Thread.sleep(250);
+    assertTrue(event.post());
+    assertEquals(1, log.drain());
+    assertArrayEquals(new String[] {"Brownout", "Other", "Brownout (repeated 3 more times)"}, lines());
+    assertEquals(0, log.getDroppedCount());
+  }
+
+  @Test
+  public void drainsConcurrentProducersInOrder() throws InterruptedException {
+    final int producers = 4;
+    final int posts = 2000;
+    EventLog log = new EventLog(256, out);
+
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+    for (int p = 0; p < producers; p++) {
+      EventLog.Event[] events = new EventLog.Event[posts];
+      for (int i = 0; i < posts; i++) {
+        events[i] = log.event(p + " " + i, 0);
+      }
+
+      Thread thread = new Thread(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+        for (EventLog.Event event : events) {
+          event.post();
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+
+    start.countDown();
+    int drained = 0;
+    while (threads.stream().anyMatch(Thread::isAlive)) {
+      drained += log.drain();
+    }
+    drained += log.drain();
+
+    // Every post was either printed or counted as dropped
+    assertEquals(producers * posts, drained + log.getDroppedCount());
+    String[] lines = lines();
+    assertEquals(drained, lines.length);
+
+    // And each producer's messages came out in the order it posted them
+    int[] next = new int[producers];
+    for (String line : lines) {
+      String[] parts = line.split(" ");
+      int producer = Integer.parseInt(parts[0]);
+      int post = Integer.parseInt(parts[1]);
+      assertTrue(line + " out of order", post >= next[producer]);
+      next[producer] = post + 1;
+    }
+  }
+}
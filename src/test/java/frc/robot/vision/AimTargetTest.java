@@ -0,0 +1,198 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.vision;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.controller.PIDController;
+import edu.wpi.first.wpilibj.geometry.Pose2d;
+import edu.wpi.first.wpilibj.geometry.Rotation2d;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import edu.wpi.first.wpiutil.math.MathUtil;
+import frc.robot.drive.RevDrivetrain;
+import frc.robot.drive.SimDrivetrainIO;
+import frc.robot.sim.RobotClock;
+
+import static frc.robot.Constants.*;
+import static org.junit.Assert.*;
+
+/**
+ * Aims the simulated drivetrain at the simulated target, whose frames arrive late like a
+ * real limelight's, and compares AimTarget with the loop it replaced, which ran its PID
+ * on each frame's tx.
+ */
+public class AimTargetTest {
+    // Within this the robot is aimed, degrees
+    private static final double kAimed = 2;
+    private static final double kRunSeconds = 4;
+
+    /**
+     * The old loop: the PID on the latest tx, however old, with the gains it had
+     */
+    private static class RawTxAim extends CommandBase {
+        private final Limelight vision;
+        private final RevDrivetrain drive;
+        private final PIDController angleCorrector = new PIDController(0.01, 0, 0);
+
+        RawTxAim(Limelight vision, RevDrivetrain drive) {
+            this.vision = vision;
+            this.drive = drive;
+        }
+
+        @Override
+        public void initialize() {
+            angleCorrector.setSetpoint(0);
+            vision.visionMode();
+        }
+
+        @Override
+        public void execute() {
+            drive.getDifferentialDrive().arcadeDrive(0,
+                MathUtil.clamp(angleCorrector.calculate(-vision.getXError()), -0.5, 0.5), false);
+        }
+    }
+
+    /**
+     * How an aim went
+     */
+    private static class Response {
+        // From the start until the robot was last more than kAimed off
+        double settlingTime = 0;
+        // Furthest past the target, degrees
+        double overshoot = 0;
+    }
+
+    private double time;
+    private RevDrivetrain drive;
+    private Limelight limelight;
+
+    @Before
+    public void setUp() {
+        time = 100;
+        RobotClock.setSource(() -> time);
+
+        drive = new RevDrivetrain(new SimDrivetrainIO());
+        limelight = new Limelight(new SimVisionIO(drive::getPose));
+    }
+
+    @After
+    public void tearDown() {
+        RobotClock.setSource(Timer::getFPGATimestamp);
+    }
+
+    /**
+     * Degrees the target is to the right of where the robot is pointing
+     */
+    private double aimError() {
+        Pose2d pose = drive.getPose();
+        double bearing = Math.toDegrees(Math.atan2(simTargetY - pose.getTranslation().getY(),
+            simTargetX - pose.getTranslation().getX()));
+        return Math.IEEEremainder(pose.getRotation().getDegrees() - bearing, 360);
+    }
+
+    private void step() {
+        time += kLoopPeriodSeconds;
+        drive.periodic();
+        limelight.periodic();
+    }
+
+    /**
+     * Three meters from the target, turned away from it
+     * @param degrees the target's angle to the right of the robot's heading
+     */
+    private void startTurnedAway(double degrees) {
+        drive.resetPose(new Pose2d(simTargetX - 3, simTargetY, Rotation2d.fromDegrees(degrees)));
+        step();
+    }
+
+    /**
+     * Starts aimed, then spins left so the robot is still turning away when aiming starts
+     */
+    private void startMidTurn() {
+        startTurnedAway(0);
+        drive.setOutputVolts(-4, 4);
+        while (aimError() < 15) {
+            step();
+        }
+    }
+
+    private Response aim(CommandBase command) {
+        double startError = aimError();
+        Response response = new Response();
+        double start = time;
+
+        command.initialize();
+        while (time - start < kRunSeconds) {
+            step();
+            command.execute();
+
+            double error = aimError();
+            if (Math.abs(error) > kAimed) {
+                response.settlingTime = time - start;
+            }
+            response.overshoot = Math.max(response.overshoot, -Math.signum(startError) * error);
+        }
+        command.end(false);
+        return response;
+    }
+
+    private Response aimWithAimTarget() {
+        return aim(new AimTarget(limelight, drive));
+    }
+
+    private Response aimWithRawTx() {
+        return aim(new RawTxAim(limelight, drive));
+    }
+
+    private static void assertSettlesFaster(Response aimTarget, Response rawTx, double maxSettlingTime) {
+        assertTrue("took " + aimTarget.settlingTime + " s", aimTarget.settlingTime < maxSettlingTime);
+        assertTrue("overshot " + aimTarget.overshoot + " degrees", aimTarget.overshoot < kAimed);
+
+        assertTrue(aimTarget.settlingTime < rawTx.settlingTime / 2);
+        assertTrue(aimTarget.overshoot < rawTx.overshoot / 4);
+    }
+
+    @Test
+    public void settlesFasterFromStill() {
+        startTurnedAway(20);
+        Response aimTarget = aimWithAimTarget();
+
+        setUp();
+        startTurnedAway(20);
+        Response rawTx = aimWithRawTx();
+
+        assertSettlesFaster(aimTarget, rawTx, 1);
+    }
+
+    @Test
+    public void settlesFasterFromMidTurn() {
+        startMidTurn();
+        Response aimTarget = aimWithAimTarget();
+
+        setUp();
+        startMidTurn();
+        Response rawTx = aimWithRawTx();
+
+        assertSettlesFaster(aimTarget, rawTx, 1.2);
+    }
+
+    @Test
+    public void aimsAfterThePoseIsReset() {
+        // The pose's heading and the gyro's differ by the reset; aiming goes by the target
+        drive.resetPose(new Pose2d(simTargetX - 3, simTargetY, Rotation2d.fromDegrees(135)));
+        step();
+        drive.resetPose(new Pose2d(simTargetX - 3, simTargetY, Rotation2d.fromDegrees(-15)));
+        step();
+
+        assertTrue(aimWithAimTarget().settlingTime < 1);
+        assertEquals(0, aimError(), kAimed);
+    }
+}
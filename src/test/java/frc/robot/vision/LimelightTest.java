@@ -0,0 +1,288 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.vision;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.sim.RobotClock;
+
+import static frc.robot.Constants.*;
+import static org.junit.Assert.*;
+
+/**
+ * Runs the limelight against a scripted camera in place of NetworkTables, which answers
+ * a pipeline change only when the test says so.
+ */
+public class LimelightTest {
+    /**
+     * Sends one frame per loop from whichever pipeline it is told it is running, and
+     * records the pipelines asked for
+     */
+    private static class ScriptedVisionIO implements VisionIO {
+        final List<Integer> requests = new ArrayList<>();
+        int running = limelightWidePipeline;
+        boolean hasTarget = true;
+        double distance = 10;
+        double wideTl = 20;
+        double zoomTl = 40;
+        boolean sending = true;
+        private long sequence = 0;
+
+        /**
+         * Starts running the pipeline last asked for
+         */
+        void switchPipeline() {
+            running = requests.get(requests.size() - 1);
+        }
+
+        @Override
+        public void updateFrame(LimelightFrame frame) {
+            if (!sending) {
+                return;
+            }
+            double zoom = running == limelightZoomPipeline ? limelightZoomFactor : 1;
+            frame.tv = hasTarget ? 1 : 0;
+            frame.ta = hasTarget ? Limelight.areaFromDistance(distance) * zoom * zoom : 0;
+            frame.tl = running == limelightZoomPipeline ? zoomTl : wideTl;
+            frame.pipeline = running;
+            frame.sequence = ++sequence;
+            frame.timestamp = RobotClock.getTime();
+        }
+
+        @Override
+        public double[] getCameraTranslation() {
+            return new double[0];
+        }
+
+        @Override
+        public void setPipeline(int pipeline) {
+            requests.add(pipeline);
+        }
+
+        @Override
+        public void setLedMode(int mode) {
+        }
+
+        @Override
+        public void setCamMode(int mode) {
+        }
+
+        @Override
+        public void setStream(int mode) {
+        }
+
+        @Override
+        public void setSnapshot(int mode) {
+        }
+    }
+
+    private ScriptedVisionIO io;
+    private Limelight limelight;
+    private double time;
+
+    @Before
+    public void setUp() {
+        time = 100;
+        RobotClock.setSource(() -> time);
+
+        io = new ScriptedVisionIO();
+        limelight = new Limelight(io);
+    }
+
+    @After
+    public void tearDown() {
+        RobotClock.setSource(Timer::getFPGATimestamp);
+    }
+
+    private void step() {
+        time += kLoopPeriodSeconds;
+        limelight.periodic();
+    }
+
+    /**
+     * Goes far enough away to zoom in, and has the limelight follow
+     */
+    private void zoomIn() {
+        limelight.visionMode();
+        io.distance = pipelineZoomInDistance + 2;
+        step();
+        io.switchPipeline();
+        step();
+    }
+
+    @Test
+    public void startsOnTheWidePipeline() {
+        assertEquals(limelightWidePipeline, (int) io.requests.get(0));
+        assertEquals(limelightWidePipeline, limelight.getPipeline());
+
+        step();
+        assertTrue(limelight.hasNewFrame());
+        assertEquals(1, limelight.getFrameSequence());
+    }
+
+    @Test
+    public void keepsThePipelineOutsideVisionMode() {
+        io.distance = pipelineZoomInDistance + 2;
+        for (int i = 0; i < 10; i++) {
+            step();
+        }
+        assertEquals(1, io.requests.size());
+    }
+
+    @Test
+    public void zoomsInFarAway() {
+        zoomIn();
+        assertEquals(limelightZoomPipeline, limelight.getPipeline());
+        assertEquals(limelightZoomPipeline, (int) io.requests.get(io.requests.size() - 1));
+
+        // The zoomed frame's distance is corrected for the zoom
+        assertTrue(limelight.hasNewFrame());
+        assertEquals(io.distance, limelight.getTargetDistanceRegression(), 1e-6);
+    }
+
+    @Test
+    public void skipsFramesInFlightFromTheOldPipeline() {
+        limelight.visionMode();
+        io.distance = pipelineZoomInDistance + 2;
+        step();
+        long used = limelight.getFrameSequence();
+
+        for (int i = 0; i < 3; i++) {
+            step();
+            assertFalse(limelight.hasNewFrame());
+            assertEquals(used, limelight.getFrameSequence());
+        }
+        assertEquals(3, limelight.getSwitchingFrameCount());
+
+        io.switchPipeline();
+        step();
+        assertTrue(limelight.hasNewFrame());
+        assertEquals(used + 4, limelight.getFrameSequence());
+        assertEquals(3, limelight.getSwitchingFrameCount());
+    }
+
+    @Test
+    public void onlyNewFramesAreUsed() {
+        step();
+        io.sending = false;
+        step();
+        assertFalse(limelight.hasNewFrame());
+        assertEquals(0, limelight.getSwitchingFrameCount());
+    }
+
+    @Test
+    public void zoomsOutUpClose() {
+        zoomIn();
+        io.distance = pipelineZoomOutDistance - 2;
+        step();
+        assertEquals(limelightWidePipeline, limelight.getPipeline());
+    }
+
+    @Test
+    public void zoomsOutAfterLosingTheTarget() {
+        zoomIn();
+        io.hasTarget = false;
+        for (int i = 1; i < pipelineLostFrames; i++) {
+            step();
+            assertEquals(limelightZoomPipeline, limelight.getPipeline());
+        }
+        step();
+        assertEquals(limelightWidePipeline, limelight.getPipeline());
+    }
+
+    @Test
+    public void driverModeGoesBackWide() {
+        zoomIn();
+        limelight.driverMode();
+        assertEquals(limelightWidePipeline, limelight.getPipeline());
+
+        // And stays there however far away the target is
+        io.switchPipeline();
+        for (int i = 0; i < 10; i++) {
+            step();
+        }
+        assertEquals(limelightWidePipeline, limelight.getPipeline());
+    }
+
+    @Test
+    public void usesThePipelineItIsOnWhenTheSwitchTimesOut() {
+        limelight.setPipeline(2);
+        for (int i = 1; i < pipelineSwitchTimeout / kLoopPeriodSeconds; i++) {
+            step();
+            assertFalse(limelight.hasNewFrame());
+        }
+        time += kLoopPeriodSeconds;
+        step();
+
+        assertTrue(limelight.hasNewFrame());
+        assertEquals(limelightWidePipeline, limelight.getPipeline());
+        assertEquals(limelightWidePipeline, (int) io.requests.get(io.requests.size() - 1));
+    }
+
+    @Test
+    public void stopsSchedulingWhenTheSwitchTimesOut() {
+        limelight.visionMode();
+        io.distance = pipelineZoomInDistance + 2;
+        step();
+        assertEquals(limelightZoomPipeline, limelight.getPipeline());
+
+        // The zoomed pipeline isn't set up, so the limelight stays wide
+        double requested = time;
+        while (time - requested <= pipelineSwitchTimeout + kLoopPeriodSeconds) {
+            step();
+        }
+        int requests = io.requests.size();
+        for (int i = 0; i < 10; i++) {
+            step();
+            assertTrue(limelight.hasNewFrame());
+        }
+        assertEquals(limelightWidePipeline, limelight.getPipeline());
+        assertEquals(requests, io.requests.size());
+
+        // Until vision mode is asked for again
+        limelight.visionMode();
+        step();
+        assertEquals(limelightZoomPipeline, limelight.getPipeline());
+    }
+
+    @Test
+    public void goesWideFromAnUnknownPipeline() {
+        io.running = 12;
+        limelight.setPipeline(1);
+        time += pipelineSwitchTimeout;
+        step();
+
+        assertFalse(limelight.hasNewFrame());
+        assertEquals(limelightWidePipeline, limelight.getPipeline());
+
+        io.switchPipeline();
+        step();
+        assertTrue(limelight.hasNewFrame());
+    }
+
+    @Test
+    public void keepsLatencyPerPipeline() {
+        step();
+        zoomIn();
+        for (int i = 0; i < 9; i++) {
+            step();
+        }
+
+        // Each frame used is counted once, under the pipeline it came from
+        assertEquals(2, limelight.getLatencyHistogram(limelightWidePipeline).getCount());
+        assertEquals(10, limelight.getLatencyHistogram(limelightZoomPipeline).getCount());
+        assertEquals(20000, limelight.getLatencyHistogram(limelightWidePipeline).getPercentile(0.5), 20000 * 0.05);
+        assertEquals(40000, limelight.getLatencyHistogram(limelightZoomPipeline).getPercentile(0.5), 40000 * 0.05);
+    }
+}
@@ -0,0 +1,132 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.vision;
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the IO against a local NetworkTables server, with a client standing in for the
+ * limelight.
+ */
+public class NetworkTablesVisionIOTest {
+    private static final int kPort = 5810;
+    // Long enough that a slow machine can't let a frame settle between two steps
+    private static final double kSettleTime = 0.5;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private NetworkTableInstance server;
+    private NetworkTableInstance client;
+    private NetworkTable limelight;
+    private NetworkTablesVisionIO io;
+    private final LimelightFrame frame = new LimelightFrame();
+
+    @Before
+    public void setUp() throws InterruptedException {
+        server = NetworkTableInstance.create();
+        server.startServer(folder.getRoot().toPath().resolve("networktables.ini").toString(), "", kPort);
+        io = new NetworkTablesVisionIO(server, kSettleTime);
+
+        client = NetworkTableInstance.create();
+        client.startClient("localhost", kPort);
+        for (int i = 0; i < 100 && !client.isConnected(); i++) {
+            Thread.sleep(20);
+        }
+        assertTrue(client.isConnected());
+        limelight = client.getTable("limelight");
+    }
+
+    @After
+    public void tearDown() {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    public void takesAFrameOnceItHasSettled() throws InterruptedException {
+        publish(1, 2, 3, 20);
+        io.updateFrame(frame);
+        assertEquals(0, frame.sequence);
+
+        settle();
+        io.updateFrame(frame);
+        assertFrame(1, 2, 3, 20);
+        assertEquals(1, frame.sequence);
+
+        // Nothing new, so the frame is not taken again
+        io.updateFrame(frame);
+        assertEquals(1, frame.sequence);
+    }
+
+    @Test
+    public void neverMixesTwoFrames() throws InterruptedException {
+        publish(1, 2, 3, 20);
+        settle();
+        io.updateFrame(frame);
+        assertEquals(1, frame.sequence);
+
+        // The next frame's tl arrives ahead of the rest of it
+        limelight.getEntry("tl").setDouble(30);
+        deliver();
+        io.updateFrame(frame);
+        assertFrame(1, 2, 3, 20);
+
+        publish(4, 5, 6, 30);
+        io.updateFrame(frame);
+        assertFrame(1, 2, 3, 20);
+        assertEquals(1, frame.sequence);
+
+        settle();
+        io.updateFrame(frame);
+        assertFrame(4, 5, 6, 30);
+        assertEquals(2, frame.sequence);
+    }
+
+    private void publish(double tx, double ty, double ta, double tl) {
+        limelight.getEntry("tv").setDouble(1);
+        limelight.getEntry("tx").setDouble(tx);
+        limelight.getEntry("ty").setDouble(ty);
+        limelight.getEntry("ta").setDouble(ta);
+        limelight.getEntry("tl").setDouble(tl);
+        limelight.getEntry("getpipe").setDouble(1);
+        deliver();
+    }
+
+    private void deliver() {
+        client.flush();
+        // Give the values time to cross before waiting on the server's listeners
+        try {
+            Thread.sleep(50);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        assertTrue(server.waitForEntryListenerQueue(1.0));
+    }
+
+    private void settle() throws InterruptedException {
+        Thread.sleep((long) (kSettleTime * 1000) + 100);
+    }
+
+    private void assertFrame(double tx, double ty, double ta, double tl) {
+        assertEquals(tx, frame.tx, 0);
+        assertEquals(ty, frame.ty, 0);
+        assertEquals(ta, frame.ta, 0);
+        assertEquals(tl, frame.tl, 0);
+        assertEquals(1, frame.tv, 0);
+        assertEquals(1, frame.pipeline);
+    }
+}
@@ -0,0 +1,90 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.vision;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static frc.robot.Constants.*;
+import static org.junit.Assert.*;
+
+public class PipelineSchedulerTest {
+    private PipelineScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        scheduler = new PipelineScheduler();
+    }
+
+    @Test
+    public void startsWide() {
+        assertEquals(limelightWidePipeline, scheduler.getPipeline());
+    }
+
+    @Test
+    public void zoomsInPastTheZoomInDistance() {
+        assertEquals(limelightWidePipeline, scheduler.update(true, pipelineZoomInDistance - 0.1));
+        assertEquals(limelightZoomPipeline, scheduler.update(true, pipelineZoomInDistance + 0.1));
+    }
+
+    @Test
+    public void holdsBetweenTheSwitchingDistances() {
+        double between = (pipelineZoomInDistance + pipelineZoomOutDistance) / 2;
+
+        // Coming in from close up stays wide
+        assertEquals(limelightWidePipeline, scheduler.update(true, between));
+
+        // Coming in from far away stays zoomed
+        scheduler.update(true, pipelineZoomInDistance + 1);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(limelightZoomPipeline, scheduler.update(true, between));
+        }
+        assertEquals(limelightWidePipeline, scheduler.update(true, pipelineZoomOutDistance - 0.1));
+    }
+
+    @Test
+    public void zoomsOutAfterLosingTheTarget() {
+        scheduler.update(true, pipelineZoomInDistance + 1);
+        for (int i = 1; i < pipelineLostFrames; i++) {
+            assertEquals(limelightZoomPipeline, scheduler.update(false, 0));
+        }
+        assertEquals(limelightWidePipeline, scheduler.update(false, 0));
+    }
+
+    @Test
+    public void aTargetRestartsTheLostCount() {
+        scheduler.update(true, pipelineZoomInDistance + 1);
+        for (int i = 1; i < pipelineLostFrames; i++) {
+            scheduler.update(false, 0);
+        }
+        scheduler.update(true, pipelineZoomInDistance + 1);
+        for (int i = 1; i < pipelineLostFrames; i++) {
+            assertEquals(limelightZoomPipeline, scheduler.update(false, 0));
+        }
+    }
+
+    @Test
+    public void framesWithoutATargetIgnoreTheirDistance() {
+        scheduler.update(true, pipelineZoomInDistance + 1);
+        assertEquals(limelightZoomPipeline, scheduler.update(false, 0));
+    }
+
+    @Test
+    public void resetGoesBackWide() {
+        scheduler.update(true, pipelineZoomInDistance + 1);
+        scheduler.update(false, 0);
+        scheduler.reset();
+        assertEquals(limelightWidePipeline, scheduler.getPipeline());
+
+        // The lost count starts over too
+        scheduler.update(true, pipelineZoomInDistance + 1);
+        for (int i = 1; i < pipelineLostFrames; i++) {
+            assertEquals(limelightZoomPipeline, scheduler.update(false, 0));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.wheel;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.wpi.first.wpilibj.util.Color;
+import frc.robot.wheel.SenseColor.Colour;
+
+import static org.junit.Assert.*;
+
+public class ColourMatcherTest {
+  private ColourMatcher matcher;
+
+  @Before
+  public void setUp() {
+    matcher = new ColourMatcher();
+  }
+
+  @Test
+  public void matchesEachTarget() {
+    for (Colour colour : Colour.values()) {
+      Color target = colour.getTarget();
+      assertEquals(colour, matcher.match(target));
+      assertTrue(matcher.isMatched());
+      // Not quite 1, as the readings are normalized and the targets don't all add up to 1
+      assertTrue(colour.toString(), matcher.getConfidence() > 0.9);
+
+      // Brightness doesn't matter
+      assertEquals(colour, matcher.match(target.red * 3, target.green * 3, target.blue * 3));
+    }
+  }
+
+  @Test
+  public void blackIsUnmatchedBlue() {
+    assertEquals(Colour.BLUE, matcher.match(0, 0, 0));
+    assertFalse(matcher.isMatched());
+    assertEquals(0, matcher.getConfidence(), 0);
+  }
+
+  @Test
+  public void nothingWithinReachIsUnmatchedBlue() {
+    matcher.match(Colour.RED.getTarget());
+
+    // An overflowed reading normalizes to no color at all, so no target is closer than 1
+    assertEquals(Colour.BLUE, matcher.match(Double.POSITIVE_INFINITY, 0, 0));
+    assertFalse(matcher.isMatched());
+    assertEquals(0, matcher.getConfidence(), 0);
+  }
+}
@@ -0,0 +1,191 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.wheel;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import edu.wpi.first.wpilibj.util.Color;
+import frc.robot.wheel.SenseColor.Colour;
+
+import static frc.robot.Constants.*;
+import static org.junit.Assert.*;
+
+/**
+ * Checks the model the robot loads from /home/lvuser at boot: that it reads back what it
+ * saved, refuses a file it can't trust, and calls a reading unknown rather than guess.
+ */
+public class ColourModelTest {
+  private static final double kColorSpread = 0.01;
+  private static final double kIRSpread = 5;
+  private static final double kProximity = 300;
+  private static final double kProximitySpread = 20;
+  // The model's closest proximity still counted as the panel, 3 deviations in
+  private static final int kMinProximity = 240;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private ColourModel model;
+
+  /**
+   * Calibrated normalized red, green and blue and raw IR of a color
+   */
+  private static double[] centerOf(Colour colour) {
+    switch (colour) {
+      case RED: return new double[] {0.561, 0.232, 0.114, 40};
+      case YELLOW: return new double[] {0.361, 0.524, 0.113, 30};
+      case BLUE: return new double[] {0.143, 0.427, 0.429, 20};
+      default: return new double[] {0.197, 0.561, 0.240, 25};
+    }
+  }
+
+  @Before
+  public void setUp() {
+    int colours = Colour.values().length;
+    int[] counts = new int[colours];
+    double[][] means = new double[colours][ColourModel.kStats];
+    double[][] deviations = new double[colours][ColourModel.kStats];
+    for (Colour colour : Colour.values()) {
+      int c = colour.ordinal();
+      counts[c] = 200 + c;
+      System.arraycopy(centerOf(colour), 0, means[c], 0, ColourModel.kFeatures);
+      means[c][ColourModel.kProximity] = kProximity;
+      Arrays.fill(deviations[c], kColorSpread);
+      deviations[c][ColourModel.kIR] = kIRSpread;
+      deviations[c][ColourModel.kProximity] = kProximitySpread;
+    }
+    model = new ColourModel(counts, means, deviations);
+  }
+
+  private static ColorSample sampleOf(double[] center, int proximity) {
+    return new ColorSample(new Color(center[0], center[1], center[2]), (int) center[3], proximity, 0);
+  }
+
+  private Path write(String... lines) throws IOException {
+    Path file = folder.getRoot().toPath().resolve(colourModelFile);
+    Files.write(file, Arrays.asList(lines));
+    return file;
+  }
+
+  @Test
+  public void classifiesEachCalibratedColour() {
+    for (Colour colour : Colour.values()) {
+      assertEquals(colour, model.classify(sampleOf(centerOf(colour), (int) kProximity)));
+      assertTrue(colour.toString(), model.isMatched());
+      assertTrue(colour.toString(), model.getConfidence() > 0.99);
+    }
+  }
+
+  @Test
+  public void readsBackWhatItSaved() throws IOException {
+    Path saved = folder.getRoot().toPath().resolve("saved.csv");
+    Path resaved = folder.getRoot().toPath().resolve("resaved.csv");
+    model.save(saved);
+    ColourModel read = ColourModel.read(saved);
+    read.save(resaved);
+
+    List<String> lines = Files.readAllLines(saved);
+    assertEquals(1 + Colour.values().length, lines.size());
+    assertEquals(lines, Files.readAllLines(resaved));
+
+    for (Colour colour : Colour.values()) {
+      ColorSample sample = sampleOf(centerOf(colour), (int) kProximity);
+      assertEquals(model.classify(sample), read.classify(sample));
+      assertEquals(model.getConfidence(), read.getConfidence(), 0);
+    }
+  }
+
+  @Test
+  public void readSkipsCommentsAndBlankLines() throws IOException {
+    Path saved = folder.getRoot().toPath().resolve("saved.csv");
+    model.save(saved);
+    List<String> lines = Files.readAllLines(saved);
+    lines.add(2, "");
+    lines.add(3, "  # recalibrated after the lights were changed");
+
+    ColourModel read = ColourModel.read(write(lines.toArray(new String[0])));
+    assertEquals(Colour.BLUE, read.classify(sampleOf(centerOf(Colour.BLUE), (int) kProximity)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void readRejectsAnUncalibratedColour() throws IOException {
+    Path saved = folder.getRoot().toPath().resolve("saved.csv");
+    model.save(saved);
+    List<String> lines = Files.readAllLines(saved);
+    lines.removeIf(line -> line.startsWith("Y,"));
+
+    ColourModel.read(write(lines.toArray(new String[0])));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void readRejectsAnEmptyFile() throws IOException {
+    ColourModel.read(write());
+  }
+
+  @Test
+  public void readRejectsGarbledLines() throws IOException {
+    String[] garbled = {
+      "R,200,0.561,0.232,0.114,40,300,0.01,0.01,0.01,5",
+      "R,200,0.561,0.232,0.114,40,300,0.01,0.01,0.01,5,20,7",
+      "R,200,0.561,0.232,0.114,forty,300,0.01,0.01,0.01,5,20",
+      "R,2x0,0.561,0.232,0.114,40,300,0.01,0.01,0.01,5,20",
+      "Q,200,0.561,0.232,0.114,40,300,0.01,0.01,0.01,5,20",
+      "R,200,0.561,0.232,0.114,NaN,300,0.01,0.01,0.01,5,20",
+    };
+    for (String line : garbled) {
+      try {
+        ColourModel.read(write(line,
+          "Y,200,0.361,0.524,0.113,30,300,0.01,0.01,0.01,5,20",
+          "B,200,0.143,0.427,0.429,20,300,0.01,0.01,0.01,5,20",
+          "G,200,0.197,0.561,0.240,25,300,0.01,0.01,0.01,5,20"));
+        fail("Read \"" + line + "\"");
+      } catch (IllegalArgumentException e) {
+        // Expected
+      }
+    }
+  }
+
+  @Test
+  public void rejectsAReadingFarFromEveryColour() {
+    // Grey is between all four
+    model.classify(sampleOf(new double[] {0.33, 0.34, 0.33, 30}, (int) kProximity));
+    assertFalse(model.isMatched());
+    assertEquals(0, model.getConfidence(), 0);
+
+    // Just outside colorUnknownDistance of red on one channel
+    double[] red = centerOf(Colour.RED);
+    red[1] += kColorSpread * Math.sqrt(colorUnknownDistance) * 1.05;
+    assertEquals(Colour.RED, model.classify(sampleOf(red, (int) kProximity)));
+    assertFalse(model.isMatched());
+
+    red[1] = centerOf(Colour.RED)[1] + kColorSpread * Math.sqrt(colorUnknownDistance) * 0.95;
+    model.classify(sampleOf(red, (int) kProximity));
+    assertTrue(model.isMatched());
+  }
+
+  @Test
+  public void rejectsAReadingTooFarFromTheSensor() {
+    double[] blue = centerOf(Colour.BLUE);
+
+    model.classify(sampleOf(blue, kMinProximity - 1));
+    assertFalse(model.isMatched());
+    assertEquals(0, model.getConfidence(), 0);
+
+    model.classify(sampleOf(blue, kMinProximity));
+    assertTrue(model.isMatched());
+  }
+}
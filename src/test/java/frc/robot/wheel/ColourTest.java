@@ -0,0 +1,102 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.wheel;
+
+import org.junit.Test;
+
+import frc.robot.wheel.SenseColor.Colour;
+
+import static org.junit.Assert.*;
+
+public class ColourTest {
+  private static final int[] kExtremes = {
+    Integer.MIN_VALUE, Integer.MIN_VALUE + 1, Integer.MIN_VALUE + 2, Integer.MIN_VALUE + 3,
+    Integer.MAX_VALUE - 3, Integer.MAX_VALUE - 2, Integer.MAX_VALUE - 1, Integer.MAX_VALUE
+  };
+
+  // Panel order, each color followed by the next one round
+  private static final Colour[] kOrder = {Colour.RED, Colour.YELLOW, Colour.BLUE, Colour.GREEN};
+
+  /**
+   * What nextIn should give, worked out without wrapping around the int range
+   */
+  private static Colour expectedNext(Colour colour, int n) {
+    int index = 0;
+    while (kOrder[index] != colour) {
+      index++;
+    }
+    return kOrder[(int) Math.floorMod((long) index + n, 4L)];
+  }
+
+  @Test
+  public void nextInWrapsForEveryOffset() {
+    for (Colour colour : Colour.values()) {
+      for (int n = -1000; n <= 1000; n++) {
+        assertEquals(colour + " by " + n, expectedNext(colour, n), colour.nextIn(n));
+      }
+    }
+  }
+
+  @Test
+  public void nextInWrapsAtTheIntExtremes() {
+    for (Colour colour : Colour.values()) {
+      for (int n : kExtremes) {
+        assertEquals(colour + " by " + n, expectedNext(colour, n), colour.nextIn(n));
+      }
+    }
+  }
+
+  @Test
+  public void nextInStepsAddUp() {
+    for (Colour colour : Colour.values()) {
+      for (int a = -9; a <= 9; a++) {
+        for (int b = -9; b <= 9; b++) {
+          assertEquals(colour.nextIn(a + b), colour.nextIn(a).nextIn(b));
+        }
+        assertEquals(colour, colour.nextIn(a).nextIn(-a));
+      }
+    }
+  }
+
+  @Test
+  public void nextInVisitsEveryColorOncePerLap() {
+    for (Colour colour : Colour.values()) {
+      boolean[] seen = new boolean[Colour.values().length];
+      for (int n = 0; n < 4; n++) {
+        Colour next = colour.nextIn(n);
+        assertFalse(seen[next.ordinal()]);
+        seen[next.ordinal()] = true;
+      }
+      assertEquals(colour, colour.nextIn(4));
+    }
+  }
+
+  @Test
+  public void capitalsRoundTrip() {
+    for (Colour colour : Colour.values()) {
+      assertEquals(colour, Colour.fromString(colour.getCapital()));
+      assertEquals(colour, Colour.fromChar(colour.getCapital().charAt(0)));
+    }
+  }
+
+  @Test
+  public void unknownCapitalsAreYellow() {
+    String[] strings = {null, "", "RG", "r", "x", " ", "\u00d8"};
+    for (String string : strings) {
+      assertEquals("\"" + string + "\"", Colour.YELLOW, Colour.fromString(string));
+    }
+
+    for (int ch = Character.MIN_VALUE; ch <= Character.MAX_VALUE; ch++) {
+      Colour colour = Colour.fromChar((char) ch);
+      boolean capital = ch == 'R' || ch == 'Y' || ch == 'B' || ch == 'G';
+      if (!capital) {
+        assertEquals("char " + ch, Colour.YELLOW, colour);
+      }
+    }
+  }
+}
@@ -0,0 +1,210 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.wheel;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import frc.robot.wheel.SenseColor.Colour;
+
+import static org.junit.Assert.*;
+
+/**
+ * Drives a counter with the colors a sensor sees over a turning panel. The panel's
+ * position is in segments, with the sensor starting in the middle of a red one.
+ */
+public class RotationCounterTest {
+  private static final double kSamplePeriod = 0.025;
+  private static final double kMinConfidence = 0.8;
+  private static final int kMinProximity = 100;
+
+  private RotationCounter counter;
+  private double position;
+  private double time;
+
+  @Before
+  public void setUp() {
+    counter = new RotationCounter(kMinConfidence, kMinProximity);
+    position = 0.5;
+    time = 0;
+    read(colourAt(position));
+  }
+
+  private static Colour colourAt(double position) {
+    return Colour.RED.nextIn((int) Math.floor(position));
+  }
+
+  private void read(Colour colour) {
+    time += kSamplePeriod;
+    counter.addSample(colour, 1, 200, time);
+  }
+
+  private void misread(Colour colour) {
+    time += kSamplePeriod;
+    counter.addSample(colour, kMinConfidence / 2, 200, time);
+  }
+
+  /**
+   * Turns the panel a steady speed, reading after each step
+   */
+  private void turn(double segmentsPerSample, int samples) {
+    for (int i = 0; i < samples; i++) {
+      position += segmentsPerSample;
+      read(colourAt(position));
+    }
+  }
+
+  private int passed() {
+    return (int) Math.floor(position);
+  }
+
+  @Test
+  public void countsEverySegmentForwards() {
+    turn(1.0 / 8, 8 * 32);
+    assertEquals(32, counter.getSegments());
+    assertEquals(passed(), counter.getSegments());
+    assertEquals(0, counter.getInferredSegments());
+  }
+
+  @Test
+  public void countsEverySegmentBackwards() {
+    turn(-1.0 / 8, 8 * 32);
+    assertEquals(-32, counter.getSegments());
+    assertEquals(passed(), counter.getSegments());
+    assertEquals(0, counter.getInferredSegments());
+  }
+
+  @Test
+  public void changesDirection() {
+    turn(1.0 / 6, 6 * 10);
+    turn(-1.0 / 6, 6 * 14);
+    assertEquals(-4, counter.getSegments());
+    assertEquals(passed(), counter.getSegments());
+  }
+
+  @Test
+  public void ignoresAnEdgeReadAsTheColorBeyond() {
+    for (int segment = 0; segment < 24; segment++) {
+      turn(1.0 / 8, 7);
+      // The edge between two segments blends into the color after the next one
+      read(colourAt(position).nextIn(2));
+      turn(1.0 / 8, 1);
+    }
+
+    assertEquals(24, counter.getSegments());
+    assertEquals(passed(), counter.getSegments());
+    assertEquals(0, counter.getInferredSegments());
+  }
+
+  @Test
+  public void ignoresAnEdgeReadAsTheColorBehindWhileGoingBackwards() {
+    for (int segment = 0; segment < 24; segment++) {
+      turn(-1.0 / 8, 7);
+      read(colourAt(position).nextIn(-2));
+      turn(-1.0 / 8, 1);
+    }
+
+    assertEquals(-24, counter.getSegments());
+    assertEquals(passed(), counter.getSegments());
+  }
+
+  @Test
+  public void holdsStillThroughMisreadsOfAStoppedPanel() {
+    for (int i = 0; i < 50; i++) {
+      read(colourAt(position));
+      if (i % 10 == 5) {
+        read(colourAt(position).nextIn(1));
+      }
+    }
+
+    assertEquals(0, counter.getSegments());
+    assertEquals(colourAt(position), counter.getCurrent());
+  }
+
+  @Test
+  public void skipsLowConfidenceAndDistantReads() {
+    for (int segment = 0; segment < 16; segment++) {
+      for (int i = 0; i < 8; i++) {
+        position += 1.0 / 8;
+        if (i % 3 == 1) {
+          misread(colourAt(position).nextIn(2));
+        } else if (i % 3 == 2) {
+          time += kSamplePeriod;
+          counter.addSample(colourAt(position).nextIn(1), 1, kMinProximity - 1, time);
+        } else {
+          read(colourAt(position));
+        }
+      }
+    }
+
+    assertEquals(16, counter.getSegments());
+    assertEquals(passed(), counter.getSegments());
+  }
+
+  @Test
+  public void countsThroughDroppedReads() {
+    // Every other read lost: the counter only sees every second sample
+    for (int i = 0; i < 8 * 20; i++) {
+      position += 1.0 / 8;
+      if (i % 2 == 0) {
+        read(colourAt(position));
+      } else {
+        time += kSamplePeriod;
+      }
+    }
+
+    assertEquals(20, counter.getSegments());
+    assertEquals(passed(), counter.getSegments());
+  }
+
+  @Test
+  public void infersSegmentsPassedBetweenReads() {
+    // Speeds up until more than one segment passes between two reads
+    for (double speed = 0.05; speed < 1.5; speed += 0.05) {
+      turn(speed, 4);
+    }
+    turn(1.5, 40);
+
+    assertEquals(passed(), counter.getSegments());
+    assertTrue("Expected skipped segments to be inferred", counter.getInferredSegments() > 0);
+  }
+
+  @Test
+  public void infersSegmentsPassedBetweenReadsBackwards() {
+    for (double speed = 0.05; speed < 2.5; speed += 0.05) {
+      turn(-speed, 4);
+    }
+    turn(-2.5, 40);
+
+    assertEquals(passed(), counter.getSegments());
+    assertTrue(counter.getInferredSegments() > 0);
+  }
+
+  @Test
+  public void resetCountsFromTheNextRead() {
+    turn(1.0 / 8, 8 * 5);
+    counter.reset();
+    assertEquals(0, counter.getSegments());
+    assertNull(counter.getCurrent());
+
+    double start = Math.floor(position);
+    turn(1.0 / 8, 8 * 3);
+    assertEquals(3, counter.getSegments());
+    assertEquals(3, passed() - (int) start);
+  }
+
+  @Test
+  public void positionStaysInsideTheSegmentUnderTheSensor() {
+    for (int i = 0; i < 8 * 12; i++) {
+      turn(1.0 / 8, 1);
+      double estimate = counter.getPosition(time);
+      assertEquals(counter.getSegments(), Math.floor(estimate), 0);
+    }
+    assertEquals(1 / (8 * kSamplePeriod), counter.getSegmentsPerSecond(time), 0.5);
+  }
+}
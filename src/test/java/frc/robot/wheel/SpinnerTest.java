@@ -0,0 +1,137 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2019 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot.wheel;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.sim.RobotClock;
+import frc.robot.sim.SimSpeedController;
+import frc.robot.wheel.SenseColor.Colour;
+
+import static frc.robot.Constants.*;
+import static org.junit.Assert.*;
+
+/**
+ * Positions the simulated control panel, stepping the loop in the order the scheduler
+ * runs it: the sensor samples, the panel turns, then the command sets the spinner.
+ */
+public class SpinnerTest {
+  private static final String[] kMessages = { "B", "G", "R", "Y" };
+
+  private SimSpeedController motor;
+  private SenseColor colorSense;
+  private Spinner spinner;
+  private ControlPanelSim panel;
+  private double time;
+
+  @Before
+  public void setUp() {
+    time = 100;
+    RobotClock.setSource(() -> time);
+
+    motor = new SimSpeedController();
+    colorSense = new SenseColor(new SimColorSensorIO(), true);
+    spinner = new Spinner(colorSense, motor);
+    panel = spinner.getPanelSim();
+  }
+
+  @After
+  public void tearDown() {
+    RobotClock.setSource(Timer::getFPGATimestamp);
+  }
+
+  private void step() {
+    time += kLoopPeriodSeconds;
+    colorSense.periodic();
+    spinner.periodic();
+  }
+
+  /**
+   * Turns the panel for a while then lets it coast to a stop, to start from somewhere else
+   */
+  private void turn(double output, double seconds) {
+    for (double t = 0; t < seconds; t += kLoopPeriodSeconds) {
+      spinner.move(output);
+      step();
+    }
+    spinner.move(0);
+    while (panel.getVelocity() != 0) {
+      step();
+    }
+    step();
+  }
+
+  /**
+   * Runs the command until the panel has stopped with the spinner off, failing if that
+   * takes longer than the given time
+   */
+  private double position(String message, double maxSeconds) {
+    double start = time;
+    do {
+      step();
+      spinner.toSelectedColor(message);
+      assertTrue("still turning after " + maxSeconds + " s", time - start < maxSeconds);
+    } while (motor.get() != 0 || panel.getVelocity() != 0);
+    return time - start;
+  }
+
+  private void assertStoppedOn(String message) {
+    Colour objective = Colour.fromString(message).nextIn(2);
+    assertEquals(objective, panel.getColour());
+    assertEquals(objective, colorSense.getColour());
+
+    // The field's sensor is two segments round; it needs to see well inside the segment
+    double intoSegment = panel.getPosition() - Math.floor(panel.getPosition());
+    assertTrue("stopped " + intoSegment + " into the segment", intoSegment < 0.5);
+  }
+
+  @Test
+  public void stopsOnEachColorFromTheStart() {
+    for (String message : kMessages) {
+      setUp();
+      position(message, 2);
+      assertStoppedOn(message);
+    }
+  }
+
+  @Test
+  public void stopsOnEachColorFromAnywhere() {
+    for (int i = 0; i < 12; i++) {
+      turn(0.3, 0.1 + 0.07 * i);
+      String message = kMessages[i % kMessages.length];
+      position(message, 2);
+      assertStoppedOn(message);
+    }
+  }
+
+  @Test
+  public void holdsOnceThere() {
+    position("Y", 2);
+    double stopped = panel.getPosition();
+
+    for (int i = 0; i < 50; i++) {
+      step();
+      spinner.toSelectedColor("Y");
+      assertEquals(0, motor.get(), 0);
+    }
+    assertEquals(stopped, panel.getPosition(), 0);
+  }
+
+  @Test
+  public void alreadyThereDoesNotMove() {
+    // The message for a color is two segments back from it
+    String message = panel.getColour().nextIn(-2).getCapital();
+    double start = panel.getPosition();
+
+    position(message, 0.5);
+    assertEquals(start, panel.getPosition(), 0);
+  }
+}